@@ -0,0 +1,34 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+/**
+ * The operations of an {@link ArithmeticProvider}, for which a provider is selected independently
+ */
+public enum ArithmeticOperation {
+    MOD_EXP_SECRET,
+    MOD_EXP_PUBLIC,
+    MOD_EXP_SIMULTANEOUS,
+    MOD_INVERSE,
+    JACOBI_SYMBOL,
+    MULTIPLY_MOD
+}
@@ -0,0 +1,172 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Service provider interface for the big integer arithmetic used by the protocol algorithms.
+ * <p>Implementations may rely on native libraries, and must report through {@link #isAvailable()} whether they can
+ * be used in the current environment. All the operands are expected to be non-negative, and the exponents are
+ * expected to be non-negative: {@link BigIntegerArithmetic} takes care of negative exponents before delegating.</p>
+ * <p>The batch operations process independent operations sharing the same modulus; the default implementations
+ * perform them in parallel, inversions using Montgomery's trick.</p>
+ */
+public interface ArithmeticProvider {
+    /**
+     * @return the name of the provider, as used in the configuration
+     */
+    String getName();
+
+    /**
+     * @return true if the provider can be used in the current environment
+     */
+    boolean isAvailable();
+
+    /**
+     * @return true if {@link #modExpSecret(BigInteger, BigInteger, BigInteger)} protects the exponent against timing
+     * side-channels
+     */
+    boolean isConstantTime();
+
+    /**
+     * @param base     the base
+     * @param exponent the secret exponent, non-negative
+     * @param modulus  the modulus, odd
+     * @return base ^ exponent mod modulus
+     */
+    BigInteger modExpSecret(BigInteger base, BigInteger exponent, BigInteger modulus);
+
+    /**
+     * @param base     the base
+     * @param exponent the public exponent, non-negative
+     * @param modulus  the modulus
+     * @return base ^ exponent mod modulus
+     */
+    BigInteger modExpPublic(BigInteger base, BigInteger exponent, BigInteger modulus);
+
+    /**
+     * Compute <tt>&prod; bases_i^exponents_i mod modulus</tt> for a few bases (two or three) and public exponents.
+     * <p>The bases must belong to the subgroup of order <tt>order</tt>, so that negative exponents may be reduced
+     * modulo the order instead of inverting the bases, when that suits the implementation better. The default
+     * implementation performs the exponentiations separately.</p>
+     *
+     * @param bases     the bases, elements of the subgroup of order <tt>order</tt>
+     * @param exponents the public exponents, one per base, possibly negative
+     * @param modulus   the modulus
+     * @param order     the order of the subgroup
+     * @return the product of the powers, modulo the modulus
+     */
+    default BigInteger modExpSimultaneous(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus,
+                                          BigInteger order) {
+        BigInteger result = BigInteger.ONE;
+        for (int i = 0; i < bases.size(); i++) {
+            BigInteger exponent = exponents.get(i);
+            BigInteger power = exponent.signum() < 0 ?
+                    modExpPublic(modInverse(bases.get(i), modulus), exponent.negate(), modulus) :
+                    modExpPublic(bases.get(i), exponent, modulus);
+            result = multiplyMod(result, power, modulus);
+        }
+        return result;
+    }
+
+    /**
+     * @param value   the value to invert
+     * @param modulus the modulus
+     * @return value ^ -1 mod modulus
+     * @throws ArithmeticException if the value is not invertible
+     */
+    BigInteger modInverse(BigInteger value, BigInteger modulus);
+
+    /**
+     * @param value the value
+     * @param n     an odd positive integer
+     * @return the jacobi symbol <tt>(value/n)</tt>
+     */
+    int jacobiSymbol(BigInteger value, BigInteger n);
+
+    /**
+     * @param x       the first factor
+     * @param y       the second factor
+     * @param modulus the modulus
+     * @return x * y mod modulus
+     */
+    BigInteger multiplyMod(BigInteger x, BigInteger y, BigInteger modulus);
+
+    /**
+     * Batch version of {@link #modExpSecret(BigInteger, BigInteger, BigInteger)}
+     *
+     * @param bases     the bases
+     * @param exponents the secret exponents, one per base
+     * @param modulus   the common modulus
+     * @return the list of the powers, in the order of the bases
+     */
+    default List<BigInteger> modExpSecret(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        return IntStream.range(0, bases.size()).parallel()
+                .mapToObj(i -> modExpSecret(bases.get(i), exponents.get(i), modulus))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Batch version of {@link #modExpSecret(BigInteger, BigInteger, BigInteger)}, for many bases raised to the same
+     * exponent
+     *
+     * @param bases    the bases
+     * @param exponent the secret exponent, common to all the bases
+     * @param modulus  the common modulus
+     * @return the list of the powers, in the order of the bases
+     */
+    default List<BigInteger> modExpSecret(List<BigInteger> bases, BigInteger exponent, BigInteger modulus) {
+        return modExpSecret(bases, Collections.nCopies(bases.size(), exponent), modulus);
+    }
+
+    /**
+     * Batch version of {@link #modExpPublic(BigInteger, BigInteger, BigInteger)}
+     *
+     * @param bases     the bases
+     * @param exponents the public exponents, one per base
+     * @param modulus   the common modulus
+     * @return the list of the powers, in the order of the bases
+     */
+    default List<BigInteger> modExpPublic(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        return IntStream.range(0, bases.size()).parallel()
+                .mapToObj(i -> modExpPublic(bases.get(i), exponents.get(i), modulus))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Batch version of {@link #modInverse(BigInteger, BigInteger)}, trading all but one inversion per worker thread
+     * for three multiplications each
+     *
+     * @param values  the values to invert
+     * @param modulus the common modulus
+     * @return the list of the inverses, in the order of the values
+     * @throws ArithmeticException if any of the values is not invertible
+     */
+    default List<BigInteger> modInverse(List<BigInteger> values, BigInteger modulus) {
+        return BatchInversion.modInverse(values, modulus, this);
+    }
+}
@@ -0,0 +1,263 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Selection of the {@link ArithmeticProvider} to use, per operation and modulus size.
+ * <p>The selection is configured through the {@value #PROVIDER_PROPERTY} system property:</p>
+ * <ul>
+ * <li><tt>auto</tt> (default): the first time a modulus size is encountered, a short calibration benchmark is
+ * run on every available provider, and the fastest one is retained for each operation. Secret exponentiations
+ * are only ever assigned to constant-time providers, unless none is available;</li>
+ * <li><tt>gmp</tt>, <tt>jdk</tt> or <tt>java</tt>: the named provider is used for every operation.</li>
+ * </ul>
+ */
+public final class ArithmeticProviders {
+    public static final String PROVIDER_PROPERTY = "protopoc.arithmetic.provider";
+    public static final String AUTO = "auto";
+
+    private static final Logger log = LoggerFactory.getLogger(ArithmeticProviders.class);
+    private static final int SAMPLE_SIZE = 4;
+    private static final long MIN_MEASURE_NANOS = 2_000_000L;
+    private static final int MAX_MEASURE_ROUNDS = 1000;
+
+    private final List<ArithmeticProvider> providers;
+    private final ArithmeticProvider configuredProvider;
+    private final Map<Integer, Map<ArithmeticOperation, ArithmeticProvider>> selections = new ConcurrentHashMap<>();
+
+    /**
+     * @param candidates    the known providers, in order of preference when their performance is equivalent
+     * @param configuration either {@value #AUTO} or the name of the provider to use
+     */
+    public ArithmeticProviders(List<ArithmeticProvider> candidates, String configuration) {
+        this.providers = Collections.unmodifiableList(
+                candidates.stream().filter(ArithmeticProvider::isAvailable).collect(Collectors.toList()));
+        Preconditions.checkArgument(!providers.isEmpty(), "at least one provider must be available");
+        log.info("Available arithmetic providers: {}",
+                providers.stream().map(ArithmeticProvider::getName).collect(Collectors.toList()));
+        this.configuredProvider = findConfiguredProvider(candidates, configuration);
+    }
+
+    /**
+     * Create the selection from the default providers and the {@value #PROVIDER_PROPERTY} system property
+     *
+     * @return the provider selection
+     */
+    public static ArithmeticProviders fromSystemProperties() {
+        List<ArithmeticProvider> candidates = Arrays.asList(
+                new GmpArithmeticProvider(), new PureJavaArithmeticProvider(), new JdkArithmeticProvider());
+        return new ArithmeticProviders(candidates, System.getProperty(PROVIDER_PROPERTY, AUTO));
+    }
+
+    private ArithmeticProvider findConfiguredProvider(List<ArithmeticProvider> candidates, String configuration) {
+        if (AUTO.equalsIgnoreCase(configuration)) {
+            return null;
+        }
+        ArithmeticProvider provider = candidates.stream()
+                .filter(p -> p.getName().equalsIgnoreCase(configuration))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown arithmetic provider: " + configuration));
+        if (!provider.isAvailable()) {
+            log.error("Arithmetic provider {} is not available, falling back to calibration", provider.getName());
+            return null;
+        }
+        log.info("Using arithmetic provider {} for all operations", provider.getName());
+        return provider;
+    }
+
+    /**
+     * Get the provider to use for an operation
+     *
+     * @param operation the operation
+     * @param modulus   the modulus of the operation
+     * @return the selected provider
+     */
+    public ArithmeticProvider select(ArithmeticOperation operation, BigInteger modulus) {
+        if (configuredProvider != null) {
+            return configuredProvider;
+        }
+        return calibrate(modulus).get(operation);
+    }
+
+    /**
+     * Select the fastest provider for each operation on the size of the given modulus, unless this size has
+     * already been calibrated. Calling this method at startup, with the moduli of the public parameters, avoids
+     * paying for the calibration on the first actual operations.
+     * <p>The calibration runs outside of any lock, so that the threads working on sizes already calibrated are never
+     * blocked by it. Threads meeting a new size at the same time may each run a calibration, the first result
+     * stored being the one kept by all of them.</p>
+     *
+     * @param modulus a modulus, odd
+     * @return the provider selected for each operation
+     */
+    public Map<ArithmeticOperation, ArithmeticProvider> calibrate(BigInteger modulus) {
+        Map<ArithmeticOperation, ArithmeticProvider> selection = selections.get(modulus.bitLength());
+        if (selection == null) {
+            Map<ArithmeticOperation, ArithmeticProvider> calibrated = runCalibration(modulus);
+            selection = selections.putIfAbsent(modulus.bitLength(), calibrated);
+            if (selection == null) {
+                selection = calibrated;
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * @return a description of the providers selected so far, per modulus size and operation
+     */
+    public String report() {
+        if (configuredProvider != null) {
+            return configuredProvider.getName() + " (configured)";
+        }
+        Map<Integer, Map<ArithmeticOperation, String>> report = new TreeMap<>();
+        selections.forEach((bitLength, selection) -> {
+            Map<ArithmeticOperation, String> names = new EnumMap<>(ArithmeticOperation.class);
+            selection.forEach((operation, provider) -> names.put(operation, provider.getName()));
+            report.put(bitLength, names);
+        });
+        return report.toString();
+    }
+
+    private Map<ArithmeticOperation, ArithmeticProvider> runCalibration(BigInteger modulus) {
+        Sample sample = new Sample(modulus);
+        Map<ArithmeticOperation, ArithmeticProvider> selection = new EnumMap<>(ArithmeticOperation.class);
+        for (ArithmeticOperation operation : ArithmeticOperation.values()) {
+            ArithmeticProvider fastest = null;
+            long bestTime = Long.MAX_VALUE;
+            for (ArithmeticProvider provider : getCandidates(operation)) {
+                long time = measure(provider, operation, sample);
+                if (time < bestTime) {
+                    bestTime = time;
+                    fastest = provider;
+                }
+            }
+            if (fastest == null) {
+                fastest = providers.get(0);
+            }
+            selection.put(operation, fastest);
+        }
+        log.info("Arithmetic providers selected for {}-bit moduli: {}", modulus.bitLength(), selection.entrySet()
+                .stream().map(e -> e.getKey() + "=" + e.getValue().getName()).collect(Collectors.joining(", ")));
+        return Collections.unmodifiableMap(selection);
+    }
+
+    private List<ArithmeticProvider> getCandidates(ArithmeticOperation operation) {
+        if (operation == ArithmeticOperation.MOD_EXP_SECRET) {
+            List<ArithmeticProvider> constantTime = providers.stream()
+                    .filter(ArithmeticProvider::isConstantTime).collect(Collectors.toList());
+            if (!constantTime.isEmpty()) {
+                return constantTime;
+            }
+        }
+        return providers;
+    }
+
+    private long measure(ArithmeticProvider provider, ArithmeticOperation operation, Sample sample) {
+        try {
+            // warm-up round, also catching providers failing on this modulus
+            sample.run(provider, operation);
+            int rounds = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                sample.run(provider, operation);
+                rounds++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < MIN_MEASURE_NANOS && rounds < MAX_MEASURE_ROUNDS);
+            return elapsed / rounds;
+        } catch (RuntimeException e) {
+            log.warn("Arithmetic provider {} failed during calibration of {}", provider.getName(), operation, e);
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Pseudo-random operands of the size of the modulus. The values do not need to be secure, only representative.
+     */
+    private static final class Sample {
+        private final BigInteger modulus;
+        private final List<BigInteger> values = new ArrayList<>();
+        private final List<BigInteger> exponents = new ArrayList<>();
+
+        private Sample(BigInteger modulus) {
+            this.modulus = modulus;
+            Random random = new Random(modulus.bitLength());
+            int bitLength = modulus.bitLength();
+            while (values.size() < SAMPLE_SIZE) {
+                BigInteger value = new BigInteger(bitLength, random).mod(modulus);
+                if (modulus.compareTo(BigInteger.ONE) > 0 && value.gcd(modulus).equals(BigInteger.ONE)) {
+                    values.add(value);
+                    exponents.add(new BigInteger(bitLength, random));
+                } else if (modulus.compareTo(BigInteger.ONE) <= 0) {
+                    values.add(BigInteger.ZERO);
+                    exponents.add(BigInteger.ZERO);
+                }
+            }
+        }
+
+        private void run(ArithmeticProvider provider, ArithmeticOperation operation) {
+            for (int i = 0; i < SAMPLE_SIZE; i++) {
+                BigInteger value = values.get(i);
+                switch (operation) {
+                    case MOD_EXP_SECRET:
+                        provider.modExpSecret(value, exponents.get(i), modulus);
+                        break;
+                    case MOD_EXP_PUBLIC:
+                        provider.modExpPublic(value, exponents.get(i), modulus);
+                        break;
+                    case MOD_EXP_SIMULTANEOUS:
+                        provider.modExpSimultaneous(Arrays.asList(value, values.get((i + 1) % SAMPLE_SIZE)),
+                                Arrays.asList(exponents.get(i), exponents.get((i + 1) % SAMPLE_SIZE)), modulus,
+                                modulus);
+                        break;
+                    case MOD_INVERSE:
+                        provider.modInverse(value, modulus);
+                        break;
+                    case JACOBI_SYMBOL:
+                        provider.jacobiSymbol(value, modulus);
+                        break;
+                    case MULTIPLY_MOD:
+                        provider.multiplyMod(value, values.get((i + 1) % SAMPLE_SIZE), modulus);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown operation " + operation);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+
+/**
+ * Modular multiplication using Barrett's reduction.
+ * <p>The reciprocal of the modulus is computed once, so that each reduction costs two multiplications and a few
+ * subtractions, instead of the long division performed by {@link BigInteger#mod(BigInteger)}.</p>
+ */
+public final class BarrettReducer {
+    private final BigInteger modulus;
+    private final int modulusBitLength;
+    private final BigInteger factor;
+
+    /**
+     * @param modulus the modulus, strictly positive
+     */
+    public BarrettReducer(BigInteger modulus) {
+        Preconditions.checkArgument(modulus.signum() > 0, "the modulus must be positive");
+        this.modulus = modulus;
+        this.modulusBitLength = modulus.bitLength();
+        this.factor = BigInteger.ONE.shiftLeft(2 * modulusBitLength).divide(modulus);
+    }
+
+    /**
+     * Reduce a value modulo the modulus
+     *
+     * @param z a value in [0, modulus^2)
+     * @return z mod modulus
+     */
+    public BigInteger reduce(BigInteger z) {
+        if (z.compareTo(modulus) < 0) {
+            return z;
+        }
+        BigInteger quotient = z.shiftRight(modulusBitLength - 1).multiply(factor).shiftRight(modulusBitLength + 1);
+        BigInteger r = z.subtract(quotient.multiply(modulus));
+        while (r.compareTo(modulus) >= 0) {
+            r = r.subtract(modulus);
+        }
+        return r;
+    }
+
+    /**
+     * Multiply two values modulo the modulus
+     *
+     * @param x a value in [0, modulus)
+     * @param y a value in [0, modulus)
+     * @return x * y mod modulus
+     */
+    public BigInteger multiplyMod(BigInteger x, BigInteger y) {
+        return reduce(x.multiply(y));
+    }
+
+    /**
+     * Bring any value into [0, modulus), for use as an operand of the other methods
+     *
+     * @param x any value
+     * @return x mod modulus
+     */
+    public BigInteger normalize(BigInteger x) {
+        return x.signum() >= 0 && x.compareTo(modulus) < 0 ? x : x.mod(modulus);
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+}
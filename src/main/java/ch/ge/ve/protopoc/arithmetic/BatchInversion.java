@@ -0,0 +1,82 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Batch modular inversion, using Montgomery's trick.
+ * <p>The values are split in one contiguous chunk per worker thread. Within a chunk of <tt>n</tt> values, the
+ * prefix products are computed and only their total is inverted; each inverse is then recovered by walking back
+ * through the prefixes. The chunk costs a single inversion and <tt>3(n - 1)</tt> multiplications.</p>
+ */
+final class BatchInversion {
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private BatchInversion() {
+        // static methods only
+    }
+
+    /**
+     * @param values   the values to invert
+     * @param modulus  the common modulus
+     * @param provider the provider performing the inversion of each chunk
+     * @return the list of the inverses, in the order of the values
+     * @throws ArithmeticException if any of the values is not invertible
+     */
+    static List<BigInteger> modInverse(List<BigInteger> values, BigInteger modulus, ArithmeticProvider provider) {
+        int n = values.size();
+        if (n == 0) {
+            return Collections.emptyList();
+        }
+        BarrettReducer reducer = new BarrettReducer(modulus);
+        BigInteger[] inverses = new BigInteger[n];
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / MIN_CHUNK_SIZE));
+        IntStream.range(0, chunks).parallel().forEach(chunk ->
+                invertRange(values, chunk * n / chunks, (chunk + 1) * n / chunks, reducer, provider, inverses));
+        return Arrays.asList(inverses);
+    }
+
+    private static void invertRange(List<BigInteger> values, int from, int to, BarrettReducer reducer,
+                                    ArithmeticProvider provider, BigInteger[] inverses) {
+        BigInteger[] normalized = new BigInteger[to - from];
+        BigInteger[] prefixes = new BigInteger[to - from];
+        BigInteger product = BigInteger.ONE;
+        for (int k = 0; k < to - from; k++) {
+            normalized[k] = reducer.normalize(values.get(from + k));
+            product = reducer.multiplyMod(product, normalized[k]);
+            prefixes[k] = product;
+        }
+        // (v_0 * ... * v_k)^-1
+        BigInteger inverse = provider.modInverse(product, reducer.getModulus());
+        for (int k = to - from - 1; k > 0; k--) {
+            inverses[from + k] = reducer.multiplyMod(inverse, prefixes[k - 1]);
+            inverse = reducer.multiplyMod(inverse, normalized[k]);
+        }
+        inverses[from] = inverse;
+    }
+}
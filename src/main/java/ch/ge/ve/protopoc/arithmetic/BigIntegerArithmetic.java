@@ -21,56 +21,242 @@
 
 package ch.ge.ve.protopoc.arithmetic;
 
-import ch.ge.ve.protopoc.service.support.JacobiSymbol;
-import com.squareup.jnagmp.Gmp;
+import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
- * This class provides simplified access to LibGMP if it is loaded, with fallback to vanilla Java BigInteger methods
+ * This class provides simplified access to the arithmetic operations, delegating to the {@link ArithmeticProvider}
+ * selected for each operation and modulus size (see {@link ArithmeticProviders}): LibGMP if it is loaded, with
+ * fallback to Java implementations
  */
 public class BigIntegerArithmetic {
     private static final Logger log = LoggerFactory.getLogger(BigIntegerArithmetic.class);
-    private static final JacobiSymbol jacobiSymbol = new JacobiSymbol();
-    private static boolean gmpLoaded = false;
+    private static final boolean gmpLoaded;
+    private static final ArithmeticProviders providers;
 
     static {
-        try {
-            Gmp.checkLoaded();
-            gmpLoaded = true;
-        } catch (UnsatisfiedLinkError e) {
+        gmpLoaded = new GmpArithmeticProvider().isAvailable();
+        if (!gmpLoaded) {
             log.error("LibGMP is not available, computations will be much slower");
         }
+        providers = ArithmeticProviders.fromSystemProperties();
     }
 
+    /**
+     * Modular exponentiation, with the side-channel protections required for secret exponents.
+     * <p>This is the safe default: it is equivalent to {@link #modExpSecret(BigInteger, BigInteger, BigInteger)}.</p>
+     *
+     * @param base     the base
+     * @param exponent the exponent
+     * @param modulus  the modulus
+     * @return base ^ exponent mod modulus
+     */
     public static BigInteger modExp(BigInteger base, BigInteger exponent, BigInteger modulus) {
-        if (gmpLoaded) {
-            if (exponent.signum() < 0) {
-                return Gmp.modPowSecure(modInverse(base, modulus), exponent.negate(), modulus);
-            } else {
-                return Gmp.modPowSecure(base, exponent, modulus);
-            }
+        return modExpSecret(base, exponent, modulus);
+    }
+
+    /**
+     * Modular exponentiation for secret exponents (private keys, randomizations, ...), using LibGMP's constant-time
+     * implementation when available
+     *
+     * @param base     the base
+     * @param exponent the secret exponent
+     * @param modulus  the modulus, which must be odd
+     * @return base ^ exponent mod modulus
+     */
+    public static BigInteger modExpSecret(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        ArithmeticProvider provider = providers.select(ArithmeticOperation.MOD_EXP_SECRET, modulus);
+        if (exponent.signum() < 0) {
+            return provider.modExpSecret(modInverse(base, modulus), exponent.negate(), modulus);
         } else {
-            return base.modPow(exponent, modulus);
+            return provider.modExpSecret(base, exponent, modulus);
         }
     }
 
-    public static BigInteger modInverse(BigInteger value, BigInteger modulus) {
-        if (gmpLoaded) {
-            return Gmp.modInverse(value, modulus);
+    /**
+     * Modular exponentiation for public exponents (challenges, proof responses, ...), using LibGMP's faster,
+     * non constant-time implementation when available.
+     * <p>Must not be used when the exponent, or any value derived from it, has to remain secret.</p>
+     *
+     * @param base     the base
+     * @param exponent the public exponent
+     * @param modulus  the modulus
+     * @return base ^ exponent mod modulus
+     */
+    public static BigInteger modExpPublic(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        ArithmeticProvider provider = providers.select(ArithmeticOperation.MOD_EXP_PUBLIC, modulus);
+        if (exponent.signum() < 0) {
+            return provider.modExpPublic(modInverse(base, modulus), exponent.negate(), modulus);
         } else {
-            return value.modInverse(modulus);
+            return provider.modExpPublic(base, exponent, modulus);
         }
     }
 
+    /**
+     * Compute <tt>base1^exponent1 * base2^exponent2 mod modulus</tt>, for public exponents, using simultaneous
+     * exponentiation when the selected provider supports it
+     *
+     * @param base1     the first base, an element of the subgroup of order <tt>order</tt>
+     * @param exponent1 the first exponent, possibly negative
+     * @param base2     the second base, an element of the subgroup of order <tt>order</tt>
+     * @param exponent2 the second exponent, possibly negative
+     * @param modulus   the modulus
+     * @param order     the order of the subgroup, used to reduce negative exponents
+     * @return the product of the powers, modulo the modulus
+     */
+    public static BigInteger modExp2(BigInteger base1, BigInteger exponent1, BigInteger base2, BigInteger exponent2,
+                                     BigInteger modulus, BigInteger order) {
+        return providers.select(ArithmeticOperation.MOD_EXP_SIMULTANEOUS, modulus).modExpSimultaneous(
+                Arrays.asList(base1, base2), Arrays.asList(exponent1, exponent2), modulus, order);
+    }
+
+    /**
+     * Compute <tt>base1^exponent1 * base2^exponent2 * base3^exponent3 mod modulus</tt>, for public exponents, using
+     * simultaneous exponentiation when the selected provider supports it
+     *
+     * @param base1     the first base, an element of the subgroup of order <tt>order</tt>
+     * @param exponent1 the first exponent, possibly negative
+     * @param base2     the second base, an element of the subgroup of order <tt>order</tt>
+     * @param exponent2 the second exponent, possibly negative
+     * @param base3     the third base, an element of the subgroup of order <tt>order</tt>
+     * @param exponent3 the third exponent, possibly negative
+     * @param modulus   the modulus
+     * @param order     the order of the subgroup, used to reduce negative exponents
+     * @return the product of the powers, modulo the modulus
+     */
+    public static BigInteger modExp3(BigInteger base1, BigInteger exponent1, BigInteger base2, BigInteger exponent2,
+                                     BigInteger base3, BigInteger exponent3, BigInteger modulus, BigInteger order) {
+        return providers.select(ArithmeticOperation.MOD_EXP_SIMULTANEOUS, modulus).modExpSimultaneous(
+                Arrays.asList(base1, base2, base3), Arrays.asList(exponent1, exponent2, exponent3), modulus, order);
+    }
+
+    /**
+     * Batch version of {@link #modExpSecret(BigInteger, BigInteger, BigInteger)}, for many exponentiations under
+     * the same modulus
+     *
+     * @param bases     the bases
+     * @param exponents the secret exponents, one per base
+     * @param modulus   the common modulus, which must be odd
+     * @return the list of the powers, in the order of the bases
+     */
+    public static List<BigInteger> modExpSecret(List<BigInteger> bases, List<BigInteger> exponents,
+                                                BigInteger modulus) {
+        Preconditions.checkArgument(bases.size() == exponents.size(),
+                "there must be as many exponents as bases");
+        if (exponents.stream().anyMatch(e -> e.signum() < 0)) {
+            return modExpSecret(invertForNegativeExponents(bases, exponents, modulus), absolute(exponents), modulus);
+        }
+        return providers.select(ArithmeticOperation.MOD_EXP_SECRET, modulus).modExpSecret(bases, exponents, modulus);
+    }
+
+    /**
+     * Batch version of {@link #modExpSecret(BigInteger, BigInteger, BigInteger)}, for many bases raised to the same
+     * exponent (such as a key share, or the randomization of an oblivious transfer response): the exponent is only
+     * prepared once for the whole batch
+     *
+     * @param bases    the bases
+     * @param exponent the secret exponent, common to all the bases
+     * @param modulus  the common modulus, which must be odd
+     * @return the list of the powers, in the order of the bases
+     */
+    public static List<BigInteger> modExpSecret(List<BigInteger> bases, BigInteger exponent, BigInteger modulus) {
+        if (exponent.signum() < 0) {
+            return modExpSecret(modInverse(bases, modulus), exponent.negate(), modulus);
+        }
+        return providers.select(ArithmeticOperation.MOD_EXP_SECRET, modulus).modExpSecret(bases, exponent, modulus);
+    }
+
+    /**
+     * Batch version of {@link #modExpPublic(BigInteger, BigInteger, BigInteger)}, for many exponentiations under
+     * the same modulus
+     *
+     * @param bases     the bases
+     * @param exponents the public exponents, one per base
+     * @param modulus   the common modulus
+     * @return the list of the powers, in the order of the bases
+     */
+    public static List<BigInteger> modExpPublic(List<BigInteger> bases, List<BigInteger> exponents,
+                                                BigInteger modulus) {
+        Preconditions.checkArgument(bases.size() == exponents.size(),
+                "there must be as many exponents as bases");
+        if (exponents.stream().anyMatch(e -> e.signum() < 0)) {
+            return modExpPublic(invertForNegativeExponents(bases, exponents, modulus), absolute(exponents), modulus);
+        }
+        return providers.select(ArithmeticOperation.MOD_EXP_PUBLIC, modulus).modExpPublic(bases, exponents, modulus);
+    }
+
+    private static List<BigInteger> invertForNegativeExponents(List<BigInteger> bases, List<BigInteger> exponents,
+                                                               BigInteger modulus) {
+        List<Integer> negative = IntStream.range(0, bases.size()).filter(i -> exponents.get(i).signum() < 0)
+                .boxed().collect(Collectors.toList());
+        List<BigInteger> inverses = modInverse(negative.stream().map(bases::get).collect(Collectors.toList()), modulus);
+        List<BigInteger> result = new ArrayList<>(bases);
+        for (int k = 0; k < negative.size(); k++) {
+            result.set(negative.get(k), inverses.get(k));
+        }
+        return result;
+    }
+
+    private static List<BigInteger> absolute(List<BigInteger> exponents) {
+        return exponents.stream().map(BigInteger::abs).collect(Collectors.toList());
+    }
+
+    /**
+     * Compute the product of the powers <tt>&prod; bases_i^exponents_i mod modulus</tt>, using simultaneous
+     * multi-exponentiation rather than one exponentiation per term
+     *
+     * @param bases     the bases
+     * @param exponents the exponents, one per base
+     * @param modulus   the modulus
+     * @return the product of the powers, modulo the modulus
+     */
+    public static BigInteger modMultiExp(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        return MultiExponentiation.modMultiExp(bases, exponents, modulus);
+    }
+
+    public static BigInteger modInverse(BigInteger value, BigInteger modulus) {
+        return providers.select(ArithmeticOperation.MOD_INVERSE, modulus).modInverse(value, modulus);
+    }
+
+    /**
+     * Invert many values under the same modulus, using a single inversion per worker thread
+     *
+     * @param values  the values to invert
+     * @param modulus the common modulus
+     * @return the list of the inverses, in the order of the values
+     * @throws ArithmeticException if any of the values is not invertible
+     */
+    public static List<BigInteger> modInverse(List<BigInteger> values, BigInteger modulus) {
+        return providers.select(ArithmeticOperation.MOD_INVERSE, modulus).modInverse(values, modulus);
+    }
+
     public static int jacobiSymbol(BigInteger value, BigInteger n) {
-        if (gmpLoaded) {
-            return Gmp.kronecker(value, n);
-        } else {
-            return jacobiSymbol.computeJacobiSymbol(value, n);
+        return providers.select(ArithmeticOperation.JACOBI_SYMBOL, n).jacobiSymbol(value, n);
+    }
+
+    public static BigInteger multiplyMod(BigInteger x, BigInteger y, BigInteger modulus) {
+        return providers.select(ArithmeticOperation.MULTIPLY_MOD, modulus).multiplyMod(x, y, modulus);
+    }
+
+    /**
+     * Run the provider calibration for the given moduli, rather than on their first use
+     *
+     * @param moduli the moduli which will be used
+     * @return a description of the providers selected so far
+     */
+    public static String calibrate(BigInteger... moduli) {
+        for (BigInteger modulus : moduli) {
+            providers.calibrate(modulus);
         }
+        return providers.report();
     }
 
     public static boolean isGmpLoaded() {
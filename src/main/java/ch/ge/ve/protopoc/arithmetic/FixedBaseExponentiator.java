@@ -0,0 +1,178 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+
+/**
+ * Fixed-base modular exponentiation, using precomputed windowed tables.
+ * <p>For a base <tt>g</tt>, a window width <tt>w</tt> and a maximum exponent length <tt>l</tt>, the table holds
+ * <tt>g^(d * 2^(w*i))</tt> for every digit <tt>0 &lt; d &lt; 2^w</tt> and every window <tt>0 &le; i &lt; l/w</tt>.
+ * An exponentiation then only needs one multiplication per non-zero window of the exponent, and no squaring.</p>
+ * <p>Modular reductions use a {@link BarrettReducer}.</p>
+ * <p>The table lookups are indexed by the digits of the exponent, and zero digits are skipped: the tables are
+ * therefore only used for public exponents, through {@link #modExpPublic(BigInteger)}, and only speed up the
+ * verifications (of the ballot proofs, of the shuffle and decryption proofs). As in {@link BigIntegerArithmetic},
+ * {@link #modExp(BigInteger)} is the safe default for secret exponents: it is delegated to
+ * {@link BigIntegerArithmetic#modExpSecret(BigInteger, BigInteger, BigInteger)}, and costs as much as without the
+ * tables. A constant-time comb, scanning the whole row of every window, was only about 1.5 times faster than
+ * LibGMP's constant-time exponentiation at 2048 bits, and could not be made constant-time on {@link BigInteger}s
+ * anyway.</p>
+ * <p>The table is built on the first public exponentiation, so that the exponentiators only used for secret
+ * exponents (on the voting client) never pay for it.</p>
+ * <p>Exponents that are negative or longer than the table fall back to
+ * {@link BigIntegerArithmetic#modExpPublic(BigInteger, BigInteger, BigInteger)}.</p>
+ */
+public final class FixedBaseExponentiator {
+    private final BigInteger base;
+    private final BigInteger modulus;
+    private final int windowWidth;
+    private final int maxExponentBitLength;
+    private final BarrettReducer reducer;
+    private volatile BigInteger[][] table;
+
+    /**
+     * Create the exponentiator, using the default window width for the exponent length
+     *
+     * @param base                 the fixed base
+     * @param modulus              the modulus
+     * @param maxExponentBitLength the maximum bit length of the exponents covered by the table
+     */
+    public FixedBaseExponentiator(BigInteger base, BigInteger modulus, int maxExponentBitLength) {
+        this(base, modulus, maxExponentBitLength, defaultWindowWidth(maxExponentBitLength));
+    }
+
+    /**
+     * Create the exponentiator
+     *
+     * @param base                 the fixed base
+     * @param modulus              the modulus
+     * @param maxExponentBitLength the maximum bit length of the exponents covered by the table
+     * @param windowWidth          the number of exponent bits handled per table lookup
+     */
+    public FixedBaseExponentiator(BigInteger base, BigInteger modulus, int maxExponentBitLength, int windowWidth) {
+        Preconditions.checkArgument(modulus.signum() > 0, "the modulus must be positive");
+        Preconditions.checkArgument(maxExponentBitLength > 0, "the maximum exponent length must be positive");
+        Preconditions.checkArgument(windowWidth > 0 && windowWidth < 16, "the window width must be in [1, 15]");
+        this.base = base.mod(modulus);
+        this.modulus = modulus;
+        this.reducer = new BarrettReducer(modulus);
+        this.windowWidth = windowWidth;
+        this.maxExponentBitLength = maxExponentBitLength;
+    }
+
+    private static int defaultWindowWidth(int maxExponentBitLength) {
+        if (maxExponentBitLength <= 64) {
+            return 2;
+        } else if (maxExponentBitLength <= 512) {
+            return 4;
+        } else {
+            return 6;
+        }
+    }
+
+    private BigInteger[][] getTable() {
+        BigInteger[][] rows = table;
+        if (rows == null) {
+            synchronized (this) {
+                rows = table;
+                if (rows == null) {
+                    rows = buildTable();
+                    table = rows;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private BigInteger[][] buildTable() {
+        int windows = (maxExponentBitLength + windowWidth - 1) / windowWidth;
+        int digits = 1 << windowWidth;
+        BigInteger[][] rows = new BigInteger[windows][];
+        BigInteger windowBase = base;
+        for (int i = 0; i < windows; i++) {
+            BigInteger[] row = new BigInteger[digits];
+            row[0] = BigInteger.ONE;
+            row[1] = windowBase;
+            for (int d = 2; d < digits; d++) {
+                row[d] = reducer.multiplyMod(row[d - 1], windowBase);
+            }
+            rows[i] = row;
+            // g^(2^(w*(i+1))) = (g^((2^w - 1) * 2^(w*i))) * g^(2^(w*i))
+            windowBase = reducer.multiplyMod(row[digits - 1], windowBase);
+        }
+        return rows;
+    }
+
+    /**
+     * Compute <tt>base^exponent mod modulus</tt>, with the side-channel protections required for secret exponents.
+     * <p>This is the safe default: it does not use the table, and is equivalent to
+     * {@link BigIntegerArithmetic#modExpSecret(BigInteger, BigInteger, BigInteger)}.</p>
+     *
+     * @param exponent the secret exponent
+     * @return the result of the exponentiation
+     */
+    public BigInteger modExp(BigInteger exponent) {
+        return BigIntegerArithmetic.modExpSecret(base, exponent, modulus);
+    }
+
+    /**
+     * Compute <tt>base^exponent mod modulus</tt> for a public exponent, using the precomputed table.
+     * <p>The running time and memory accesses depend on the exponent: must not be used when the exponent, or any
+     * value derived from it, has to remain secret.</p>
+     *
+     * @param exponent the public exponent
+     * @return the result of the exponentiation
+     */
+    public BigInteger modExpPublic(BigInteger exponent) {
+        if (exponent.signum() < 0 || exponent.bitLength() > maxExponentBitLength) {
+            return BigIntegerArithmetic.modExpPublic(base, exponent, modulus);
+        }
+        BigInteger[][] table = getTable();
+        BigInteger result = BigInteger.ONE;
+        int bitLength = exponent.bitLength();
+        for (int i = 0, offset = 0; offset < bitLength; i++, offset += windowWidth) {
+            int digit = 0;
+            for (int k = windowWidth - 1; k >= 0; k--) {
+                digit = (digit << 1) | (exponent.testBit(offset + k) ? 1 : 0);
+            }
+            if (digit != 0) {
+                result = reducer.multiplyMod(result, table[i][digit]);
+            }
+        }
+        return result.mod(modulus);
+    }
+
+    public BigInteger getBase() {
+        return base;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    public int getMaxExponentBitLength() {
+        return maxExponentBitLength;
+    }
+}
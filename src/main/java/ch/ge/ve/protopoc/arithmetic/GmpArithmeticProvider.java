@@ -0,0 +1,132 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import com.squareup.jnagmp.Gmp;
+import com.squareup.jnagmp.GmpInteger;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Arithmetic provider delegating to LibGMP through jnagmp, available if the native library could be loaded.
+ * <p>Batch exponentiations keep the modulus resident in native memory for the whole batch, and split the batch in
+ * one contiguous range per worker thread, so that each thread reuses its native operand buffers across the
+ * range.</p>
+ */
+public final class GmpArithmeticProvider implements ArithmeticProvider {
+    public static final String NAME = "gmp";
+
+    private final boolean available;
+
+    public GmpArithmeticProvider() {
+        boolean loaded;
+        try {
+            Gmp.checkLoaded();
+            loaded = true;
+        } catch (UnsatisfiedLinkError e) {
+            loaded = false;
+        }
+        this.available = loaded;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Override
+    public boolean isConstantTime() {
+        return true;
+    }
+
+    @Override
+    public BigInteger modExpSecret(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        return Gmp.modPowSecure(base, exponent, modulus);
+    }
+
+    @Override
+    public BigInteger modExpPublic(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        return Gmp.modPowInsecure(base, exponent, modulus);
+    }
+
+    @Override
+    public List<BigInteger> modExpSecret(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        BigInteger residentModulus = new GmpInteger(modulus);
+        return batch(bases, exponents, (base, exponent) -> Gmp.modPowSecure(base, exponent, residentModulus));
+    }
+
+    /**
+     * The common exponent is kept resident in native memory along with the modulus, so that it is only converted
+     * once for the whole batch.
+     */
+    @Override
+    public List<BigInteger> modExpSecret(List<BigInteger> bases, BigInteger exponent, BigInteger modulus) {
+        BigInteger residentExponent = new GmpInteger(exponent);
+        return modExpSecret(bases, Collections.nCopies(bases.size(), residentExponent), modulus);
+    }
+
+    @Override
+    public List<BigInteger> modExpPublic(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        BigInteger residentModulus = new GmpInteger(modulus);
+        return batch(bases, exponents, (base, exponent) -> Gmp.modPowInsecure(base, exponent, residentModulus));
+    }
+
+    private static List<BigInteger> batch(List<BigInteger> bases, List<BigInteger> exponents,
+                                          BinaryOperator<BigInteger> modExp) {
+        int n = bases.size();
+        BigInteger[] results = new BigInteger[n];
+        int chunks = Math.max(1, Math.min(n, ForkJoinPool.getCommonPoolParallelism()));
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            for (int i = chunk * n / chunks; i < (chunk + 1) * n / chunks; i++) {
+                results[i] = modExp.apply(bases.get(i), exponents.get(i));
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public BigInteger modInverse(BigInteger value, BigInteger modulus) {
+        return Gmp.modInverse(value, modulus);
+    }
+
+    @Override
+    public int jacobiSymbol(BigInteger value, BigInteger n) {
+        return Gmp.kronecker(value, n);
+    }
+
+    @Override
+    public BigInteger multiplyMod(BigInteger x, BigInteger y, BigInteger modulus) {
+        // a single multiplication does not outweigh the cost of crossing the native boundary
+        return x.multiply(y).mod(modulus);
+    }
+}
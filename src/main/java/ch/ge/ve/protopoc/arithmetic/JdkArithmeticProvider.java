@@ -0,0 +1,75 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import ch.ge.ve.protopoc.service.support.JacobiSymbol;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic provider relying on the plain {@link BigInteger} methods, always available
+ */
+public final class JdkArithmeticProvider implements ArithmeticProvider {
+    public static final String NAME = "jdk";
+
+    private final JacobiSymbol jacobiSymbol = new JacobiSymbol();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public boolean isConstantTime() {
+        return false;
+    }
+
+    @Override
+    public BigInteger modExpSecret(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        return base.modPow(exponent, modulus);
+    }
+
+    @Override
+    public BigInteger modExpPublic(BigInteger base, BigInteger exponent, BigInteger modulus) {
+        return base.modPow(exponent, modulus);
+    }
+
+    @Override
+    public BigInteger modInverse(BigInteger value, BigInteger modulus) {
+        return value.modInverse(modulus);
+    }
+
+    @Override
+    public int jacobiSymbol(BigInteger value, BigInteger n) {
+        return jacobiSymbol.computeJacobiSymbol(value, n);
+    }
+
+    @Override
+    public BigInteger multiplyMod(BigInteger x, BigInteger y, BigInteger modulus) {
+        return x.multiply(y).mod(modulus);
+    }
+}
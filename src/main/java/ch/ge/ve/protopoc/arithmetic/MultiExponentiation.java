@@ -0,0 +1,191 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Simultaneous multi-exponentiation, computing <tt>&prod; b_i^e_i mod m</tt> in a single pass.
+ * <p>Small products use Straus' interleaved windows (one table per base, shared squarings), large products use
+ * Pippenger's bucket method (one set of buckets per window, shared across all bases). The method with the lowest
+ * estimated number of multiplications is picked for each call. Large inputs are split in chunks that are processed
+ * in parallel.</p>
+ * <p>The computation time depends on the exponents' digits.</p>
+ */
+final class MultiExponentiation {
+    /**
+     * Minimal number of terms handled by a parallel task
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final int MAX_WINDOW_WIDTH = 16;
+
+    private MultiExponentiation() {
+        // utility class
+    }
+
+    static BigInteger modMultiExp(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        Preconditions.checkArgument(bases.size() == exponents.size(),
+                "there should be as many exponents as there are bases");
+        int n = bases.size();
+        BarrettReducer reducer = new BarrettReducer(modulus);
+        BigInteger[] bold_b = new BigInteger[n];
+        BigInteger[] bold_e = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            BigInteger base = reducer.normalize(bases.get(i));
+            BigInteger exponent = exponents.get(i);
+            if (exponent.signum() < 0) {
+                base = BigIntegerArithmetic.modInverse(base, modulus);
+                exponent = exponent.negate();
+            }
+            bold_b[i] = base;
+            bold_e[i] = exponent;
+        }
+
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / MIN_CHUNK_SIZE));
+        if (chunks == 1) {
+            return reducer.normalize(modMultiExp(bold_b, bold_e, 0, n, reducer));
+        }
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(k -> modMultiExp(bold_b, bold_e, (int) ((long) n * k / chunks),
+                        (int) ((long) n * (k + 1) / chunks), reducer))
+                .reduce(reducer::multiplyMod)
+                .map(reducer::normalize)
+                .orElse(BigInteger.ONE);
+    }
+
+    private static BigInteger modMultiExp(BigInteger[] bases, BigInteger[] exponents, int from, int to,
+                                          BarrettReducer reducer) {
+        int m = to - from;
+        int b = 0;
+        for (int i = from; i < to; i++) {
+            b = Math.max(b, exponents[i].bitLength());
+        }
+        if (b == 0) {
+            return BigInteger.ONE;
+        }
+
+        int strausWidth = 1;
+        long strausCost = Long.MAX_VALUE;
+        int pippengerWidth = 1;
+        long pippengerCost = Long.MAX_VALUE;
+        for (int w = 1; w <= MAX_WINDOW_WIDTH; w++) {
+            long windows = (b + w - 1) / w;
+            long straus = b + m * windows + m * ((1L << w) - 2);
+            if (straus < strausCost) {
+                strausCost = straus;
+                strausWidth = w;
+            }
+            long pippenger = b + windows * (m + (1L << (w + 1)));
+            if (pippenger < pippengerCost) {
+                pippengerCost = pippenger;
+                pippengerWidth = w;
+            }
+        }
+
+        if (strausCost <= pippengerCost) {
+            return straus(bases, exponents, from, to, b, strausWidth, reducer);
+        } else {
+            return pippenger(bases, exponents, from, to, b, pippengerWidth, reducer);
+        }
+    }
+
+    private static BigInteger straus(BigInteger[] bases, BigInteger[] exponents, int from, int to, int b, int w,
+                                     BarrettReducer reducer) {
+        int digits = 1 << w;
+        BigInteger[][] tables = new BigInteger[to - from][];
+        for (int i = from; i < to; i++) {
+            BigInteger[] table = new BigInteger[digits];
+            table[1] = bases[i];
+            for (int d = 2; d < digits; d++) {
+                table[d] = reducer.multiplyMod(table[d - 1], bases[i]);
+            }
+            tables[i - from] = table;
+        }
+
+        BigInteger result = null;
+        for (int window = (b - 1) / w; window >= 0; window--) {
+            if (result != null) {
+                for (int k = 0; k < w; k++) {
+                    result = reducer.multiplyMod(result, result);
+                }
+            }
+            for (int i = from; i < to; i++) {
+                int digit = digit(exponents[i], window, w);
+                if (digit != 0) {
+                    BigInteger factor = tables[i - from][digit];
+                    result = result == null ? factor : reducer.multiplyMod(result, factor);
+                }
+            }
+        }
+        return result == null ? BigInteger.ONE : result;
+    }
+
+    private static BigInteger pippenger(BigInteger[] bases, BigInteger[] exponents, int from, int to, int b, int c,
+                                        BarrettReducer reducer) {
+        int digits = 1 << c;
+        BigInteger result = null;
+        for (int window = (b - 1) / c; window >= 0; window--) {
+            if (result != null) {
+                for (int k = 0; k < c; k++) {
+                    result = reducer.multiplyMod(result, result);
+                }
+            }
+            BigInteger[] buckets = new BigInteger[digits];
+            for (int i = from; i < to; i++) {
+                int digit = digit(exponents[i], window, c);
+                if (digit != 0) {
+                    buckets[digit] = buckets[digit] == null ? bases[i] :
+                            reducer.multiplyMod(buckets[digit], bases[i]);
+                }
+            }
+            // prod_d bucket_d^d, computed as a product of running products
+            BigInteger running = null;
+            BigInteger sum = null;
+            for (int d = digits - 1; d > 0; d--) {
+                if (buckets[d] != null) {
+                    running = running == null ? buckets[d] : reducer.multiplyMod(running, buckets[d]);
+                }
+                if (running != null) {
+                    sum = sum == null ? running : reducer.multiplyMod(sum, running);
+                }
+            }
+            if (sum != null) {
+                result = result == null ? sum : reducer.multiplyMod(result, sum);
+            }
+        }
+        return result == null ? BigInteger.ONE : result;
+    }
+
+    private static int digit(BigInteger exponent, int window, int w) {
+        int offset = window * w;
+        int digit = 0;
+        for (int k = w - 1; k >= 0; k--) {
+            digit = (digit << 1) | (exponent.testBit(offset + k) ? 1 : 0);
+        }
+        return digit;
+    }
+}
@@ -21,7 +21,11 @@
 
 package ch.ge.ve.protopoc.service.algorithm;
 
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
 import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.support.ExponentiationTask;
+import ch.ge.ve.protopoc.service.support.ExponentiationWorkers;
+import ch.ge.ve.protopoc.service.support.ParallelVectors;
 import ch.ge.ve.protopoc.service.support.RandomGenerator;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
@@ -29,16 +33,27 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp2;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpPublic;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpSecret;
 import static ch.ge.ve.protopoc.service.support.BigIntegers.multiplyMod;
 import static java.math.BigInteger.ONE;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 
 /**
  * Algorithms related to the decryption of ballots
@@ -48,12 +63,25 @@ public class DecryptionAuthorityAlgorithms {
     private final PublicParameters publicParameters;
     private final GeneralAlgorithms generalAlgorithms;
     private final RandomGenerator randomGenerator;
+    private final ExponentiationWorkers exponentiationWorkers;
 
     public DecryptionAuthorityAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms,
                                          RandomGenerator randomGenerator) {
+        this(publicParameters, generalAlgorithms, randomGenerator, ExponentiationWorkers.inProcess());
+    }
+
+    /**
+     * @param exponentiationWorkers the executor of the exponentiations over vectors of the size of the ballot box,
+     *                              used for the verification of the shuffle proofs only: the decryptions, which
+     *                              involve the private key share, always remain in the current process
+     */
+    public DecryptionAuthorityAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms,
+                                         RandomGenerator randomGenerator,
+                                         ExponentiationWorkers exponentiationWorkers) {
         this.publicParameters = publicParameters;
         this.generalAlgorithms = generalAlgorithms;
         this.randomGenerator = randomGenerator;
+        this.exponentiationWorkers = exponentiationWorkers;
     }
 
     /**
@@ -65,9 +93,29 @@ public class DecryptionAuthorityAlgorithms {
      * @param publicKey the public key
      * @param j         the index of this authority
      * @return true if all the proofs generated by the other authorities are valid, false otherwise
+     * @see #findInvalidShuffleProof(List, List, List, EncryptionPublicKey, int)
      */
     public boolean checkShuffleProofs(List<ShuffleProof> bold_pi, List<Encryption> e_0,
                                       List<List<Encryption>> bold_E, EncryptionPublicKey publicKey, int j) {
+        return !findInvalidShuffleProof(bold_pi, e_0, bold_E, publicKey, j).isPresent();
+    }
+
+    /**
+     * Check the proofs generated by the other authorities, as {@link #checkShuffleProofs} does, and report which
+     * authority generated an invalid proof.
+     * <p>The proofs are checked concurrently, on at most as many threads as the common pool parallelism. As soon as
+     * one of them is found invalid, the checks still pending are cancelled, and those running are interrupted.</p>
+     *
+     * @param bold_pi   the shuffle proofs generated by the authorities
+     * @param e_0       the original encryption
+     * @param bold_E    the vector of the re-encryption lists, per authority
+     * @param publicKey the public key
+     * @param j         the index of this authority
+     * @return the index of an authority whose proof is invalid, or empty if all the proofs of the other authorities
+     * are valid
+     */
+    public OptionalInt findInvalidShuffleProof(List<ShuffleProof> bold_pi, List<Encryption> e_0,
+                                               List<List<Encryption>> bold_E, EncryptionPublicKey publicKey, int j) {
         int s = publicParameters.getS();
         int N = e_0.size();
         Preconditions.checkArgument(bold_pi.size() == s,
@@ -83,15 +131,50 @@ public class DecryptionAuthorityAlgorithms {
         List<List<Encryption>> tmp_bold_e = new ArrayList<>();
         tmp_bold_e.add(0, e_0);
         tmp_bold_e.addAll(bold_E);
-        for (int i = 0; i < s; i++) {
-            if (i != j) {
-                if (!checkShuffleProof(
-                        bold_pi.get(i), tmp_bold_e.get(i), tmp_bold_e.get(i + 1), publicKey)) {
-                    return false;
+        List<Integer> others = IntStream.range(0, s).filter(i -> i != j).boxed().collect(Collectors.toList());
+        IntPredicate isValid = i -> checkShuffleProof(
+                bold_pi.get(i), tmp_bold_e.get(i), tmp_bold_e.get(i + 1), publicKey);
+
+        OptionalInt invalid = checkConcurrently(others, isValid);
+        if (invalid.isPresent()) {
+            log.error(String.format("Invalid shuffle proof found for authority %d", invalid.getAsInt()));
+        }
+        return invalid;
+    }
+
+    private static OptionalInt checkConcurrently(List<Integer> others, IntPredicate isValid) {
+        int threads = Math.min(others.size(), ForkJoinPool.getCommonPoolParallelism());
+        if (threads <= 1) {
+            return others.stream().mapToInt(Integer::intValue).filter(isValid.negate()).findFirst();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "shuffle-proof-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletionService<OptionalInt> completionService = new ExecutorCompletionService<>(executor);
+            for (int i : others) {
+                completionService.submit(() -> isValid.test(i) ? OptionalInt.empty() : OptionalInt.of(i));
+            }
+            for (int k = 0; k < others.size(); k++) {
+                OptionalInt invalid = completionService.take().get();
+                if (invalid.isPresent()) {
+                    return invalid;
                 }
             }
+            return OptionalInt.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while checking the shuffle proofs");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
-        return true;
     }
 
     /**
@@ -108,7 +191,6 @@ public class DecryptionAuthorityAlgorithms {
         BigInteger pk = publicKey.getPublicKey();
         BigInteger p = publicParameters.getEncryptionGroup().getP();
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
         BigInteger h = publicParameters.getEncryptionGroup().getH();
         int tau = publicParameters.getSecurityParameters().getTau();
 
@@ -147,9 +229,9 @@ public class DecryptionAuthorityAlgorithms {
         Preconditions.checkArgument(generalAlgorithms.isMember(t_1), "t_1 must be in G_q");
         Preconditions.checkArgument(generalAlgorithms.isMember(t_2), "t_2 must be in G_q");
         Preconditions.checkArgument(generalAlgorithms.isMember(t_3), "t_3 must be in G_q");
-        Preconditions.checkArgument(t_4.parallelStream().allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(t_4),
                 "t_4_1 and t_4_2 be in G_q");
-        Preconditions.checkArgument(t_hat.parallelStream().allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(t_hat),
                 "all t_hat_i's must be in G_q");
         Preconditions.checkArgument(generalAlgorithms.isInZ_q(s_1), "s_1 must be in Z_q");
         Preconditions.checkArgument(generalAlgorithms.isInZ_q(s_2), "s_2 must be in Z_q");
@@ -159,85 +241,153 @@ public class DecryptionAuthorityAlgorithms {
                 "all s_hat_i's must be in Z_q");
         Preconditions.checkArgument(s_prime.parallelStream().allMatch(generalAlgorithms::isInZ_q),
                 "all s_prime_i's must be in Z_q");
-        Preconditions.checkArgument(bold_c.parallelStream().allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(bold_c),
                 "all c_i's must be in G_q");
-        Preconditions.checkArgument(bold_c_hat.parallelStream().allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(bold_c_hat),
                 "all c_hat_i's must be in G_q");
-        Preconditions.checkArgument(bold_e.parallelStream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
-                        generalAlgorithms.isMember(e.getB())),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(EncryptionVector.aComponents(bold_e)) &&
+                        generalAlgorithms.areMembers(EncryptionVector.bComponents(bold_e)),
                 "all e_i's must be in G_q^2");
-        Preconditions.checkArgument(bold_e_prime.parallelStream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
-                        generalAlgorithms.isMember(e.getB())),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(EncryptionVector.aComponents(bold_e_prime)) &&
+                        generalAlgorithms.areMembers(EncryptionVector.bComponents(bold_e_prime)),
                 "all e_prime_i's must be in G_q^2");
         Preconditions.checkArgument(generalAlgorithms.isMember(pk), "pk must be in G_q");
 
+        checkNotInterrupted();
         List<BigInteger> bold_h = generalAlgorithms.getGenerators(N);
         List<BigInteger> bold_u = generalAlgorithms.getNIZKPChallenges(N, new List[]{bold_e, bold_e_prime, bold_c}, tau);
         Object[] y = {bold_e, bold_e_prime, bold_c, bold_c_hat, pk};
         BigInteger c = generalAlgorithms.getNIZKPChallenge(y, pi.getT().elementsToHash(), tau);
 
         BigInteger c_prod = bold_c.stream().reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger h_prod = bold_h.stream().reduce(multiplyMod(p)).orElse(ONE);
+        BigInteger h_prod = generalAlgorithms.getGeneratorsProduct(N);
         BigInteger c_bar = c_prod.multiply(h_prod.modInverse(p)).mod(p);
 
         BigInteger u = bold_u.stream().reduce(multiplyMod(q)).orElse(ONE);
 
-        BigInteger c_hat = bold_c_hat.get(N - 1).multiply(modExp(h, u.negate(), p));
-        BigInteger c_tilde = IntStream.range(0, N).mapToObj(i -> modExp(bold_c.get(i), bold_u.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
-
-        BigInteger e_prime_1 = IntStream.range(0, N).mapToObj(i -> modExp(bold_e.get(i).getA(), bold_u.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger e_prime_2 = IntStream.range(0, N).mapToObj(i -> modExp(bold_e.get(i).getB(), bold_u.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
-
-        BigInteger t_prime_1 = modExp(c_bar, c.negate(), p).multiply(modExp(g, s_1, p)).mod(p);
-        BigInteger t_prime_2 = modExp(c_hat, c.negate(), p).multiply(modExp(g, s_2, p)).mod(p);
-        BigInteger h_i_s_prime_i = IntStream.range(0, N).parallel()
-                .mapToObj(i -> modExp(bold_h.get(i), s_prime.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger t_prime_3 = modExp(c_tilde, c.negate(), p).multiply(modExp(g, s_3, p)).multiply(h_i_s_prime_i).mod(p);
-
-        BigInteger a_prime_i_s_prime_i = IntStream.range(0, N)
-                .parallel()
-                .mapToObj(i -> modExp(bold_e_prime.get(i).getA(), s_prime.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger t_prime_4_1 = modExp(e_prime_1, c.negate(), p)
-                .multiply(modExp(pk, s_4.negate(), p))
+        BigInteger c_hat = bold_c_hat.get(N - 1).multiply(modExpPublic(h, u.negate(), p));
+        BigInteger c_tilde = exponentiationWorkers.modMultiExp(bold_c, bold_u, p);
+
+        List<BigInteger> bold_a = EncryptionVector.aComponents(bold_e);
+        List<BigInteger> bold_b = EncryptionVector.bComponents(bold_e);
+        BigInteger e_prime_1 = exponentiationWorkers.modMultiExp(bold_a, bold_u, p);
+        BigInteger e_prime_2 = exponentiationWorkers.modMultiExp(bold_b, bold_u, p);
+
+        checkNotInterrupted();
+        FixedBaseExponentiator g_exp = publicParameters.getEncryptionGroup().getGExponentiator();
+        BigInteger t_prime_1 = modExpPublic(c_bar, c.negate(), p).multiply(g_exp.modExpPublic(s_1)).mod(p);
+        BigInteger t_prime_2 = modExpPublic(c_hat, c.negate(), p).multiply(g_exp.modExpPublic(s_2)).mod(p);
+        BigInteger h_i_s_prime_i = exponentiationWorkers.modMultiExp(bold_h, s_prime, p);
+        BigInteger t_prime_3 = modExpPublic(c_tilde, c.negate(), p).multiply(g_exp.modExpPublic(s_3)).multiply(h_i_s_prime_i).mod(p);
+
+        List<BigInteger> bold_a_prime = EncryptionVector.aComponents(bold_e_prime);
+        BigInteger a_prime_i_s_prime_i = exponentiationWorkers.modMultiExp(bold_a_prime, s_prime, p);
+        BigInteger t_prime_4_1 = modExp2(e_prime_1, c.negate(), pk, s_4.negate(), p, q)
                 .multiply(a_prime_i_s_prime_i)
                 .mod(p);
-        BigInteger b_prime_i_s_prime_i = IntStream.range(0, N)
-                .parallel()
-                .mapToObj(i -> modExp(bold_e_prime.get(i).getB(), s_prime.get(i), p))
-                .reduce(multiplyMod(p)).orElse(ONE);
-        BigInteger t_prime_4_2 = modExp(e_prime_2, c.negate(), p)
-                .multiply(modExp(g, s_4.negate(), p))
+        List<BigInteger> bold_b_prime = EncryptionVector.bComponents(bold_e_prime);
+        BigInteger b_prime_i_s_prime_i = exponentiationWorkers.modMultiExp(bold_b_prime, s_prime, p);
+        BigInteger t_prime_4_2 = modExpPublic(e_prime_2, c.negate(), p)
+                .multiply(g_exp.modExpPublic(s_4.negate().mod(q)))
                 .multiply(b_prime_i_s_prime_i)
                 .mod(p);
 
-        // add c_hat_0: h, thus offsetting the indices for c_hat by 1.
-        List<BigInteger> tmp_bold_c_hat = new ArrayList<>();
-        tmp_bold_c_hat.add(0, h);
-        tmp_bold_c_hat.addAll(bold_c_hat);
-        Map<Integer, BigInteger> t_hat_prime_map = IntStream.range(0, N).parallel().boxed()
-                .collect(toMap(identity(), i -> modExp(tmp_bold_c_hat.get(i + 1), c.negate(), p)
-                        .multiply(modExp(g, s_hat.get(i), p))
-                        .multiply(modExp(tmp_bold_c_hat.get(i), s_prime.get(i), p))
-                        .mod(p)));
-        List<BigInteger> t_hat_prime = IntStream.range(0, N).mapToObj(t_hat_prime_map::get).collect(Collectors.toList());
-
+        checkNotInterrupted();
         boolean isProofValid = t_1.compareTo(t_prime_1) == 0 &&
                 t_2.compareTo(t_prime_2) == 0 &&
                 t_3.compareTo(t_prime_3) == 0 &&
                 t_4.get(0).compareTo(t_prime_4_1) == 0 &&
                 t_4.get(1).compareTo(t_prime_4_2) == 0 &&
-                IntStream.range(0, N).map(i -> t_hat.get(i).compareTo(t_hat_prime.get(i))).allMatch(i -> i == 0);
+                (batchCheckT_hat(t_hat, bold_c_hat, c, s_hat, s_prime, tau) ||
+                        checkT_hat(t_hat, bold_c_hat, c, s_hat, s_prime));
         if (!isProofValid) {
             log.error("Invalid proof found");
         }
         return isProofValid;
     }
 
+    /**
+     * Stop a shuffle proof check between two of its steps, once it has been cancelled by
+     * {@link #findInvalidShuffleProof(List, List, List, EncryptionPublicKey, int)}
+     */
+    private static void checkNotInterrupted() {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The shuffle proof check was cancelled");
+        }
+    }
+
+    /**
+     * Check the <tt>N</tt> equations <tt>t_hat_i = c_hat_i^-c * c_hat_(i-1)^s_prime_i * g^s_hat_i</tt> at once,
+     * by raising each of them to a random weight <tt>w_i</tt> in <tt>[1, 2^tau]</tt> and multiplying them together.
+     * <p>Grouping the factors per base, this is the single multi-exponentiation
+     * <tt>prod(t_hat_i^w_i) * prod(c_hat_i^(c*w_i - s_prime_(i+1)*w_(i+1))) = h^(s_prime_0*w_0) * g^sum(s_hat_i*w_i)</tt>,
+     * where the term for <tt>s_prime_N</tt> is absent. Since all the <tt>t_hat_i</tt> and <tt>c_hat_i</tt> have been
+     * checked to be in G_q, an invalid equation goes undetected with probability at most <tt>2^-tau</tt>.</p>
+     *
+     * @return true if the combined equation holds; false means that at least one of the equations does not hold
+     */
+    private boolean batchCheckT_hat(List<BigInteger> t_hat, List<BigInteger> bold_c_hat, BigInteger c,
+                                    List<BigInteger> s_hat, List<BigInteger> s_prime, int tau) {
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        BigInteger p = encryptionGroup.getP();
+        BigInteger q = encryptionGroup.getQ();
+        int N = bold_c_hat.size();
+        if (N == 0) {
+            return true;
+        }
+        BigInteger weightBound = BigInteger.valueOf(2).pow(tau);
+        List<BigInteger> bold_w = IntStream.range(0, N)
+                .mapToObj(i -> randomGenerator.randomBigInteger(weightBound).add(ONE))
+                .collect(Collectors.toList());
+
+        List<BigInteger> bases = new ArrayList<>(2 * N);
+        List<BigInteger> exponents = new ArrayList<>(2 * N);
+        bases.addAll(t_hat);
+        exponents.addAll(bold_w);
+        bases.addAll(bold_c_hat);
+        for (int i = 0; i < N; i++) {
+            BigInteger e_i = c.multiply(bold_w.get(i));
+            if (i + 1 < N) {
+                e_i = e_i.subtract(s_prime.get(i + 1).multiply(bold_w.get(i + 1)));
+            }
+            exponents.add(e_i.mod(q));
+        }
+        BigInteger left = exponentiationWorkers.modMultiExp(bases, exponents, p);
+
+        BigInteger s_hat_w = IntStream.range(0, N)
+                .mapToObj(i -> s_hat.get(i).multiply(bold_w.get(i)))
+                .reduce(BigInteger::add).orElse(BigInteger.ZERO).mod(q);
+        BigInteger right = modExpPublic(encryptionGroup.getH(), s_prime.get(0).multiply(bold_w.get(0)).mod(q), p)
+                .multiply(encryptionGroup.getGExponentiator().modExpPublic(s_hat_w))
+                .mod(p);
+        return left.compareTo(right) == 0;
+    }
+
+    /**
+     * Check that <tt>t_hat_i = c_hat_i^-c * c_hat_(i-1)^s_prime_i * g^s_hat_i</tt> for all <tt>i</tt>, with the
+     * exponentiation workers. Used to pinpoint the invalid elements when the batch check fails.
+     */
+    private boolean checkT_hat(List<BigInteger> t_hat, List<BigInteger> bold_c_hat, BigInteger c,
+                               List<BigInteger> s_hat, List<BigInteger> s_prime) {
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        int N = bold_c_hat.size();
+        // c_hat_0 is h, thus offsetting the indices for c_hat by 1
+        List<BigInteger> bold_c_hat_i_minus_one = ParallelVectors.prepend(encryptionGroup.getH(), bold_c_hat)
+                .subList(0, N);
+        AtomicBoolean valid = new AtomicBoolean(true);
+        exponentiationWorkers.modExps(new ExponentiationTask(encryptionGroup.getP(), encryptionGroup.getQ(), false,
+                        Arrays.asList(bold_c_hat, bold_c_hat_i_minus_one,
+                                Collections.singletonList(encryptionGroup.getG())),
+                        Arrays.asList(Collections.singletonList(c.negate()), s_prime, s_hat)),
+                (i, t_hat_prime_i) -> {
+                    if (t_hat.get(i).compareTo(t_hat_prime_i) != 0) {
+                        log.error("Invalid t_hat_{} in shuffle proof", i);
+                        valid.set(false);
+                    }
+                });
+        return valid.get();
+    }
+
     /**
      * Algorithm 7.49: GetPartialDecryptions
      *
@@ -250,7 +400,16 @@ public class DecryptionAuthorityAlgorithms {
                         generalAlgorithms.isMember(e.getB())),
                 "all e_i's must be in G_q^2");
         BigInteger p = publicParameters.getEncryptionGroup().getP();
-        return bold_e.stream().map(e_i -> modExp(e_i.getB(), sk_j, p)).collect(Collectors.toList());
+        List<BigInteger> bold_b = EncryptionVector.bComponents(bold_e);
+        GroupElementVector.Builder bold_b_prime = GroupElementVector.builder(bold_b.size(),
+                GroupElementVector.widthFor(p));
+        ParallelVectors.forEachChunk(bold_b.size(), ParallelVectors.DEFAULT_CHUNK_SIZE, (from, to) -> {
+            List<BigInteger> b_prime_chunk = modExpSecret(bold_b.subList(from, to), sk_j, p);
+            for (int i = from; i < to; i++) {
+                bold_b_prime.set(i, b_prime_chunk.get(i - from));
+            }
+        });
+        return bold_b_prime.build();
     }
 
     /**
@@ -279,14 +438,88 @@ public class DecryptionAuthorityAlgorithms {
         BigInteger omega = randomGenerator.randomInZq(q);
         int tau = publicParameters.getSecurityParameters().getTau();
 
-        BigInteger t_0 = modExp(g, omega, p);
-        List<BigInteger> t = bold_e.stream().map(e_i -> modExp(e_i.getB(), omega, p)).collect(Collectors.toList());
-        t.add(0, t_0);
-        List<BigInteger> bold_b = bold_e.stream().map(Encryption::getB).collect(Collectors.toList());
+        List<BigInteger> bold_b = EncryptionVector.bComponents(bold_e);
+        BigInteger t_0 = modExpSecret(g, omega, p);
+        GroupElementVector.Builder t_builder = GroupElementVector.builder(bold_b.size() + 1,
+                GroupElementVector.widthFor(p));
+        t_builder.set(0, t_0);
+        ParallelVectors.forEachChunk(bold_b.size(), ParallelVectors.DEFAULT_CHUNK_SIZE, (from, to) -> {
+            List<BigInteger> t_chunk = modExpSecret(bold_b.subList(from, to), omega, p);
+            for (int i = from; i < to; i++) {
+                t_builder.set(i + 1, t_chunk.get(i - from));
+            }
+        });
+        List<BigInteger> t = t_builder.build();
         Object[] y = {pk_j, bold_b, bold_b_prime};
         BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t.toArray(new BigInteger[0]), tau);
         BigInteger s = omega.add(c.multiply(sk_j)).mod(q);
 
         return new DecryptionProof(t, s);
     }
+
+    /**
+     * Algorithms 7.49 and 7.50 in a single pass: GetPartialDecryptions and GenDecryptionProof
+     * <p>The partial decryptions <tt>b'_i = b_i ^ sk_j</tt> and the commitments <tt>t_i = b_i ^ omega</tt> are
+     * computed together, in parallel chunks of the encryptions, along with the hashes of <tt>b_i</tt>, <tt>b'_i</tt>
+     * and <tt>t_i</tt> from which the challenge is then derived, so that the vectors are not read again to be
+     * hashed.</p>
+     *
+     * @param sk_j   the private key share of authority j
+     * @param pk_j   the public key share of authority j
+     * @param bold_e the vector of ElGamal encryptions
+     * @return the partial decryptions of the encryptions, using key share sk_j, and the proof of their validity,
+     * identical to that of {@link #genDecryptionProof(BigInteger, BigInteger, List, List)} for the same randomness
+     */
+    public PartialDecryptionsAndProof genPartialDecryptionsAndProof(BigInteger sk_j, BigInteger pk_j,
+                                                                    List<Encryption> bold_e) {
+        Preconditions.checkArgument(generalAlgorithms.isInZ_q(sk_j), "sk_j must be in Z_q");
+        Preconditions.checkArgument(generalAlgorithms.isMember(pk_j), "pk_j must be in G_q");
+        Preconditions.checkArgument(bold_e.parallelStream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
+                        generalAlgorithms.isMember(e.getB())),
+                "all e_i's must be in G_q^2");
+
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        BigInteger g = publicParameters.getEncryptionGroup().getG();
+        BigInteger omega = randomGenerator.randomInZq(q);
+        int tau = publicParameters.getSecurityParameters().getTau();
+
+        List<BigInteger> bold_b = EncryptionVector.bComponents(bold_e);
+        int N = bold_b.size();
+        int width = GroupElementVector.widthFor(p);
+        GroupElementVector.Builder bold_b_prime = GroupElementVector.builder(N, width);
+        GroupElementVector.Builder t_builder = GroupElementVector.builder(N + 1, width);
+        byte[][] bold_b_hashes = new byte[N][];
+        byte[][] bold_b_prime_hashes = new byte[N][];
+        byte[][] t_hashes = new byte[N + 1][];
+
+        BigInteger t_0 = modExpSecret(g, omega, p);
+        t_builder.set(0, t_0);
+        t_hashes[0] = generalAlgorithms.getHash(t_0);
+        ParallelVectors.forEachChunk(N, ParallelVectors.DEFAULT_CHUNK_SIZE, (from, to) -> {
+            List<BigInteger> b_chunk = bold_b.subList(from, to);
+            List<BigInteger> b_prime_chunk = modExpSecret(b_chunk, sk_j, p);
+            List<BigInteger> t_chunk = modExpSecret(b_chunk, omega, p);
+            for (int i = from; i < to; i++) {
+                BigInteger b_prime_i = b_prime_chunk.get(i - from);
+                BigInteger t_i = t_chunk.get(i - from);
+                bold_b_prime.set(i, b_prime_i);
+                t_builder.set(i + 1, t_i);
+                bold_b_hashes[i] = generalAlgorithms.getHash(b_chunk.get(i - from));
+                bold_b_prime_hashes[i] = generalAlgorithms.getHash(b_prime_i);
+                t_hashes[i + 1] = generalAlgorithms.getHash(t_i);
+            }
+        });
+
+        // y = (pk_j, bold_b, bold_b_prime)
+        byte[] hash_y = generalAlgorithms.getHashOfHashes(Arrays.asList(
+                generalAlgorithms.getHash(pk_j),
+                generalAlgorithms.getHashOfHashes(Arrays.asList(bold_b_hashes)),
+                generalAlgorithms.getHashOfHashes(Arrays.asList(bold_b_prime_hashes))));
+        byte[] hash_t = generalAlgorithms.getHashOfHashes(Arrays.asList(t_hashes));
+        BigInteger c = generalAlgorithms.getNIZKPChallenge(hash_y, hash_t, tau);
+        BigInteger s = omega.add(c.multiply(sk_j)).mod(q);
+
+        return new PartialDecryptionsAndProof(bold_b_prime.build(), new DecryptionProof(t_builder.build(), s));
+    }
 }
@@ -33,8 +33,6 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
-
 /**
  * Algorithms relevant to the election preparation
  */
@@ -128,8 +126,8 @@ public class ElectionPreparationAlgorithms {
      */
     public Point getPublicVoterData(BigInteger x, BigInteger y, List<BigInteger> bold_y) {
         BigInteger y_plus_h = y.add(conversion.toInteger(hash.recHash_L(bold_y.toArray()))).mod(identificationGroup.getQ_hat());
-        BigInteger x_hat = modExp(identificationGroup.getG_hat(), x, identificationGroup.getP_hat());
-        BigInteger y_hat = modExp(identificationGroup.getG_hat(), y_plus_h, identificationGroup.getP_hat());
+        BigInteger x_hat = identificationGroup.getG_hatExponentiator().modExp(x);
+        BigInteger y_hat = identificationGroup.getG_hatExponentiator().modExp(y_plus_h);
 
         return new Point(x_hat, y_hat);
     }
@@ -24,6 +24,7 @@ package ch.ge.ve.protopoc.service.algorithm;
 import ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic;
 import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException;
 import ch.ge.ve.protopoc.service.model.EncryptionGroup;
+import ch.ge.ve.protopoc.service.model.GroupElementVector;
 import ch.ge.ve.protopoc.service.model.IdentificationGroup;
 import ch.ge.ve.protopoc.service.support.BigIntegers;
 import ch.ge.ve.protopoc.service.support.ByteArrayUtils;
@@ -35,11 +36,10 @@ import com.google.common.collect.ImmutableList;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 
 /**
  * This class regroups the general algorithms described in Section 7.2 of the specification
@@ -49,6 +49,7 @@ public class GeneralAlgorithms {
     private final Conversion conversion;
     private final EncryptionGroup encryptionGroup;
     private final IdentificationGroup identificationGroup;
+    private final GeneratorCache generatorCache;
     private ImmutableList<BigInteger> cachedPrimes;
 
     /**
@@ -65,6 +66,7 @@ public class GeneralAlgorithms {
         this.conversion = conversion;
         this.encryptionGroup = encryptionGroup;
         this.identificationGroup = identificationGroup;
+        this.generatorCache = new GeneratorCache(encryptionGroup, this::getGeneratorCandidate);
     }
 
     /**
@@ -124,6 +126,34 @@ public class GeneralAlgorithms {
                 BigIntegerArithmetic.jacobiSymbol(x, encryptionGroup.getP()) == 1;
     }
 
+    /**
+     * Utility to verify membership for G_q of many values at once.
+     * <p>The cheap range checks are performed first, so that out-of-range values are rejected before computing any
+     * jacobi symbol; the symbols are then computed in one contiguous chunk of values per worker thread.</p>
+     *
+     * @param xs the numbers to check
+     * @return true if every x in xs is in encryptionGroup, false otherwise
+     */
+    public boolean areMembers(Collection<BigInteger> xs) {
+        BigInteger p = encryptionGroup.getP();
+        // the vectors are read in place when they support fast random access, rather than copied
+        List<BigInteger> values = xs instanceof List && xs instanceof RandomAccess ?
+                (List<BigInteger>) xs : new ArrayList<>(xs);
+        if (!values.stream().allMatch(x -> x.compareTo(BigInteger.ONE) >= 0 && x.compareTo(p) < 0)) {
+            return false;
+        }
+        int n = values.size();
+        int chunks = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n));
+        return IntStream.range(0, chunks).parallel().allMatch(chunk -> {
+            for (int i = chunk * n / chunks; i < (chunk + 1) * n / chunks; i++) {
+                if (BigIntegerArithmetic.jacobiSymbol(values.get(i), p) != 1) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
     /**
      * Utility to verify membership for G_q_hat
      *
@@ -158,31 +188,30 @@ public class GeneralAlgorithms {
     /**
      * Algorithm 7.3: GetGenerators
      * Create a number of independent generators for the encryption group given
+     * <p>This implementation makes use of a {@link GeneratorCache}, extended as larger numbers of generators are
+     * requested</p>
      *
      * @param n number of generators to be computed
      * @return a list of independent generators
      */
     public List<BigInteger> getGenerators(int n) {
-        List<BigInteger> h = new ArrayList<>();
-        Set<BigInteger> valuesToAvoid = new HashSet<>();
-        valuesToAvoid.add(BigInteger.ZERO);
-        valuesToAvoid.add(BigInteger.ONE);
-        valuesToAvoid.add(encryptionGroup.getG());
-        valuesToAvoid.add(encryptionGroup.getH());
-
-        for (int i = 0; i < n; i++) {
-            BigInteger h_i;
-            int x = 0;
-            do {
-                x++;
-                byte[] bytes = hash.recHash_L("chVote", BigInteger.valueOf(i), BigInteger.valueOf(x));
-                h_i = conversion.toInteger(bytes).mod(encryptionGroup.getP());
-                h_i = h_i.multiply(h_i).mod(encryptionGroup.getP());
-            } while (valuesToAvoid.contains(h_i)); // Very unlikely, but needs to be avoided
-            h.add(h_i);
-            valuesToAvoid.add(h_i);
-        }
-        return h;
+        return generatorCache.get(n);
+    }
+
+    /**
+     * Utility to compute the product of the generators returned by {@link #getGenerators(int)}
+     *
+     * @param n number of generators
+     * @return the product of the n first generators, modulo p
+     */
+    public BigInteger getGeneratorsProduct(int n) {
+        return generatorCache.product(n);
+    }
+
+    private BigInteger getGeneratorCandidate(int i, int x) {
+        byte[] bytes = hash.recHash_L("chVote", BigInteger.valueOf(i), BigInteger.valueOf(x));
+        BigInteger h_i = conversion.toInteger(bytes).mod(encryptionGroup.getP());
+        return h_i.multiply(h_i).mod(encryptionGroup.getP());
     }
 
     /**
@@ -197,6 +226,36 @@ public class GeneralAlgorithms {
         return conversion.toInteger(hash.recHash_L(y, t)).mod(BigIntegers.TWO.pow(kappa));
     }
 
+    /**
+     * Algorithm 7.4: GetNIZKPChallenge, given the recursive hashes of the public values and of the commitments, as
+     * computed with {@link #getHash(Object)} and {@link #getHashOfHashes(List)}
+     *
+     * @param hash_y the recursive hash of the public values vector
+     * @param hash_t the recursive hash of the commitments vector
+     * @param kappa  the soundness strength of the challenge
+     * @return the computed challenge, identical to that of {@link #getNIZKPChallenge(Object[], Object[], int)}
+     */
+    public BigInteger getNIZKPChallenge(byte[] hash_y, byte[] hash_t, int kappa) {
+        return conversion.toInteger(hash.recHashOfHashes_L(Arrays.asList(hash_y, hash_t)))
+                .mod(BigIntegers.TWO.pow(kappa));
+    }
+
+    /**
+     * @param value the value to hash
+     * @return the recursive hash of the value
+     */
+    public byte[] getHash(Object value) {
+        return hash.recHash_L(value);
+    }
+
+    /**
+     * @param elementHashes the recursive hashes of the elements of a vector
+     * @return the recursive hash of the vector
+     */
+    public byte[] getHashOfHashes(List<byte[]> elementHashes) {
+        return hash.recHashOfHashes_L(elementHashes);
+    }
+
     /**
      * Algorithm 7.5: GetNIZKPChallenges
      *
@@ -208,12 +267,11 @@ public class GeneralAlgorithms {
     public List<BigInteger> getNIZKPChallenges(int n, Object[] y, int kappa) {
         byte[] upper_h = hash.recHash_L(y);
         BigInteger two_to_kappa = BigIntegers.TWO.pow(kappa);
-        Map<Integer, BigInteger> challengesMap = IntStream.rangeClosed(1, n).parallel().boxed()
-                .collect(toMap(identity(), i -> {
-                    byte[] upper_i = hash.recHash_L(BigInteger.valueOf(i));
-                    return conversion.toInteger(hash.hash_L(ByteArrayUtils.concatenate(upper_h, upper_i)))
-                            .mod(two_to_kappa);
-                }));
-        return IntStream.rangeClosed(1, n).mapToObj(challengesMap::get).collect(Collectors.toList());
+        // indices are 0 based, as opposed to the 1 based challenges in the algorithm; stored compactly, in kappa bits
+        return GroupElementVector.fill(n, Math.max(1, (kappa + 7) / 8), i -> {
+            byte[] upper_i = hash.recHash_L(BigInteger.valueOf(i + 1));
+            return conversion.toInteger(hash.hash_L(ByteArrayUtils.concatenate(upper_h, upper_i)))
+                    .mod(two_to_kappa);
+        });
     }
 }
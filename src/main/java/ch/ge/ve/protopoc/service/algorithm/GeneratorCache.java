@@ -0,0 +1,128 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.algorithm;
+
+import ch.ge.ve.protopoc.service.model.EncryptionGroup;
+import com.google.common.collect.ImmutableList;
+
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.multiplyMod;
+
+/**
+ * Cache of the independent generators of an encryption group, as computed by
+ * {@link GeneralAlgorithms#getGenerators(int)}, and of their products.
+ * <p>The generators only depend on the group and on the hash function, so the list is extended as larger numbers
+ * of generators are requested, the generators already known remaining a prefix of it. The new generators are derived
+ * in parallel; only the rare candidates that collide with a previous value are derived again, sequentially, so that
+ * the result is the same as that of the sequential algorithm.</p>
+ * <p>The cache is kept in memory only: a generator with a known discrete logarithm would break the soundness of the
+ * shuffle proofs, so generators read back from a file would have to be derived again anyway, which costs as much as
+ * deriving them in the first place.</p>
+ */
+final class GeneratorCache {
+    /**
+     * The derivation of the candidate values for the generators
+     */
+    @FunctionalInterface
+    interface Candidates {
+        /**
+         * @param i the index of the generator
+         * @param x the attempt number, starting at 1
+         * @return the candidate value for generator i at attempt x
+         */
+        BigInteger candidate(int i, int x);
+    }
+
+    private final EncryptionGroup encryptionGroup;
+    private final Candidates candidates;
+    private final Set<BigInteger> valuesToAvoid = new HashSet<>();
+    private final Map<Integer, BigInteger> products = new ConcurrentHashMap<>();
+    private volatile ImmutableList<BigInteger> generators = ImmutableList.of();
+
+    /**
+     * @param encryptionGroup the encryption group
+     * @param candidates      the derivation of the candidate values
+     */
+    GeneratorCache(EncryptionGroup encryptionGroup, Candidates candidates) {
+        this.encryptionGroup = encryptionGroup;
+        this.candidates = candidates;
+        valuesToAvoid.add(BigInteger.ZERO);
+        valuesToAvoid.add(BigInteger.ONE);
+        valuesToAvoid.add(encryptionGroup.getG());
+        valuesToAvoid.add(encryptionGroup.getH());
+    }
+
+    /**
+     * @param n the number of generators
+     * @return the n first generators
+     */
+    List<BigInteger> get(int n) {
+        ImmutableList<BigInteger> known = generators;
+        if (known.size() < n) {
+            known = extend(n);
+        }
+        return known.subList(0, n);
+    }
+
+    /**
+     * @param n the number of generators
+     * @return the product of the n first generators, modulo p
+     */
+    BigInteger product(int n) {
+        BigInteger p = encryptionGroup.getP();
+        return products.computeIfAbsent(n, k -> get(k).parallelStream().reduce(multiplyMod(p)).orElse(BigInteger.ONE));
+    }
+
+    /**
+     * Extend the list of the known generators to the n first ones
+     */
+    private synchronized ImmutableList<BigInteger> extend(int n) {
+        int from = generators.size();
+        if (from >= n) {
+            return generators;
+        }
+        BigInteger[] h = IntStream.range(from, n).parallel()
+                .mapToObj(i -> candidates.candidate(i, 1))
+                .toArray(BigInteger[]::new);
+        ImmutableList.Builder<BigInteger> builder = ImmutableList.<BigInteger>builder().addAll(generators);
+        for (int i = from; i < n; i++) {
+            BigInteger h_i = h[i - from];
+            int x = 1;
+            while (valuesToAvoid.contains(h_i)) { // Very unlikely, but needs to be avoided
+                x++;
+                h_i = candidates.candidate(i, x);
+            }
+            builder.add(h_i);
+            valuesToAvoid.add(h_i);
+        }
+        generators = builder.build();
+        return generators;
+    }
+}
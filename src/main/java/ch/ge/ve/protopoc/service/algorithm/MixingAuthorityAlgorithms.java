@@ -21,7 +21,11 @@
 
 package ch.ge.ve.protopoc.service.algorithm;
 
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
 import ch.ge.ve.protopoc.service.model.*;
+import ch.ge.ve.protopoc.service.support.ExponentiationTask;
+import ch.ge.ve.protopoc.service.support.ExponentiationWorkers;
+import ch.ge.ve.protopoc.service.support.ParallelVectors;
 import ch.ge.ve.protopoc.service.support.RandomGenerator;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
@@ -29,31 +33,45 @@ import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
-import static ch.ge.ve.protopoc.service.support.BigIntegers.multiplyMod;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpPublic;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpSecret;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modMultiExp;
 import static java.math.BigInteger.ONE;
 import static java.math.BigInteger.ZERO;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 
 /**
  * Algorithms performed during the mixing phase, by the autorities
  */
 public class MixingAuthorityAlgorithms {
     private static final Logger log = LoggerFactory.getLogger(MixingAuthorityAlgorithms.class);
+    private static final int MIN_CHAIN_SEGMENT_LENGTH = 64;
     private final PublicParameters publicParameters;
     private final GeneralAlgorithms generalAlgorithms;
     private final VoteConfirmationAuthorityAlgorithms voteConfirmationAuthorityAlgorithms;
     private final RandomGenerator randomGenerator;
+    private final ExponentiationWorkers exponentiationWorkers;
 
     public MixingAuthorityAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms, VoteConfirmationAuthorityAlgorithms voteConfirmationAuthorityAlgorithms, RandomGenerator randomGenerator) {
+        this(publicParameters, generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator,
+                ExponentiationWorkers.inProcess());
+    }
+
+    /**
+     * @param exponentiationWorkers the executor of the exponentiations over vectors of the size of the ballot box
+     */
+    public MixingAuthorityAlgorithms(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms,
+                                     VoteConfirmationAuthorityAlgorithms voteConfirmationAuthorityAlgorithms,
+                                     RandomGenerator randomGenerator, ExponentiationWorkers exponentiationWorkers) {
         this.publicParameters = publicParameters;
         this.generalAlgorithms = generalAlgorithms;
         this.voteConfirmationAuthorityAlgorithms = voteConfirmationAuthorityAlgorithms;
         this.randomGenerator = randomGenerator;
+        this.exponentiationWorkers = exponentiationWorkers;
     }
 
     /**
@@ -66,7 +84,7 @@ public class MixingAuthorityAlgorithms {
     public List<Encryption> getEncryptions(Collection<BallotEntry> upper_b, Collection<ConfirmationEntry> upper_c) {
         BigInteger p = publicParameters.getEncryptionGroup().getP();
 
-        return upper_b.stream()
+        return EncryptionVector.copyOf(upper_b.stream()
                 .filter(ballotEntry -> voteConfirmationAuthorityAlgorithms.hasConfirmation(ballotEntry.getI(), upper_c))
                 .map(ballotEntry -> {
                     BigInteger a_j = ballotEntry.getAlpha().getBold_a().stream()
@@ -76,7 +94,7 @@ public class MixingAuthorityAlgorithms {
                     return new Encryption(a_j, ballotEntry.getAlpha().getB());
                 })
                 .sorted(Comparator.naturalOrder())
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -90,26 +108,85 @@ public class MixingAuthorityAlgorithms {
         Preconditions.checkArgument(bold_e.stream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
                         generalAlgorithms.isMember(e.getB())),
                 "all e_i's should be in G_q^2");
-        List<Integer> psy = genPermutation(bold_e.size());
-
-        // Parallel streams do not preserve order.
-        // But it is more efficient to distribute the re-encryptions across cores and sort them than to
-        // re-encrypt sequentially
-        Map<Integer, ReEncryption> reEncryptionMap = IntStream.range(0, bold_e.size()).parallel().boxed()
-                .collect(toMap(identity(), i -> genReEncryption(bold_e.get(i), pk)));
-        List<ReEncryption> reEncryptions = IntStream.range(0, bold_e.size())
-                .mapToObj(reEncryptionMap::get).collect(Collectors.toList());
-
-        List<Encryption> bold_e_prime = psy.stream()
-                .map(reEncryptions::get)
-                .map(ReEncryption::getEncryption)
-                .collect(Collectors.toList());
-
-        List<BigInteger> bold_r_prime = reEncryptions.stream()
-                .map(ReEncryption::getRandomness)
-                .collect(Collectors.toList());
-
-        return new Shuffle(bold_e_prime, bold_r_prime, psy);
+        Permutation psy = genPermutation(bold_e.size());
+
+        return reEncryptAndPermute(bold_e.size(), i -> genReEncryption(bold_e.get(i), pk), psy);
+    }
+
+    /**
+     * Algorithm 7.41: GenShuffle, using re-encryption randomness computed ahead of time by
+     * {@link #genReEncryptionRandomness(EncryptionPublicKey)}: the re-encryptions then only take two modular
+     * multiplications each
+     *
+     * @param bold_e   the list of ElGamal encryptions
+     * @param pk       the encryption key
+     * @param bold_rho the re-encryption randomness, one tuple per encryption, computed for pk and never used before
+     * @return the result of a shuffle, with re-encryption of the values
+     */
+    public Shuffle genShuffle(List<Encryption> bold_e, EncryptionPublicKey pk, List<ReEncryptionRandomness> bold_rho) {
+        Preconditions.checkArgument(bold_e.stream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
+                        generalAlgorithms.isMember(e.getB())),
+                "all e_i's should be in G_q^2");
+        Preconditions.checkArgument(bold_rho.size() == bold_e.size(),
+                "there should be as many re-encryption randomness tuples as encryptions");
+        Preconditions.checkArgument(bold_rho.stream().allMatch(rho -> isSameKey(rho.getPublicKey(), pk)),
+                "the re-encryption randomness should be computed for pk");
+        Permutation psy = genPermutation(bold_e.size());
+
+        return reEncryptAndPermute(bold_e.size(), i -> genReEncryption(bold_e.get(i), bold_rho.get(i)), psy);
+    }
+
+    /**
+     * Algorithm 7.41: GenShuffle, online phase: the permutation is taken from a precomputation made by
+     * {@link #precomputeOffline(int, EncryptionPublicKey)}, and the re-encryption randomness computed ahead of time
+     * by {@link #genReEncryptionRandomness(EncryptionPublicKey)}
+     *
+     * @param bold_e         the list of ElGamal encryptions
+     * @param pk             the encryption key
+     * @param bold_rho       the re-encryption randomness, one tuple per encryption, computed for pk and never used
+     *                       before
+     * @param precomputation the offline phase of the shuffle, for as many encryptions and for pk, never used before
+     * @return the result of a shuffle, with re-encryption of the values
+     */
+    public Shuffle genShuffle(List<Encryption> bold_e, EncryptionPublicKey pk, List<ReEncryptionRandomness> bold_rho,
+                              MixingPrecomputation precomputation) {
+        Preconditions.checkArgument(bold_e.stream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
+                        generalAlgorithms.isMember(e.getB())),
+                "all e_i's should be in G_q^2");
+        Preconditions.checkArgument(bold_rho.size() == bold_e.size(),
+                "there should be as many re-encryption randomness tuples as encryptions");
+        Preconditions.checkArgument(bold_rho.stream().allMatch(rho -> isSameKey(rho.getPublicKey(), pk)),
+                "the re-encryption randomness should be computed for pk");
+        Preconditions.checkArgument(precomputation.getUpper_n() == bold_e.size(),
+                "the precomputation should be meant for as many encryptions");
+        Preconditions.checkArgument(isSameKey(precomputation.getPublicKey(), pk),
+                "the precomputation should be meant for pk");
+
+        return reEncryptAndPermute(bold_e.size(), i -> genReEncryption(bold_e.get(i), bold_rho.get(i)),
+                precomputation.getPsy());
+    }
+
+    /**
+     * Re-encrypt the encryptions in parallel, writing each result directly at its permuted index: since
+     * <tt>e'_i = ReEnc(e_psy(i))</tt>, the re-encryption of <tt>e_j</tt> goes to index <tt>psy^-1(j)</tt>
+     */
+    private Shuffle reEncryptAndPermute(int upper_n, IntFunction<ReEncryption> reEncryption, Permutation psy) {
+        int width = GroupElementVector.widthFor(publicParameters.getEncryptionGroup().getP());
+        Permutation psy_inverse = psy.inverse();
+        EncryptionVector.Builder bold_e_prime = EncryptionVector.builder(upper_n, width);
+        GroupElementVector.Builder bold_r_prime = GroupElementVector.secretBuilder(upper_n, width);
+        IntStream.range(0, upper_n).parallel().forEach(j -> {
+            ReEncryption reEncryption_j = reEncryption.apply(j);
+            bold_e_prime.set(psy_inverse.get(j), reEncryption_j.getEncryption());
+            bold_r_prime.set(j, reEncryption_j.getRandomness());
+        });
+
+        return new Shuffle(bold_e_prime.build(), bold_r_prime.build(), psy);
+    }
+
+    private static boolean isSameKey(EncryptionPublicKey a, EncryptionPublicKey b) {
+        return a.getPublicKey().equals(b.getPublicKey()) &&
+                a.getEncryptionGroup().getP().equals(b.getEncryptionGroup().getP());
     }
 
     /**
@@ -119,20 +196,19 @@ public class MixingAuthorityAlgorithms {
      * @param upper_n the permutation size
      * @return a random permutation following Knuth's shuffle algorithm (permutation is 0 based, to mirror java indices)
      */
-    public List<Integer> genPermutation(int upper_n) {
-        Integer[] upper_i = IntStream.range(0, upper_n).boxed()
-                .collect(Collectors.toList()).toArray(new Integer[0]);
+    public Permutation genPermutation(int upper_n) {
+        int[] upper_i = IntStream.range(0, upper_n).toArray();
 
-        List<Integer> psy = new ArrayList<>();
+        int[] psy = new int[upper_n];
 
         // indices are 0 base, as opposed to the 1 based in the algorithm
         for (int i = 0; i < upper_n; i++) {
             int k = randomGenerator.randomIntInRange(i, upper_n - 1);
-            psy.add(upper_i[k]);
+            psy[i] = upper_i[k];
             upper_i[k] = upper_i[i];
         }
 
-        return psy;
+        return Permutation.of(psy);
     }
 
     /**
@@ -147,19 +223,53 @@ public class MixingAuthorityAlgorithms {
                 generalAlgorithms.isMember(e.getB()), "a and b should be in G_q^2");
         Preconditions.checkArgument(generalAlgorithms.isMember(publicKey.getPublicKey()),
                 "pk should be in G_q");
-        BigInteger p = publicParameters.getEncryptionGroup().getP();
-        BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
-        BigInteger pk = publicKey.getPublicKey();
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        BigInteger p = encryptionGroup.getP();
+        BigInteger q = encryptionGroup.getQ();
 
         BigInteger r_prime = randomGenerator.randomInZq(q);
 
-        BigInteger a_prime = e.getA().multiply(modExp(pk, r_prime, p)).mod(p);
-        BigInteger b_prime = e.getB().multiply(modExp(g, r_prime, p)).mod(p);
+        BigInteger a_prime = e.getA().multiply(publicKey.getExponentiator().modExp(r_prime)).mod(p);
+        BigInteger b_prime = e.getB().multiply(encryptionGroup.getGExponentiator().modExp(r_prime)).mod(p);
 
         return new ReEncryption(new Encryption(a_prime, b_prime), r_prime);
     }
 
+    /**
+     * Algorithm 7.43: GenReEncryption, using precomputed re-encryption randomness
+     *
+     * @param e   the original encryption, in G_q^2
+     * @param rho the re-encryption randomness, never used before
+     * @return a re-encryption of the provided ElGamal encryption
+     */
+    public ReEncryption genReEncryption(Encryption e, ReEncryptionRandomness rho) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+
+        BigInteger a_prime = e.getA().multiply(rho.getPk_r_prime()).mod(p);
+        BigInteger b_prime = e.getB().multiply(rho.getG_r_prime()).mod(p);
+
+        return new ReEncryption(new Encryption(a_prime, b_prime), rho.getR_prime());
+    }
+
+    /**
+     * Ballot-independent part of Algorithm 7.43: draws the randomness <tt>r'</tt> of a re-encryption, and computes
+     * <tt>pk ^ r'</tt> and <tt>g ^ r'</tt>
+     *
+     * @param publicKey the public key used
+     * @return the re-encryption randomness
+     */
+    public ReEncryptionRandomness genReEncryptionRandomness(EncryptionPublicKey publicKey) {
+        Preconditions.checkArgument(generalAlgorithms.isMember(publicKey.getPublicKey()),
+                "pk should be in G_q");
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        BigInteger q = encryptionGroup.getQ();
+
+        BigInteger r_prime = randomGenerator.randomInZq(q);
+
+        return new ReEncryptionRandomness(publicKey, r_prime, publicKey.getExponentiator().modExp(r_prime),
+                encryptionGroup.getGExponentiator().modExp(r_prime));
+    }
+
     /**
      * Algorithm 7.44: GenShuffleProof
      *
@@ -172,71 +282,186 @@ public class MixingAuthorityAlgorithms {
      * <em><strong>A commitment-consistent proof of a shuffle</strong></em>
      */
     public ShuffleProof genShuffleProof(List<Encryption> bold_e, List<Encryption> bold_e_prime,
-                                        List<BigInteger> bold_r_prime, List<Integer> psy,
+                                        List<BigInteger> bold_r_prime, Permutation psy,
                                         EncryptionPublicKey publicKey) {
+        checkShuffleProofArguments(bold_e, bold_e_prime, bold_r_prime, psy);
+
+        return genShuffleProof(bold_e, bold_e_prime, bold_r_prime, publicKey, precompute(psy, publicKey));
+    }
+
+    /**
+     * Algorithm 7.44: GenShuffleProof, online phase: the permutation commitment, the randomness and the commitments
+     * that do not depend on the encryptions are taken from a precomputation made by
+     * {@link #precomputeOffline(int, EncryptionPublicKey)}
+     *
+     * @param bold_e         the vector of ElGamal encryptions
+     * @param bold_e_prime   the vector of permuted ElGamal re-encryptions
+     * @param bold_r_prime   the randomizations used for the re-encryption
+     * @param publicKey      the public key for the encryption
+     * @param precomputation the offline phase used for the shuffle, and for this proof only
+     * @return a proof of the validity of the shuffle, as per Wikström's
+     * <em><strong>A commitment-consistent proof of a shuffle</strong></em>
+     */
+    public ShuffleProof genShuffleProof(List<Encryption> bold_e, List<Encryption> bold_e_prime,
+                                        List<BigInteger> bold_r_prime, EncryptionPublicKey publicKey,
+                                        MixingPrecomputation precomputation) {
+        return genShuffleProof(bold_e, bold_e_prime, bold_r_prime, publicKey, precomputation,
+                ShuffleProofCheckpoint.NONE);
+    }
+
+    /**
+     * Algorithm 7.44: GenShuffleProof, online phase, resuming from the commitment chain and the proof commitments
+     * found in the checkpoint, and saving them to it once computed
+     *
+     * @param bold_e         the vector of ElGamal encryptions
+     * @param bold_e_prime   the vector of permuted ElGamal re-encryptions
+     * @param bold_r_prime   the randomizations used for the re-encryption
+     * @param publicKey      the public key for the encryption
+     * @param precomputation the offline phase used for the shuffle, and for this proof only
+     * @param checkpoint     the intermediate results of a previous, interrupted generation of the same proof
+     * @return a proof of the validity of the shuffle, as per Wikström's
+     * <em><strong>A commitment-consistent proof of a shuffle</strong></em>
+     */
+    public ShuffleProof genShuffleProof(List<Encryption> bold_e, List<Encryption> bold_e_prime,
+                                        List<BigInteger> bold_r_prime, EncryptionPublicKey publicKey,
+                                        MixingPrecomputation precomputation, ShuffleProofCheckpoint checkpoint) {
+        checkShuffleProofArguments(bold_e, bold_e_prime, bold_r_prime, precomputation.getPsy());
         BigInteger p = publicParameters.getEncryptionGroup().getP();
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
         BigInteger h = publicParameters.getEncryptionGroup().getH();
         int tau = publicParameters.getSecurityParameters().getTau();
-
-        Preconditions.checkArgument(bold_e.parallelStream().allMatch(e ->
-                        generalAlgorithms.isMember(e.getA()) && generalAlgorithms.isMember(e.getB())),
-                "all e_i's should be in G_q^2");
-        Preconditions.checkArgument(bold_e_prime.parallelStream().allMatch(e_prime ->
-                        generalAlgorithms.isMember(e_prime.getA()) && generalAlgorithms.isMember(e_prime.getB())),
-                "all e_prime_i's should be in G_q^2");
-        Preconditions.checkArgument(bold_r_prime.parallelStream().allMatch(generalAlgorithms::isInZ_q),
-                "all r_prime_i's should be in Z_q");
         int upper_n = bold_e.size();
-        Preconditions.checkArgument(bold_e_prime.size() == upper_n,
-                "The length of bold_e_prime should be equal to that of bold_e");
-        Preconditions.checkArgument(bold_r_prime.size() == upper_n,
-                "The length of bold_r_prime should be equal to that of bold_e");
-        Preconditions.checkArgument(psy.size() == upper_n,
-                "The length of psy should be equal to that of bold_e");
-        Preconditions.checkArgument(psy.containsAll(
-                IntStream.range(0, psy.size()).boxed().collect(Collectors.toList())),
-                "The permutation should contain all number from 0 (inclusive) to length (exclusive)");
-
         BigInteger pk = publicKey.getPublicKey();
 
-
-        List<BigInteger> bold_h = generalAlgorithms.getGenerators(upper_n);
-        PermutationCommitment permutationCommitment = genPermutationCommitment(psy, bold_h);
-        List<BigInteger> bold_c = permutationCommitment.getBold_c();
-        List<BigInteger> bold_r = permutationCommitment.getBold_r();
+        Permutation psy = precomputation.getPsy();
+        List<BigInteger> bold_c = precomputation.getPermutationCommitment().getBold_c();
+        List<BigInteger> bold_r = precomputation.getPermutationCommitment().getBold_r();
         List<BigInteger> bold_u = generalAlgorithms.getNIZKPChallenges(upper_n,
                 new List[]{bold_e, bold_e_prime, bold_c},
                 tau);
 
-        List<BigInteger> bold_u_prime = psy.stream()
-                .map(bold_u::get).collect(Collectors.toList());
+        // u' reveals the permutation: kept on the heap, in the compact form of the challenges
+        List<BigInteger> bold_u_prime = GroupElementVector.secretFill(upper_n, Math.max(1, (tau + 7) / 8),
+                i -> bold_u.get(psy.get(i)));
 
-        CommitmentChain commitmentChain = genCommitmentChain(h, bold_u_prime);
+        List<BigInteger> bold_r_hat = precomputation.getBold_r_hat();
+        CommitmentChain commitmentChain = checkpoint.getCommitmentChain();
+        if (commitmentChain == null) {
+            commitmentChain = genCommitmentChain(h, bold_u_prime, bold_r_hat, precomputation.getBold_g_r_hat());
+            checkpoint.saveCommitmentChain(commitmentChain);
+        }
         List<BigInteger> bold_c_hat = commitmentChain.getBold_c();
-        List<BigInteger> bold_r_hat = commitmentChain.getBold_r();
+
+        MixingPrecomputation.Omega omega = precomputation.getOmega();
+        Object[] y = {bold_e, bold_e_prime, bold_c, bold_c_hat, pk};
+        ShuffleProof.T t = checkpoint.getT();
+        if (t == null) {
+            t = computeT(bold_e_prime, upper_n, p, h, bold_c_hat, omega.getBold_omega_prime(),
+                    precomputation.getPartialT());
+            checkpoint.saveT(t);
+        }
+        BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t.elementsToHash(), tau);
+
+        ShuffleProof.S s = computeS(bold_r_prime, upper_n, q, bold_r, bold_u, bold_u_prime, bold_r_hat,
+                omega.getOmega_1(), omega.getOmega_2(), omega.getOmega_3(), omega.getOmega_4(),
+                omega.getBold_omega_hat(), omega.getBold_omega_prime(), c);
+
+        log.info("Shuffle proof generated");
+        return new ShuffleProof(t, s, bold_c, bold_c_hat);
+    }
+
+    /**
+     * Offline phase of algorithms 7.41 and 7.44 (GenShuffle and GenShuffleProof), for a shuffle of
+     * <tt>upper_n</tt> encryptions: draws the permutation, commits to it, and computes the randomness and the parts of
+     * the proof commitments that do not depend on the encryptions. Wikström's proof is designed to split this way;
+     * only the challenges, the commitment chain and the commitments involving the re-encryptions remain online.
+     *
+     * @param upper_n   the number of encryptions to shuffle
+     * @param publicKey the public key for the encryption
+     * @return the precomputation, to be used for a single shuffle and its proof
+     */
+    public MixingPrecomputation precomputeOffline(int upper_n, EncryptionPublicKey publicKey) {
+        Preconditions.checkArgument(upper_n > 0, "there should be at least one encryption to shuffle");
+        Preconditions.checkArgument(generalAlgorithms.isMember(publicKey.getPublicKey()),
+                "pk should be in G_q");
+        Permutation psy = genPermutation(upper_n);
+        return precompute(psy, publicKey);
+    }
+
+    private MixingPrecomputation precompute(Permutation psy, EncryptionPublicKey publicKey) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        FixedBaseExponentiator g_exp = publicParameters.getEncryptionGroup().getGExponentiator();
+        int upper_n = psy.size();
+
+        List<BigInteger> bold_h = generalAlgorithms.getGenerators(upper_n);
+        PermutationCommitment permutationCommitment = genPermutationCommitment(psy, bold_h);
+        List<BigInteger> bold_r_hat = genRandomVectorInZq(upper_n);
+        List<BigInteger> bold_g_r_hat = modExpG(bold_r_hat);
 
         BigInteger omega_1 = randomGenerator.randomInZq(q);
         BigInteger omega_2 = randomGenerator.randomInZq(q);
         BigInteger omega_3 = randomGenerator.randomInZq(q);
         BigInteger omega_4 = randomGenerator.randomInZq(q);
 
-        List<BigInteger> bold_omega_hat = IntStream.range(0, upper_n).parallel()
-                .mapToObj(i -> randomGenerator.randomInZq(q)).collect(Collectors.toList());
-        List<BigInteger> bold_omega_prime = IntStream.range(0, upper_n).parallel()
-                .mapToObj(i -> randomGenerator.randomInZq(q)).collect(Collectors.toList());
+        List<BigInteger> bold_omega_hat = genRandomVectorInZq(upper_n);
+        List<BigInteger> bold_omega_prime = genRandomVectorInZq(upper_n);
+
+        BigInteger t_1 = g_exp.modExp(omega_1);
+        BigInteger t_2 = g_exp.modExp(omega_2);
+        // omega' is secret: the products of powers are computed in the current JVM, never by remote workers
+        BigInteger h_prod = modMultiExp(bold_h, bold_omega_prime, p);
+        BigInteger t_3 = g_exp.modExp(omega_3).multiply(h_prod).mod(p);
+        BigInteger pk_omega_4 = modExpSecret(publicKey.getPublicKey(), omega_4.negate(), p);
+        BigInteger g_omega_4 = g_exp.modExp(omega_4.negate().mod(q));
+        List<BigInteger> bold_g_omega_hat = modExpG(bold_omega_hat);
+
+        return new MixingPrecomputation(publicKey, psy, bold_h, permutationCommitment, bold_r_hat, bold_g_r_hat,
+                new MixingPrecomputation.Omega(omega_1, omega_2, omega_3, omega_4, bold_omega_hat, bold_omega_prime),
+                new MixingPrecomputation.PartialT(t_1, t_2, t_3, pk_omega_4, g_omega_4, bold_g_omega_hat));
+    }
 
-        Object[] y = {bold_e, bold_e_prime, bold_c, bold_c_hat, pk};
-        ShuffleProof.T t = computeT(bold_e_prime, upper_n, p, g, h, pk, bold_h, bold_c_hat,
-                omega_1, omega_2, omega_3, omega_4, bold_omega_hat, bold_omega_prime);
-        BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t.elementsToHash(), tau);
+    private GroupElementVector genRandomVectorInZq(int n) {
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        GroupElementVector.Builder builder = GroupElementVector.secretBuilder(n, GroupElementVector.widthFor(q));
+        for (int i = 0; i < n; i++) {
+            builder.set(i, randomGenerator.randomInZq(q));
+        }
+        return builder.build();
+    }
 
-        ShuffleProof.S s = computeS(bold_r_prime, upper_n, q, bold_r, bold_u, bold_u_prime, bold_r_hat,
-                omega_1, omega_2, omega_3, omega_4, bold_omega_hat, bold_omega_prime, c);
+    /**
+     * Compute <tt>(g^x_0, ..., g^x_(n-1))</tt> for secret exponents, which the exponentiation workers compute in the
+     * current JVM
+     */
+    private GroupElementVector modExpG(List<BigInteger> bold_x) {
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        GroupElementVector.Builder bold_g_x = GroupElementVector.builder(bold_x.size(),
+                GroupElementVector.widthFor(encryptionGroup.getP()));
+        exponentiationWorkers.modExps(new ExponentiationTask(encryptionGroup.getP(), encryptionGroup.getQ(), true,
+                        Collections.singletonList(Collections.singletonList(encryptionGroup.getG())),
+                        Collections.singletonList(bold_x)),
+                bold_g_x::set);
+        return bold_g_x.build();
+    }
 
-        log.info("Shuffle proof generated");
-        return new ShuffleProof(t, s, bold_c, bold_c_hat);
+    private void checkShuffleProofArguments(List<Encryption> bold_e, List<Encryption> bold_e_prime,
+                                            List<BigInteger> bold_r_prime, Permutation psy) {
+        Preconditions.checkArgument(generalAlgorithms.areMembers(EncryptionVector.aComponents(bold_e)) &&
+                        generalAlgorithms.areMembers(EncryptionVector.bComponents(bold_e)),
+                "all e_i's should be in G_q^2");
+        Preconditions.checkArgument(generalAlgorithms.areMembers(EncryptionVector.aComponents(bold_e_prime)) &&
+                        generalAlgorithms.areMembers(EncryptionVector.bComponents(bold_e_prime)),
+                "all e_prime_i's should be in G_q^2");
+        Preconditions.checkArgument(bold_r_prime.parallelStream().allMatch(generalAlgorithms::isInZ_q),
+                "all r_prime_i's should be in Z_q");
+        int upper_n = bold_e.size();
+        Preconditions.checkArgument(bold_e_prime.size() == upper_n,
+                "The length of bold_e_prime should be equal to that of bold_e");
+        Preconditions.checkArgument(bold_r_prime.size() == upper_n,
+                "The length of bold_r_prime should be equal to that of bold_e");
+        Preconditions.checkArgument(psy.size() == upper_n,
+                "The length of psy should be equal to that of bold_e");
     }
 
     private ShuffleProof.S computeS(List<BigInteger> bold_r_prime, int N, BigInteger q, List<BigInteger> bold_r,
@@ -251,15 +476,11 @@ public class MixingAuthorityAlgorithms {
         BigInteger s_3 = computeSi(N, q, bold_r, omega_3, c, bold_u);
         BigInteger s_4 = computeSi(N, q, bold_r_prime, omega_4, c, bold_u);
 
-        List<BigInteger> s_hat = new ArrayList<>();
-        List<BigInteger> s_prime = new ArrayList<>();
-        for (int i = 0; i < N; i++) {
-            BigInteger s_hat_i = bold_omega_hat.get(i).add(c.multiply(bold_r_hat.get(i))).mod(q);
-            s_hat.add(s_hat_i);
-
-            BigInteger s_prime_i = bold_omega_prime.get(i).add(c.multiply(bold_u_prime.get(i))).mod(q);
-            s_prime.add(s_prime_i);
-        }
+        int width = GroupElementVector.widthFor(q);
+        List<BigInteger> s_hat = GroupElementVector.fill(N, width,
+                i -> bold_omega_hat.get(i).add(c.multiply(bold_r_hat.get(i))).mod(q));
+        List<BigInteger> s_prime = GroupElementVector.fill(N, width,
+                i -> bold_omega_prime.get(i).add(c.multiply(bold_u_prime.get(i))).mod(q));
 
         return new ShuffleProof.S(s_1, s_2, s_3, s_4, s_hat, s_prime);
     }
@@ -275,16 +496,16 @@ public class MixingAuthorityAlgorithms {
     }
 
     private List<BigInteger> computeV(int N, BigInteger q, List<BigInteger> bold_u_prime) {
-        List<BigInteger> v = new ArrayList<>();
-        v.add(ONE);
-        for (int i = N - 2; i >= 0; i--) {
-            // inserting always at index 0 means that index 0 always contains the previous value
-            // and that values will be held in reverse order to the insertion order, which is equivalent to the
-            // algorithm described
-            BigInteger v_i = bold_u_prime.get(i + 1).multiply(v.get(0)).mod(q);
-            v.add(0, v_i);
+        // v is derived from u', hence secret as well
+        GroupElementVector.Builder v = GroupElementVector.secretBuilder(N, GroupElementVector.widthFor(q));
+        BigInteger v_i = ONE;
+        for (int i = N - 1; i >= 0; i--) {
+            v.set(i, v_i);
+            if (i > 0) {
+                v_i = bold_u_prime.get(i).multiply(v_i).mod(q);
+            }
         }
-        return v;
+        return v.build();
     }
 
     private BigInteger computeS1(BigInteger q, List<BigInteger> bold_r, BigInteger omega_1, BigInteger c) {
@@ -295,61 +516,37 @@ public class MixingAuthorityAlgorithms {
         return omega_1.add(c.multiply(r_bar)).mod(q);
     }
 
-    private ShuffleProof.T computeT(List<Encryption> bold_e_prime, int N, BigInteger p, BigInteger g, BigInteger h,
-                                    BigInteger pk, List<BigInteger> bold_h, List<BigInteger> bold_c_hat,
-                                    BigInteger omega_1, BigInteger omega_2, BigInteger omega_3, BigInteger omega_4,
-                                    List<BigInteger> bold_omega_hat, List<BigInteger> bold_omega_prime) {
-        BigInteger t_1 = modExp(g, omega_1, p);
-        BigInteger t_2 = modExp(g, omega_2, p);
-
-        BigInteger h_prod = getBoldHProduct(N, p, bold_h, bold_omega_prime);
-        BigInteger t_3 = modExp(g, omega_3, p).multiply(h_prod).mod(p);
-
-        BigInteger a_prime_prod = getAPrimeProd(bold_e_prime, N, p, bold_omega_prime);
-        BigInteger t_4_1 = modExp(pk, omega_4.negate(), p).multiply(a_prime_prod).mod(p);
-
-        BigInteger b_prime_prod = getBPrimeProd(bold_e_prime, N, p, bold_omega_prime);
-        BigInteger t_4_2 = modExp(g, omega_4.negate(), p).multiply(b_prime_prod).mod(p);
-
-        // insert c_hat_0, thus offsetting c_hat indices by 1...
-        List<BigInteger> tmp_bold_c_hat = new ArrayList<>();
-        tmp_bold_c_hat.add(0, h);
-        tmp_bold_c_hat.addAll(bold_c_hat);
-
-        Map<Integer, BigInteger> bold_t_hat_map = IntStream.range(0, N).parallel().boxed()
-                .collect(toMap(identity(), i -> modExp(g, bold_omega_hat.get(i), p)
-                        .multiply(modExp(tmp_bold_c_hat.get(i), bold_omega_prime.get(i), p))
-                        .mod(p)));
-
-        List<BigInteger> bold_t_hat = IntStream.range(0, N)
-                .mapToObj(bold_t_hat_map::get).collect(Collectors.toList());
-        tmp_bold_c_hat.remove(0); // restore c_hat to its former state
-        return new ShuffleProof.T(t_1, t_2, t_3, Arrays.asList(t_4_1, t_4_2), bold_t_hat);
-    }
-
-    private BigInteger getBPrimeProd(List<Encryption> bold_e_prime, int N, BigInteger p, List<BigInteger> bold_omega_prime) {
-        return IntStream.range(0, N)
-                .parallel()
-                .mapToObj(i -> modExp(bold_e_prime.get(i).getB(), bold_omega_prime.get(i), p))
-                .reduce(multiplyMod(p))
-                .orElse(ONE);
+    private ShuffleProof.T computeT(List<Encryption> bold_e_prime, int N, BigInteger p, BigInteger h,
+                                    List<BigInteger> bold_c_hat, List<BigInteger> bold_omega_prime,
+                                    MixingPrecomputation.PartialT partialT) {
+        BigInteger a_prime_prod = getAPrimeProd(bold_e_prime, p, bold_omega_prime);
+        BigInteger t_4_1 = partialT.getPk_omega_4().multiply(a_prime_prod).mod(p);
+
+        BigInteger b_prime_prod = getBPrimeProd(bold_e_prime, p, bold_omega_prime);
+        BigInteger t_4_2 = partialT.getG_omega_4().multiply(b_prime_prod).mod(p);
+
+        // t_hat_i = g^omega_hat_i * c_hat_(i-1)^omega_prime_i, with c_hat_0 = h; computed by chunks, so as to only
+        // hold the intermediate powers of one chunk per thread
+        List<BigInteger> bold_g_omega_hat = partialT.getBold_g_omega_hat();
+        GroupElementVector.Builder bold_t_hat = GroupElementVector.builder(N, GroupElementVector.widthFor(p));
+        List<BigInteger> bold_c_hat_i_minus_one = ParallelVectors.prepend(h, bold_c_hat).subList(0, N);
+        exponentiationWorkers.modExps(new ExponentiationTask(p, publicParameters.getEncryptionGroup().getQ(), true,
+                        Collections.singletonList(bold_c_hat_i_minus_one),
+                        Collections.singletonList(bold_omega_prime)),
+                (i, c_hat_omega_prime_i) ->
+                        bold_t_hat.set(i, bold_g_omega_hat.get(i).multiply(c_hat_omega_prime_i).mod(p)));
+        return new ShuffleProof.T(partialT.getT_1(), partialT.getT_2(), partialT.getT_3(),
+                Arrays.asList(t_4_1, t_4_2), bold_t_hat.build());
     }
 
-    private BigInteger getAPrimeProd(List<Encryption> bold_e_prime, int N, BigInteger p, List<BigInteger> bold_omega_prime) {
-        return IntStream.range(0, N)
-                .parallel()
-                .mapToObj(i -> modExp(bold_e_prime.get(i).getA(), bold_omega_prime.get(i), p))
-                .reduce(multiplyMod(p))
-                .orElse(ONE);
+    private BigInteger getBPrimeProd(List<Encryption> bold_e_prime, BigInteger p, List<BigInteger> bold_omega_prime) {
+        List<BigInteger> bold_b_prime = EncryptionVector.bComponents(bold_e_prime);
+        return modMultiExp(bold_b_prime, bold_omega_prime, p);
     }
 
-
-    private BigInteger getBoldHProduct(int n, BigInteger p, List<BigInteger> bold_h, List<BigInteger> bold_omega_prime) {
-        return IntStream.range(0, n)
-                .parallel()
-                .mapToObj(i -> modExp(bold_h.get(i), bold_omega_prime.get(i), p))
-                .reduce(multiplyMod(p))
-                .orElse(ONE);
+    private BigInteger getAPrimeProd(List<Encryption> bold_e_prime, BigInteger p, List<BigInteger> bold_omega_prime) {
+        List<BigInteger> bold_a_prime = EncryptionVector.aComponents(bold_e_prime);
+        return modMultiExp(bold_a_prime, bold_omega_prime, p);
     }
 
     /**
@@ -359,33 +556,22 @@ public class MixingAuthorityAlgorithms {
      * @param bold_h a list of independent generators
      * @return a commitment to the permutation
      */
-    public PermutationCommitment genPermutationCommitment(List<Integer> psy, List<BigInteger> bold_h) {
-        Preconditions.checkArgument(psy.containsAll(
-                IntStream.range(0, psy.size()).boxed().collect(Collectors.toList())),
-                "The permutation should contain all number from 0 (inclusive) to length (exclusive)");
+    public PermutationCommitment genPermutationCommitment(Permutation psy, List<BigInteger> bold_h) {
         Preconditions.checkArgument(psy.size() == bold_h.size(),
                 "The lengths of psy and bold_h should be identical");
         Preconditions.checkArgument(bold_h.parallelStream().allMatch(h_i -> BigInteger.ONE.compareTo(h_i) != 0 &&
                         generalAlgorithms.isMember(h_i)),
                 "all h_i's must be in G_q \\{1}");
         BigInteger p = publicParameters.getEncryptionGroup().getP();
-        BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
 
         // Loop indexed over j_i instead of i, for performance reasons, with a reverse permutation lookup
-        List<Integer> reversePsy = reversePermutation(psy);
-
-        Map<Integer, BigInteger> bold_r_map = IntStream.range(0, psy.size()).parallel().boxed()
-                .collect(Collectors.toMap(identity(), j_i -> randomGenerator.randomInZq(q)));
-        Map<Integer, BigInteger> bold_c_map = IntStream.range(0, psy.size()).parallel().boxed()
-                .collect(Collectors.toMap(identity(), j_i -> {
-                    Integer i = reversePsy.get(j_i);
-                    BigInteger r_j_i = bold_r_map.get(j_i);
-                    return modExp(g, r_j_i, p).multiply(bold_h.get(i)).mod(p);
-                }));
+        // (the powers of the secret randomness are computed in the current JVM)
+        Permutation reversePsy = psy.inverse();
 
-        List<BigInteger> bold_c = IntStream.range(0, psy.size()).mapToObj(bold_c_map::get).collect(Collectors.toList());
-        List<BigInteger> bold_r = IntStream.range(0, psy.size()).mapToObj(bold_r_map::get).collect(Collectors.toList());
+        List<BigInteger> bold_r = genRandomVectorInZq(psy.size());
+        List<BigInteger> bold_g_r = modExpG(bold_r);
+        List<BigInteger> bold_c = GroupElementVector.fill(psy.size(), GroupElementVector.widthFor(p),
+                j_i -> bold_g_r.get(j_i).multiply(bold_h.get(reversePsy.get(j_i))).mod(p));
 
         return new PermutationCommitment(bold_c, bold_r);
     }
@@ -398,41 +584,70 @@ public class MixingAuthorityAlgorithms {
      * @return a commitment chain relative to the permuted list of public challenges
      */
     public CommitmentChain genCommitmentChain(BigInteger c_0, List<BigInteger> bold_u) {
-        BigInteger p = publicParameters.getEncryptionGroup().getP();
-        BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
-
         Preconditions.checkArgument(generalAlgorithms.isMember(c_0),
                 "c_0 must be in G_q");
         Preconditions.checkArgument(bold_u.parallelStream().allMatch(generalAlgorithms::isInZ_q),
                 "all u_i's must be in Z_q");
 
-        List<BigInteger> bold_c = new ArrayList<>();
-        List<BigInteger> bold_r = new ArrayList<>();
-
-        bold_c.add(c_0); // c_0, we'll remove it afterwards
-
-        for (int i = 0; i < bold_u.size(); i++) {
-            BigInteger c_i_minus_one = bold_c.get(i); // offset by one, due to adding c_0 as a prefix
-            BigInteger u_prime_i = bold_u.get(i);
+        List<BigInteger> bold_r = genRandomVectorInZq(bold_u.size());
+        List<BigInteger> bold_g_r = modExpG(bold_r);
 
-            BigInteger r_i = randomGenerator.randomInZq(q);
-            BigInteger c_i = modExp(g, r_i, p).multiply(modExp(c_i_minus_one, u_prime_i, p)).mod(p);
+        return genCommitmentChain(c_0, bold_u, bold_r, bold_g_r);
+    }
 
-            bold_c.add(c_i);
-            bold_r.add(r_i);
+    /**
+     * Algorithm 7.46: GenCommitmentChain, with the randomness <tt>r_i</tt> and the values <tt>g ^ r_i</tt> computed
+     * beforehand
+     * <p>The chain <tt>c_i = g^r_i * c_(i-1)^u_i</tt> is sequential, but it unrolls to
+     * <tt>c_i = g^R_i * c_0^U_i</tt>, with <tt>R_i = r_i + u_i * R_(i-1)</tt> and <tt>U_i = u_i * U_(i-1)</tt> in
+     * Z_q. The chain is split into one segment per worker thread: the first commitment of each segment is computed
+     * directly from the unrolled form, and the rest of the segment follows the original recurrence. Since c_0 is in
+     * G_q, the commitments are identical to those of the sequential loop.</p>
+     */
+    private CommitmentChain genCommitmentChain(BigInteger c_0, List<BigInteger> bold_u, List<BigInteger> bold_r,
+                                               List<BigInteger> bold_g_r) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        int upper_n = bold_u.size();
+
+        int segments = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(),
+                upper_n / MIN_CHAIN_SEGMENT_LENGTH));
+        int[] starts = IntStream.rangeClosed(0, segments).map(k -> (int) ((long) upper_n * k / segments)).toArray();
+
+        // R_i and U_i are only needed just before the start of each segment
+        BigInteger[] bold_upper_r = new BigInteger[segments];
+        BigInteger[] bold_upper_u = new BigInteger[segments];
+        BigInteger upper_r = ZERO;
+        BigInteger upper_u = ONE;
+        for (int k = 1, i = 0; k < segments; k++) {
+            for (; i < starts[k]; i++) {
+                upper_r = bold_r.get(i).add(bold_u.get(i).multiply(upper_r)).mod(q);
+                upper_u = bold_u.get(i).multiply(upper_u).mod(q);
+            }
+            bold_upper_r[k] = upper_r;
+            bold_upper_u[k] = upper_u;
         }
 
-        bold_c.remove(0);
-
-        return new CommitmentChain(bold_c, bold_r);
+        GroupElementVector.Builder bold_c = GroupElementVector.builder(upper_n, GroupElementVector.widthFor(p));
+        IntStream.range(0, segments).parallel().forEach(k -> {
+            BigInteger c_i_minus_one = k == 0 ? c_0 : unrolledCommitment(c_0, bold_upper_r[k], bold_upper_u[k]);
+            for (int i = starts[k]; i < starts[k + 1]; i++) {
+                // the challenge u_i is public, the secret r_i only enters through g^r_i
+                c_i_minus_one = bold_g_r.get(i).multiply(modExpPublic(c_i_minus_one, bold_u.get(i), p)).mod(p);
+                bold_c.set(i, c_i_minus_one);
+            }
+        });
+
+        return new CommitmentChain(bold_c.build(), bold_r);
     }
 
-    private List<Integer> reversePermutation(List<Integer> psy) {
-        Preconditions.checkArgument(psy.containsAll(
-                IntStream.range(0, psy.size()).boxed().collect(Collectors.toList())),
-                "The permutation should contain all number from 0 (inclusive) to length (exclusive)");
-
-        return IntStream.range(0, psy.size()).mapToObj(psy::indexOf).collect(Collectors.toList());
+    private BigInteger unrolledCommitment(BigInteger c_0, BigInteger upper_r, BigInteger upper_u) {
+        EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
+        BigInteger p = encryptionGroup.getP();
+        // U is a product of public challenges, whereas R depends on the secret r_i
+        BigInteger c_0_upper_u = c_0.equals(encryptionGroup.getH()) ?
+                encryptionGroup.getHExponentiator().modExpPublic(upper_u) :
+                modExpPublic(c_0, upper_u, p);
+        return encryptionGroup.getGExponentiator().modExp(upper_r).multiply(c_0_upper_u).mod(p);
     }
 }
@@ -0,0 +1,75 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.algorithm;
+
+import ch.ge.ve.protopoc.service.model.CommitmentChain;
+import ch.ge.ve.protopoc.service.model.ShuffleProof;
+
+/**
+ * Intermediate results of the generation of a shuffle proof, saved as soon as they are computed so that an
+ * interrupted generation may resume from them (see
+ * {@link MixingAuthorityAlgorithms#genShuffleProof(java.util.List, java.util.List, java.util.List,
+ * ch.ge.ve.protopoc.service.model.EncryptionPublicKey, ch.ge.ve.protopoc.service.model.MixingPrecomputation,
+ * ShuffleProofCheckpoint)})
+ * <p>The results restored must have been computed for the same shuffle and the same precomputation.</p>
+ */
+public interface ShuffleProofCheckpoint {
+    /**
+     * A checkpoint which saves nothing
+     */
+    ShuffleProofCheckpoint NONE = new ShuffleProofCheckpoint() {
+        @Override
+        public CommitmentChain getCommitmentChain() {
+            return null;
+        }
+
+        @Override
+        public void saveCommitmentChain(CommitmentChain commitmentChain) {
+            // nothing to save
+        }
+
+        @Override
+        public ShuffleProof.T getT() {
+            return null;
+        }
+
+        @Override
+        public void saveT(ShuffleProof.T t) {
+            // nothing to save
+        }
+    };
+
+    /**
+     * @return the commitment chain saved, or null if none was
+     */
+    CommitmentChain getCommitmentChain();
+
+    void saveCommitmentChain(CommitmentChain commitmentChain);
+
+    /**
+     * @return the proof commitments saved, or null if none were
+     */
+    ShuffleProof.T getT();
+
+    void saveT(ShuffleProof.T t);
+}
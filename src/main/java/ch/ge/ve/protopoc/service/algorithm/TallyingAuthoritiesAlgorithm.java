@@ -25,17 +25,27 @@ import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException;
 import ch.ge.ve.protopoc.service.exception.TallyingRuntimeException;
 import ch.ge.ve.protopoc.service.model.DecryptionProof;
 import ch.ge.ve.protopoc.service.model.Encryption;
+import ch.ge.ve.protopoc.service.model.EncryptionVector;
 import ch.ge.ve.protopoc.service.model.PublicParameters;
+import ch.ge.ve.protopoc.service.support.ExponentiationWorkers;
+import ch.ge.ve.protopoc.service.support.ParallelVectors;
+import ch.ge.ve.protopoc.service.support.RandomGenerator;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp2;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpPublic;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modInverse;
+import static ch.ge.ve.protopoc.service.support.BigIntegers.multiplyMod;
 import static java.math.BigInteger.ONE;
 
 /**
@@ -46,10 +56,20 @@ public class TallyingAuthoritiesAlgorithm {
 
     private final PublicParameters publicParameters;
     private final GeneralAlgorithms generalAlgorithms;
+    private final RandomGenerator randomGenerator;
 
     public TallyingAuthoritiesAlgorithm(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms) {
+        this(publicParameters, generalAlgorithms, new RandomGenerator(new SecureRandom()));
+    }
+
+    /**
+     * @param randomGenerator the source of the random weights of the batch verification of the decryption proofs
+     */
+    public TallyingAuthoritiesAlgorithm(PublicParameters publicParameters, GeneralAlgorithms generalAlgorithms,
+                                        RandomGenerator randomGenerator) {
         this.publicParameters = publicParameters;
         this.generalAlgorithms = generalAlgorithms;
+        this.randomGenerator = randomGenerator;
     }
 
     /**
@@ -64,17 +84,16 @@ public class TallyingAuthoritiesAlgorithm {
     public boolean checkDecryptionProofs(List<DecryptionProof> bold_pi_prime, List<BigInteger> bold_pk,
                                          List<Encryption> bold_e, List<List<BigInteger>> upper_bold_b_prime) {
         // Validity checks
-        Preconditions.checkArgument(bold_pi_prime.parallelStream().allMatch(pi_prime ->
-                        pi_prime.getT().parallelStream().allMatch(generalAlgorithms::isMember) &&
-                                generalAlgorithms.isInZ_q(pi_prime.getS())),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(bold_pi_prime.stream()
+                        .flatMap(pi_prime -> pi_prime.getT().stream()).collect(Collectors.toList())) &&
+                        bold_pi_prime.stream().allMatch(pi_prime -> generalAlgorithms.isInZ_q(pi_prime.getS())),
                 "all pi_prime_i's t's should be in G_q, and s in Z_q");
-        Preconditions.checkArgument(bold_pk.parallelStream().allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(bold_pk),
                 "all public key shares should be in G_q");
-        Preconditions.checkArgument(bold_e.parallelStream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
-                        generalAlgorithms.isMember(e.getB())),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(EncryptionVector.aComponents(bold_e)) &&
+                        generalAlgorithms.areMembers(EncryptionVector.bComponents(bold_e)),
                 "all e_i's must be in G_q^2");
-        Preconditions.checkArgument(upper_bold_b_prime.parallelStream()
-                        .flatMap(List::parallelStream).allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(upper_bold_b_prime.stream().allMatch(generalAlgorithms::areMembers),
                 "all elements within upper_bold_b_prime should be in G_q");
 
         // Size checks
@@ -88,8 +107,97 @@ public class TallyingAuthoritiesAlgorithm {
                 "There should be as many rows to upper_bold_b_prime as there are authorities");
         Preconditions.checkArgument(upper_bold_b_prime.stream().map(List::size).allMatch(l -> l == N),
                 "There should be as many columns to upper_bold_b_prime as there are encryptions");
-        return IntStream.range(0, s).allMatch(j ->
-                checkDecryptionProof(bold_pi_prime.get(j), bold_pk.get(j), bold_e, upper_bold_b_prime.get(j)));
+        Preconditions.checkArgument(bold_pi_prime.stream().allMatch(pi_prime -> pi_prime.getT().size() == N + 1),
+                "Each decryption proof should contain N + 1 commitments");
+
+        if (batchCheckDecryptionProofs(bold_pi_prime, bold_pk, bold_e, upper_bold_b_prime)) {
+            return true;
+        }
+        // Pinpoint the invalid proofs
+        return IntStream.range(0, s).parallel().mapToObj(j -> {
+            boolean isProofValid = checkDecryptionProof(bold_pi_prime.get(j), bold_pk.get(j), bold_e,
+                    upper_bold_b_prime.get(j));
+            if (!isProofValid) {
+                log.error(String.format("Invalid decryption proof found for authority %d", j));
+            }
+            return isProofValid;
+        }).reduce(Boolean::logicalAnd).orElse(true);
+    }
+
+    /**
+     * Check the <tt>s * (N + 1)</tt> equations of the decryption proofs of all the authorities at once
+     * <p>The equations <tt>t_j_0 = pk_j^-c_j * g^s_j</tt> and <tt>t_j_i = b'_j_i^-c_j * b_i^s_j</tt> are raised to
+     * random weights <tt>w_j_i</tt> in <tt>[1, 2^tau]</tt> and multiplied together. Grouping the factors per base,
+     * the <tt>b_i</tt> being common to all the authorities, this yields the single multi-exponentiation
+     * <tt>prod(t_j_i^w_j_i) * prod(pk_j^(c_j*w_j_0)) * prod(b'_j_i^(c_j*w_j_i)) *
+     * g^-sum(s_j*w_j_0) * prod(b_i^-sum(s_j*w_j_i)) = 1</tt>. The challenges of the authorities are computed in
+     * parallel.</p>
+     * <p>The multi-exponentiation is split by chunks of encryptions, each chunk holding the terms of all the authorities
+     * for its <tt>b_i</tt>: the partial products are computed in parallel, only holding the terms of one chunk per
+     * thread, and multiplied together with the terms of index 0.</p>
+     * <p>All the values having been checked to be in G_q, an invalid equation goes undetected with probability at most
+     * <tt>2^-tau</tt>.</p>
+     *
+     * @return true if the combined equation holds; false means that at least one of the proofs is invalid
+     */
+    private boolean batchCheckDecryptionProofs(List<DecryptionProof> bold_pi_prime, List<BigInteger> bold_pk,
+                                               List<Encryption> bold_e, List<List<BigInteger>> upper_bold_b_prime) {
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        int tau = publicParameters.getSecurityParameters().getTau();
+        int s = bold_pi_prime.size();
+        int N = bold_e.size();
+        List<BigInteger> bold_b = EncryptionVector.bComponents(bold_e);
+
+        List<BigInteger> bold_c = IntStream.range(0, s).parallel()
+                .mapToObj(j -> generalAlgorithms.getNIZKPChallenge(
+                        new Object[]{bold_pk.get(j), bold_b, upper_bold_b_prime.get(j)},
+                        bold_pi_prime.get(j).getT().toArray(new BigInteger[0]), tau))
+                .collect(Collectors.toList());
+
+        BigInteger weightBound = BigInteger.valueOf(2).pow(tau);
+        // the terms of index 0: t_j_0^w_j_0 * pk_j^(c_j*w_j_0), and g^-sum(s_j*w_j_0)
+        List<BigInteger> bases = new ArrayList<>(2 * s + 1);
+        List<BigInteger> exponents = new ArrayList<>(2 * s + 1);
+        BigInteger g_exponent = BigInteger.ZERO;
+        for (int j = 0; j < s; j++) {
+            BigInteger w_j_0 = randomGenerator.randomBigInteger(weightBound).add(ONE);
+            bases.add(bold_pi_prime.get(j).getT().get(0));
+            exponents.add(w_j_0);
+            bases.add(bold_pk.get(j));
+            exponents.add(bold_c.get(j).multiply(w_j_0).mod(q));
+            g_exponent = g_exponent.add(bold_pi_prime.get(j).getS().multiply(w_j_0));
+        }
+        bases.add(publicParameters.getEncryptionGroup().getG());
+        exponents.add(g_exponent.negate().mod(q));
+        List<BigInteger> partialProducts = new ArrayList<>();
+        partialProducts.add(ExponentiationWorkers.inProcess().modMultiExp(bases, exponents, p));
+
+        // the terms of the encryptions i, by chunks: t_j_i^w_j_i * b'_j_i^(c_j*w_j_i), and b_i^-sum(s_j*w_j_i)
+        int chunkSize = Math.min(ParallelVectors.DEFAULT_CHUNK_SIZE,
+                Math.max(1, (N + ForkJoinPool.getCommonPoolParallelism() - 1) / ForkJoinPool.getCommonPoolParallelism()));
+        ParallelVectors.forEachChunk(N, chunkSize, (from, to) -> {
+            List<BigInteger> chunkBases = new ArrayList<>((2 * s + 1) * (to - from));
+            List<BigInteger> chunkExponents = new ArrayList<>((2 * s + 1) * (to - from));
+            for (int i = from; i < to; i++) {
+                BigInteger b_exponent = BigInteger.ZERO;
+                for (int j = 0; j < s; j++) {
+                    BigInteger w_j_i = randomGenerator.randomBigInteger(weightBound).add(ONE);
+                    chunkBases.add(bold_pi_prime.get(j).getT().get(i + 1));
+                    chunkExponents.add(w_j_i);
+                    chunkBases.add(upper_bold_b_prime.get(j).get(i));
+                    chunkExponents.add(bold_c.get(j).multiply(w_j_i).mod(q));
+                    b_exponent = b_exponent.add(bold_pi_prime.get(j).getS().multiply(w_j_i));
+                }
+                chunkBases.add(bold_b.get(i));
+                chunkExponents.add(b_exponent.negate().mod(q));
+            }
+            BigInteger partialProduct = ExponentiationWorkers.inProcess().modMultiExp(chunkBases, chunkExponents, p);
+            synchronized (partialProducts) {
+                partialProducts.add(partialProduct);
+            }
+        });
+        return partialProducts.stream().reduce(ONE, multiplyMod(p)).compareTo(ONE) == 0;
     }
 
     /**
@@ -104,28 +212,27 @@ public class TallyingAuthoritiesAlgorithm {
     public boolean checkDecryptionProof(DecryptionProof pi_prime, BigInteger pk_j, List<Encryption> bold_e,
                                         List<BigInteger> bold_b_prime) {
         // Validity checks
-        Preconditions.checkArgument(pi_prime.getT().parallelStream().allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(pi_prime.getT()),
                 "all pi.t elements must be in G_q");
         Preconditions.checkArgument(generalAlgorithms.isInZ_q(pi_prime.getS()),
                 "pi.s must be in Z_q");
         Preconditions.checkArgument(generalAlgorithms.isMember(pk_j),
                 "the public key must be in G_q");
-        Preconditions.checkArgument(bold_b_prime.parallelStream().allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(bold_b_prime),
                 "all elements of bold_b_prime must be in G_q");
         BigInteger p = publicParameters.getEncryptionGroup().getP();
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
         int tau = publicParameters.getSecurityParameters().getTau();
 
-        List<BigInteger> bold_b = bold_e.stream().map(Encryption::getB).collect(Collectors.toList());
+        List<BigInteger> bold_b = EncryptionVector.bComponents(bold_e);
         Object[] y = {pk_j, bold_b, bold_b_prime};
         BigInteger[] t = pi_prime.getT().toArray(new BigInteger[0]);
         BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t, tau);
-        BigInteger t_prime_0 = modExp(pk_j, c.negate(), p).multiply(modExp(g, pi_prime.getS(), p)).mod(p);
+        BigInteger t_prime_0 = modExpPublic(pk_j, c.negate(), p)
+                .multiply(publicParameters.getEncryptionGroup().getGExponentiator().modExpPublic(pi_prime.getS())).mod(p);
         List<BigInteger> t_prime = IntStream.range(0, bold_b.size())
                 .mapToObj(i ->
-                        modExp(bold_b_prime.get(i), c.negate(), p)
-                                .multiply(modExp(bold_b.get(i), pi_prime.getS(), p)).mod(p))
+                        modExp2(bold_b_prime.get(i), c.negate(), bold_b.get(i), pi_prime.getS(), p, q))
                 .collect(Collectors.toList());
         t_prime.add(0, t_prime_0);
 
@@ -146,11 +253,10 @@ public class TallyingAuthoritiesAlgorithm {
      */
     public List<BigInteger> getDecryptions(List<Encryption> bold_e, List<List<BigInteger>> upper_bold_b_prime) {
         // Validity checks
-        Preconditions.checkArgument(bold_e.parallelStream().allMatch(e -> generalAlgorithms.isMember(e.getA()) &&
-                        generalAlgorithms.isMember(e.getB())),
+        Preconditions.checkArgument(generalAlgorithms.areMembers(EncryptionVector.aComponents(bold_e)) &&
+                        generalAlgorithms.areMembers(EncryptionVector.bComponents(bold_e)),
                 "all e_i's must be in G_q^2");
-        Preconditions.checkArgument(upper_bold_b_prime.parallelStream()
-                        .flatMap(List::parallelStream).allMatch(generalAlgorithms::isMember),
+        Preconditions.checkArgument(upper_bold_b_prime.stream().allMatch(generalAlgorithms::areMembers),
                 "all elements within upper_bold_b_prime should be in G_q");
 
         // Size checks
@@ -161,13 +267,16 @@ public class TallyingAuthoritiesAlgorithm {
                 "There should be one row in upper_bold_b_prime per authority");
         Preconditions.checkArgument(upper_bold_b_prime.stream().map(List::size).allMatch(l -> l == N),
                 "Each row of upper_bold_b_prime should contain one partial decryption per ballot");
-        return IntStream.range(0, N).mapToObj(i -> {
-            BigInteger b_prime_i = IntStream.range(0, s).mapToObj(j -> upper_bold_b_prime.get(j).get(i))
-                    .reduce(BigInteger::multiply)
-                    .orElse(ONE)
-                    .mod(p);
-            return bold_e.get(i).getA().multiply(b_prime_i.modInverse(p)).mod(p);
-        }).collect(Collectors.toList());
+        List<BigInteger> bold_b_prime = IntStream.range(0, N).parallel().mapToObj(i ->
+                IntStream.range(0, s).mapToObj(j -> upper_bold_b_prime.get(j).get(i))
+                        .reduce(BigInteger::multiply)
+                        .orElse(ONE)
+                        .mod(p))
+                .collect(Collectors.toList());
+        List<BigInteger> bold_b_prime_inverse = modInverse(bold_b_prime, p);
+        return IntStream.range(0, N).parallel()
+                .mapToObj(i -> bold_e.get(i).getA().multiply(bold_b_prime_inverse.get(i)).mod(p))
+                .collect(Collectors.toList());
     }
 
     /**
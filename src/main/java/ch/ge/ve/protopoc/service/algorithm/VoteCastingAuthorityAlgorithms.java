@@ -38,8 +38,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.IntFunction;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpPublic;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpSecret;
 import static java.math.BigInteger.ONE;
 
 /**
@@ -165,10 +167,7 @@ public class VoteCastingAuthorityAlgorithms {
         log.debug(String.format("checkBallotProof: a = %s", a));
 
         BigInteger p = publicParameters.getEncryptionGroup().getP();
-        BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
         BigInteger p_hat = publicParameters.getIdentificationGroup().getP_hat();
-        BigInteger g_hat = publicParameters.getIdentificationGroup().getG_hat();
         int tau = publicParameters.getSecurityParameters().getTau();
 
         BigInteger[] y = new BigInteger[]{x_hat, a, b};
@@ -177,9 +176,12 @@ public class VoteCastingAuthorityAlgorithms {
         BigInteger c = generalAlgorithms.getNIZKPChallenge(y, t_array, tau);
         log.debug(String.format("checkBallotProof: c = %s", c));
 
-        BigInteger t_prime_1 = modExp(x_hat, c.negate(), p_hat).multiply(modExp(g_hat, s_1, p_hat)).mod(p_hat);
-        BigInteger t_prime_2 = modExp(a, c.negate(), p).multiply(s_2).multiply(modExp(pk.getPublicKey(), s_3, p)).mod(p);
-        BigInteger t_prime_3 = modExp(b, c.negate(), p).multiply(modExp(g, s_3, p)).mod(p);
+        BigInteger t_prime_1 = modExpPublic(x_hat, c.negate(), p_hat)
+                .multiply(publicParameters.getIdentificationGroup().getG_hatExponentiator().modExpPublic(s_1)).mod(p_hat);
+        BigInteger t_prime_2 = modExpPublic(a, c.negate(), p).multiply(s_2)
+                .multiply(pk.getExponentiator().modExpPublic(s_3)).mod(p);
+        BigInteger t_prime_3 = modExpPublic(b, c.negate(), p)
+                .multiply(publicParameters.getEncryptionGroup().getGExponentiator().modExpPublic(s_3)).mod(p);
 
         return t_array[0].compareTo(t_prime_1) == 0 &&
                 t_array[1].compareTo(t_prime_2) == 0 &&
@@ -202,6 +204,28 @@ public class VoteCastingAuthorityAlgorithms {
                                                         List<Integer> bold_n,
                                                         List<List<Integer>> bold_K,
                                                         List<List<Point>> upper_bold_p) {
+        return genResponse(i, bold_a, pk, bold_n, bold_K, upper_bold_p, j -> genResponseRandomness(j, pk, bold_n));
+    }
+
+    /**
+     * Algorithm 7.25: GenResponse, using randomness prepared by {@link #genResponseRandomness(int, EncryptionPublicKey,
+     * List)}, possibly ahead of time: only the <tt>k</tt> exponentiations of the queries and the hashing remain
+     *
+     * @param i            the voter index
+     * @param bold_a       the vector of the queries
+     * @param pk           the encryption public key
+     * @param bold_n       the vector of number of candidates per election
+     * @param bold_K       the matrix of number of selections per voter per election
+     * @param upper_bold_p the matrix of points per voter per candidate
+     * @param bold_rho     the source of fresh response randomness, per election; each tuple must only be used once
+     * @return the OT response, along with the randomness used
+     * @throws IncompatibleParametersRuntimeException if not enough primes exist in the encryption group for the number of candidates
+     */
+    public ObliviousTransferResponseAndRand genResponse(Integer i, List<BigInteger> bold_a, EncryptionPublicKey pk,
+                                                        List<Integer> bold_n,
+                                                        List<List<Integer>> bold_K,
+                                                        List<List<Point>> upper_bold_p,
+                                                        IntFunction<ResponseRandomness> bold_rho) {
         Preconditions.checkArgument(bold_a.stream().allMatch(generalAlgorithms::isMember),
                 "All queries a_i must be in G_q");
         Preconditions.checkArgument(pk.getPublicKey().compareTo(BigInteger.ONE) != 0,
@@ -227,7 +251,6 @@ public class VoteCastingAuthorityAlgorithms {
         final int k_sum = bold_K.get(i).stream().reduce((a, b) -> a + b).orElse(0);
         Preconditions.checkArgument(bold_a.size() == k_sum);
 
-        BigInteger q = publicParameters.getEncryptionGroup().getQ();
         BigInteger p = publicParameters.getEncryptionGroup().getP();
         int upper_l_m = publicParameters.getUpper_l_m();
 
@@ -236,25 +259,20 @@ public class VoteCastingAuthorityAlgorithms {
         List<BigInteger> bold_d = new ArrayList<>();
         List<BigInteger> bold_r = new ArrayList<>();
 
-        List<BigInteger> bold_p;
-        try {
-            bold_p = generalAlgorithms.getPrimes(n);
-        } catch (NotEnoughPrimesInGroupException e) {
-            throw new IncompatibleParametersRuntimeException(e);
-        }
-
         int u = 0; // index 0 based, as opposed to the specification 1 based
         int v = 0; // same comment
 
         for (int j = 0; j < t; j++) {
-            BigInteger r_j = randomGenerator.randomInZq(q);
+            ResponseRandomness rho_j = bold_rho.apply(j);
+            BigInteger r_j = rho_j.getR_j();
 
             Integer k_ij = bold_K.get(i).get(j);
-            for (int l = 0; l < k_ij; l++) {
-                bold_b.add(modExp(bold_a.get(u++), r_j, p));
-            }
-
             Integer n_j = bold_n.get(j);
+            Preconditions.checkArgument(rho_j.getBold_k().size() == n_j,
+                    "The response randomness must hold one key per candidate");
+            bold_b.addAll(modExpSecret(bold_a.subList(u, u + k_ij), r_j, p));
+            u += k_ij;
+
             for (int l = 0; l < n_j; l++) {
                 Point point_iv = upper_bold_p.get(i).get(v);
                 @SuppressWarnings("SuspiciousNameCombination")
@@ -263,7 +281,7 @@ public class VoteCastingAuthorityAlgorithms {
                         conversion.toByteArray(point_iv.y, upper_l_m / 2)
                 );
                 log.debug(String.format("Encoding point %s as %s", point_iv, Arrays.toString(M_v)));
-                BigInteger k = modExp(bold_p.get(v), r_j, p);
+                BigInteger k = rho_j.getBold_k().get(l);
                 byte[] bold_upper_k = new byte[0];
                 int l_m = (int) Math.ceil((double) upper_l_m / publicParameters.getSecurityParameters().getUpper_l());
                 for (int z = 1; z <= l_m; z++) {
@@ -275,7 +293,7 @@ public class VoteCastingAuthorityAlgorithms {
                 v++;
             }
 
-            bold_d.add(modExp(pk.getPublicKey(), r_j, p));
+            bold_d.add(rho_j.getD_j());
             bold_r.add(r_j);
         }
 
@@ -283,4 +301,36 @@ public class VoteCastingAuthorityAlgorithms {
         return new ObliviousTransferResponseAndRand(beta, bold_r);
     }
 
+    /**
+     * Query-independent part of Algorithm 7.25: draws the randomness <tt>r_j</tt> for election j, and computes the
+     * keys <tt>p_v ^ r_j</tt> of the election's candidates along with <tt>d_j = pk ^ r_j</tt>
+     *
+     * @param j      the election index
+     * @param pk     the encryption public key
+     * @param bold_n the vector of number of candidates per election
+     * @return the response randomness for election j
+     * @throws IncompatibleParametersRuntimeException if not enough primes exist in the encryption group for the number of candidates
+     */
+    public ResponseRandomness genResponseRandomness(int j, EncryptionPublicKey pk, List<Integer> bold_n) {
+        Preconditions.checkElementIndex(j, bold_n.size());
+        BigInteger q = publicParameters.getEncryptionGroup().getQ();
+        BigInteger p = publicParameters.getEncryptionGroup().getP();
+        final int n = bold_n.stream().reduce((a, b) -> a + b).orElse(0);
+        final int v_j = bold_n.subList(0, j).stream().reduce((a, b) -> a + b).orElse(0);
+
+        List<BigInteger> bold_p;
+        try {
+            bold_p = generalAlgorithms.getPrimes(n);
+        } catch (NotEnoughPrimesInGroupException e) {
+            throw new IncompatibleParametersRuntimeException(e);
+        }
+
+        BigInteger r_j = randomGenerator.randomInZq(q);
+        // the keys and d_j share the exponent r_j
+        List<BigInteger> bases = new ArrayList<>(bold_p.subList(v_j, v_j + bold_n.get(j)));
+        bases.add(pk.getPublicKey());
+        List<BigInteger> powers = modExpSecret(bases, r_j, p);
+        return new ResponseRandomness(r_j, powers.subList(0, bold_n.get(j)), powers.get(bold_n.get(j)));
+    }
+
 }
@@ -40,7 +40,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpSecret;
 import static java.math.BigInteger.ONE;
 import static java.math.BigInteger.ZERO;
 
@@ -85,21 +85,18 @@ public class VoteCastingClientAlgorithms {
         Preconditions.checkArgument(BigInteger.ONE.compareTo(pk.getPublicKey()) != 0,
                 "The key must not be 1");
 
-        BigInteger p_hat = publicParameters.getIdentificationGroup().getP_hat();
-        BigInteger g_hat = publicParameters.getIdentificationGroup().getG_hat();
         BigInteger p = publicParameters.getEncryptionGroup().getP();
         BigInteger q = publicParameters.getEncryptionGroup().getQ();
-        BigInteger g = publicParameters.getEncryptionGroup().getG();
 
         BigInteger x = conversion.toInteger(upper_x, publicParameters.getUpper_a_x());
-        BigInteger x_hat = modExp(g_hat, x, p_hat);
+        BigInteger x_hat = publicParameters.getIdentificationGroup().getG_hatExponentiator().modExp(x);
 
         List<BigInteger> bold_q = computeBoldQ(bold_s);
         BigInteger m = computeM(bold_q, p);
         ObliviousTransferQuery query = genQuery(bold_q, pk);
         BigInteger a = computeA(query, p);
         BigInteger r = computeR(query, q);
-        BigInteger b = modExp(g, r, p);
+        BigInteger b = publicParameters.getEncryptionGroup().getGExponentiator().modExp(r);
         NonInteractiveZKP pi = genBallotProof(x, m, r, x_hat, a, b, pk);
         BallotAndQuery alpha = new BallotAndQuery(x_hat, query.getBold_a(), b, pi);
 
@@ -183,7 +180,7 @@ public class VoteCastingClientAlgorithms {
 
         for (BigInteger q_i : bold_q) {
             BigInteger r_i = randomGenerator.randomInZq(q);
-            BigInteger a_i = q_i.multiply(modExp(pk.getPublicKey(), r_i, p)).mod(p);
+            BigInteger a_i = q_i.multiply(pk.getExponentiator().modExp(r_i)).mod(p);
             bold_a.add(a_i);
             bold_r.add(r_i);
         }
@@ -222,14 +219,11 @@ public class VoteCastingClientAlgorithms {
         Preconditions.checkArgument(generalAlgorithms.isMember(pk.getPublicKey()),
                 "The key must be a member of G_q");
         IdentificationGroup identificationGroup = publicParameters.getIdentificationGroup();
-        BigInteger p_hat = identificationGroup.getP_hat();
         BigInteger q_hat = identificationGroup.getQ_hat();
-        BigInteger g_hat = identificationGroup.getG_hat();
 
         EncryptionGroup encryptionGroup = publicParameters.getEncryptionGroup();
         BigInteger p = encryptionGroup.getP();
         BigInteger q = encryptionGroup.getQ();
-        BigInteger g = encryptionGroup.getG();
 
         int tau = publicParameters.getSecurityParameters().getTau();
 
@@ -239,9 +233,9 @@ public class VoteCastingClientAlgorithms {
         BigInteger omega_2 = randomGenerator.randomInGq(encryptionGroup);
         BigInteger omega_3 = randomGenerator.randomInZq(q);
 
-        BigInteger t_1 = modExp(g_hat, omega_1, p_hat);
-        BigInteger t_2 = omega_2.multiply(modExp(pk.getPublicKey(), omega_3, p)).mod(p);
-        BigInteger t_3 = modExp(g, omega_3, p);
+        BigInteger t_1 = identificationGroup.getG_hatExponentiator().modExp(omega_1);
+        BigInteger t_2 = omega_2.multiply(pk.getExponentiator().modExp(omega_3)).mod(p);
+        BigInteger t_3 = encryptionGroup.getGExponentiator().modExp(omega_3);
 
         BigInteger[] y = new BigInteger[]{x_hat, a, b};
         BigInteger[] t = new BigInteger[]{t_1, t_2, t_3};
@@ -249,7 +243,7 @@ public class VoteCastingClientAlgorithms {
         log.debug(String.format("genBallotProof: c = %s", c));
 
         BigInteger s_1 = omega_1.add(c.multiply(x)).mod(q_hat);
-        BigInteger s_2 = omega_2.multiply(modExp(m, c, p)).mod(p);
+        BigInteger s_2 = omega_2.multiply(modExpSecret(m, c, p)).mod(p);
         BigInteger s_3 = omega_3.add(c.multiply(r)).mod(q);
         List<BigInteger> s = Arrays.asList(s_1, s_2, s_3);
 
@@ -338,7 +332,7 @@ public class VoteCastingClientAlgorithms {
         for (int j = 0; j < bold_k.size(); j++) {
             for (int l = 0; l < bold_k.get(j); l++) {
                 log.debug("c[" + (bold_s.get(i) - 1) + "] = " + Arrays.toString(c[bold_s.get(i) - 1]));
-                BigInteger k = b.get(i).multiply(modExp(d.get(j), bold_r.get(i).negate(), p)).mod(p);
+                BigInteger k = b.get(i).multiply(modExpSecret(d.get(j), bold_r.get(i).negate(), p)).mod(p);
                 byte[] bold_upper_k = computeBoldUpperK(upper_l_m, k);
                 byte[] M_i = ByteArrayUtils.xor(
                         // selections are 1-based
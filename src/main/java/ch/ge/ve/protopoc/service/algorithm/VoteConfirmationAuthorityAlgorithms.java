@@ -33,7 +33,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExpPublic;
 
 /**
  * Algorithms for the vote confirmation phase, on the authorities side
@@ -99,7 +99,6 @@ public class VoteConfirmationAuthorityAlgorithms {
         Preconditions.checkArgument(pi.getS().size() == 1);
 
         BigInteger p_hat = publicParameters.getIdentificationGroup().getP_hat();
-        BigInteger g_hat = publicParameters.getIdentificationGroup().getG_hat();
         int tau = publicParameters.getSecurityParameters().getTau();
 
         BigInteger t = pi.getT().get(0);
@@ -114,7 +113,8 @@ public class VoteConfirmationAuthorityAlgorithms {
                 "y_hat must be in G_q_hat");
 
         BigInteger c = generalAlgorithms.getNIZKPChallenge(new BigInteger[]{y_hat}, new BigInteger[]{t}, tau);
-        BigInteger t_prime = modExp(g_hat, s, p_hat).multiply(modExp(y_hat, c.negate(), p_hat)).mod(p_hat);
+        BigInteger t_prime = publicParameters.getIdentificationGroup().getG_hatExponentiator().modExpPublic(s)
+                .multiply(modExpPublic(y_hat, c.negate(), p_hat)).mod(p_hat);
 
         return t.compareTo(t_prime) == 0;
     }
@@ -39,7 +39,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modInverse;
 import static java.math.BigInteger.ZERO;
 import static java.util.Collections.singletonList;
 
@@ -84,9 +84,7 @@ public class VoteConfirmationClientAlgorithms {
         Preconditions.checkArgument(bold_k.stream().allMatch(k_j -> k_j >= 0),
                 "All k_j's must be greater than or equal to 0");
 
-        BigInteger p_hat = publicParameters.getIdentificationGroup().getP_hat();
         BigInteger q_hat = publicParameters.getIdentificationGroup().getQ_hat();
-        BigInteger g_hat = publicParameters.getIdentificationGroup().getG_hat();
 
         List<BigInteger> h_js = IntStream.range(0, publicParameters.getS()).parallel()
                 .mapToObj(upper_bold_p_prime::get)
@@ -97,7 +95,7 @@ public class VoteConfirmationClientAlgorithms {
         BigInteger y = conversion.toInteger(upper_y, publicParameters.getUpper_a_y())
                 .add(h_js.stream().reduce(BigInteger::add).orElse(ZERO))
                 .mod(q_hat);
-        BigInteger y_hat = modExp(g_hat, y, p_hat);
+        BigInteger y_hat = publicParameters.getIdentificationGroup().getG_hatExponentiator().modExp(y);
         NonInteractiveZKP pi = genConfirmationProof(y, y_hat);
 
         return new Confirmation(y_hat, pi);
@@ -150,7 +148,8 @@ public class VoteConfirmationClientAlgorithms {
                                 point.y.compareTo(p_prime) < 0),
                 "All points' coordinates must be in Z_p_prime");
 
-        BigInteger y = ZERO;
+        List<BigInteger> bold_n = new ArrayList<>();
+        List<BigInteger> bold_d = new ArrayList<>();
         for (int i = 0; i < bold_p.size(); i++) {
             BigInteger n = BigInteger.ONE;
             BigInteger d = BigInteger.ONE;
@@ -163,9 +162,17 @@ public class VoteConfirmationClientAlgorithms {
                     d = d.multiply(x_j.subtract(x_i)).mod(p_prime);
                 }
             }
+            bold_n.add(n);
+            bold_d.add(d);
+        }
+        // all the denominators are inverted at once
+        List<BigInteger> bold_d_inverse = modInverse(bold_d, p_prime);
+
+        BigInteger y = ZERO;
+        for (int i = 0; i < bold_p.size(); i++) {
             BigInteger y_i = bold_p.get(i).y;
 
-            y = y.add(y_i.multiply(n.multiply(d.modInverse(p_prime)))).mod(p_prime);
+            y = y.add(y_i.multiply(bold_n.get(i).multiply(bold_d_inverse.get(i)))).mod(p_prime);
         }
 
         return y;
@@ -179,9 +186,7 @@ public class VoteConfirmationClientAlgorithms {
      * @return a proof of knowledge of the secret confirmation credential
      */
     public NonInteractiveZKP genConfirmationProof(BigInteger y, BigInteger y_hat) {
-        BigInteger p_hat = publicParameters.getIdentificationGroup().getP_hat();
         BigInteger q_hat = publicParameters.getIdentificationGroup().getQ_hat();
-        BigInteger g_hat = publicParameters.getIdentificationGroup().getG_hat();
         int tau = publicParameters.getSecurityParameters().getTau();
 
         //noinspection SuspiciousNameCombination
@@ -192,7 +197,7 @@ public class VoteConfirmationClientAlgorithms {
 
         BigInteger omega = randomGenerator.randomInZq(q_hat);
 
-        BigInteger t = modExp(g_hat, omega, p_hat);
+        BigInteger t = publicParameters.getIdentificationGroup().getG_hatExponentiator().modExp(omega);
         BigInteger[] bold_v = new BigInteger[]{y_hat};
         BigInteger[] bold_t = new BigInteger[]{t};
         BigInteger c = generalAlgorithms.getNIZKPChallenge(bold_v, bold_t, tau);
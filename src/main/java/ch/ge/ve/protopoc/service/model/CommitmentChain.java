@@ -21,8 +21,6 @@
 
 package ch.ge.ve.protopoc.service.model;
 
-import com.google.common.collect.ImmutableList;
-
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Objects;
@@ -35,16 +33,16 @@ public final class CommitmentChain {
     private final List<BigInteger> bold_r;
 
     public CommitmentChain(List<BigInteger> bold_c, List<BigInteger> bold_r) {
-        this.bold_c = ImmutableList.copyOf(bold_c);
-        this.bold_r = ImmutableList.copyOf(bold_r);
+        this.bold_c = GroupElementVector.copyOf(bold_c);
+        this.bold_r = GroupElementVector.secretCopyOf(bold_r);
     }
 
     public List<BigInteger> getBold_c() {
-        return ImmutableList.copyOf(bold_c);
+        return bold_c;
     }
 
     public List<BigInteger> getBold_r() {
-        return ImmutableList.copyOf(bold_r);
+        return bold_r;
     }
 
     @Override
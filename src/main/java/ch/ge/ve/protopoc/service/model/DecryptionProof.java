@@ -21,8 +21,6 @@
 
 package ch.ge.ve.protopoc.service.model;
 
-import com.google.common.collect.ImmutableList;
-
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Objects;
@@ -35,12 +33,12 @@ public final class DecryptionProof {
     private final BigInteger s;
 
     public DecryptionProof(List<BigInteger> t, BigInteger s) {
-        this.t = ImmutableList.copyOf(t);
+        this.t = GroupElementVector.copyOf(t);
         this.s = s;
     }
 
     public List<BigInteger> getT() {
-        return ImmutableList.copyOf(t);
+        return t;
     }
 
     public BigInteger getS() {
@@ -21,6 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
 import com.google.common.base.Preconditions;
 
 import java.math.BigInteger;
@@ -49,6 +50,12 @@ public final class EncryptionGroup {
      */
     private final BigInteger h;
 
+    /**
+     * Fixed-base exponentiation tables for g and h, built on first use
+     */
+    private volatile FixedBaseExponentiator gExponentiator;
+    private volatile FixedBaseExponentiator hExponentiator;
+
     public EncryptionGroup(BigInteger p, BigInteger q, BigInteger g, BigInteger h) {
         // TODO define required certainty levels
         Preconditions.checkArgument(p.isProbablePrime(100));
@@ -78,6 +85,42 @@ public final class EncryptionGroup {
         return h;
     }
 
+    /**
+     * @return the fixed-base exponentiator for g, covering all exponents in Z_q; its table only speeds up the public
+     * exponents
+     */
+    public FixedBaseExponentiator getGExponentiator() {
+        FixedBaseExponentiator exponentiator = gExponentiator;
+        if (exponentiator == null) {
+            synchronized (this) {
+                exponentiator = gExponentiator;
+                if (exponentiator == null) {
+                    exponentiator = new FixedBaseExponentiator(g, p, q.bitLength());
+                    gExponentiator = exponentiator;
+                }
+            }
+        }
+        return exponentiator;
+    }
+
+    /**
+     * @return the fixed-base exponentiator for h, covering all exponents in Z_q; its table only speeds up the public
+     * exponents
+     */
+    public FixedBaseExponentiator getHExponentiator() {
+        FixedBaseExponentiator exponentiator = hExponentiator;
+        if (exponentiator == null) {
+            synchronized (this) {
+                exponentiator = hExponentiator;
+                if (exponentiator == null) {
+                    exponentiator = new FixedBaseExponentiator(h, p, q.bitLength());
+                    hExponentiator = exponentiator;
+                }
+            }
+        }
+        return exponentiator;
+    }
+
     @Override
     public String toString() {
         return "EncryptionGroup{" +
@@ -21,6 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
 import ch.ge.ve.protopoc.service.support.Conversion;
 
 import java.math.BigInteger;
@@ -33,6 +34,10 @@ public final class EncryptionPublicKey implements PublicKey {
     private final BigInteger publicKey;
     private final EncryptionGroup encryptionGroup;
     private final transient Conversion conversion = new Conversion();
+    /**
+     * Fixed-base exponentiation table for the public key, built on first use
+     */
+    private transient volatile FixedBaseExponentiator exponentiator;
 
     public EncryptionPublicKey(BigInteger publicKey, EncryptionGroup encryptionGroup) {
         this.publicKey = publicKey;
@@ -62,4 +67,23 @@ public final class EncryptionPublicKey implements PublicKey {
     public EncryptionGroup getEncryptionGroup() {
         return encryptionGroup;
     }
+
+    /**
+     * @return the fixed-base exponentiator for this public key, covering all exponents in Z_q; its table only speeds
+     * up the public exponents
+     */
+    public FixedBaseExponentiator getExponentiator() {
+        FixedBaseExponentiator result = exponentiator;
+        if (result == null) {
+            synchronized (this) {
+                result = exponentiator;
+                if (result == null) {
+                    result = new FixedBaseExponentiator(publicKey, encryptionGroup.getP(),
+                            encryptionGroup.getQ().bitLength());
+                    exponentiator = result;
+                }
+            }
+        }
+        return result;
+    }
 }
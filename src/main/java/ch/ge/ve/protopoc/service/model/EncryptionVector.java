@@ -0,0 +1,177 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable vector of ElGamal encryptions, storing the components <tt>a</tt> and <tt>b</tt> in two
+ * {@link GroupElementVector}s
+ * <p>The {@link Encryption} objects are created lazily, each time they are accessed. Like their components, large
+ * vectors may be stored in memory-mapped files (see {@link VectorStorage}).</p>
+ */
+public final class EncryptionVector extends AbstractList<Encryption> implements RandomAccess {
+    private final GroupElementVector bold_a;
+    private final GroupElementVector bold_b;
+
+    private EncryptionVector(GroupElementVector bold_a, GroupElementVector bold_b) {
+        Preconditions.checkArgument(bold_a.size() == bold_b.size(),
+                "there should be as many a components as b components");
+        this.bold_a = bold_a;
+        this.bold_b = bold_b;
+    }
+
+    /**
+     * Create a compact copy of a list of encryptions
+     *
+     * @param encryptions the encryptions to copy
+     * @return the compact vector, or <tt>encryptions</tt> itself if it already is one
+     */
+    public static EncryptionVector copyOf(List<Encryption> encryptions) {
+        if (encryptions instanceof EncryptionVector) {
+            return (EncryptionVector) encryptions;
+        }
+        return new EncryptionVector(GroupElementVector.copyOf(aComponents(encryptions)),
+                GroupElementVector.copyOf(bComponents(encryptions)));
+    }
+
+    /**
+     * Compute the vector <tt>(f(0), ..., f(n - 1))</tt> in parallel, writing each encryption directly into its records
+     *
+     * @param n     the size of the vector
+     * @param width the width of the records, in bytes, large enough for every component
+     * @param f     the function computing the encryption at a given index
+     * @return the vector
+     */
+    public static EncryptionVector fill(int n, int width, IntFunction<Encryption> f) {
+        Builder builder = builder(n, width);
+        IntStream.range(0, n).parallel().forEach(i -> builder.set(i, f.apply(i)));
+        return builder.build();
+    }
+
+    /**
+     * @param n     the size of the vector
+     * @param width the width of the records, in bytes
+     * @return a builder for a vector of <tt>n</tt> encryptions
+     */
+    public static Builder builder(int n, int width) {
+        return new Builder(GroupElementVector.builder(n, width), GroupElementVector.builder(n, width));
+    }
+
+    /**
+     * The <tt>a</tt> components of a list of encryptions, without copying them
+     *
+     * @param encryptions the list of encryptions
+     * @return the component vector if the list is an encryption vector, a read-only view on the list otherwise
+     */
+    public static List<BigInteger> aComponents(List<Encryption> encryptions) {
+        if (encryptions instanceof EncryptionVector) {
+            return ((EncryptionVector) encryptions).bold_a;
+        }
+        return Collections.unmodifiableList(Lists.transform(encryptions, Encryption::getA));
+    }
+
+    /**
+     * The <tt>b</tt> components of a list of encryptions, without copying them
+     *
+     * @param encryptions the list of encryptions
+     * @return the component vector if the list is an encryption vector, a read-only view on the list otherwise
+     */
+    public static List<BigInteger> bComponents(List<Encryption> encryptions) {
+        if (encryptions instanceof EncryptionVector) {
+            return ((EncryptionVector) encryptions).bold_b;
+        }
+        return Collections.unmodifiableList(Lists.transform(encryptions, Encryption::getB));
+    }
+
+    /**
+     * @return the vector of the <tt>a</tt> components of the encryptions
+     */
+    public GroupElementVector getBold_a() {
+        return bold_a;
+    }
+
+    /**
+     * @return the vector of the <tt>b</tt> components of the encryptions
+     */
+    public GroupElementVector getBold_b() {
+        return bold_b;
+    }
+
+    @Override
+    public Encryption get(int index) {
+        return new Encryption(bold_a.get(index), bold_b.get(index));
+    }
+
+    @Override
+    public int size() {
+        return bold_a.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof EncryptionVector) {
+            EncryptionVector that = (EncryptionVector) o;
+            return bold_a.equals(that.bold_a) && bold_b.equals(that.bold_b);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Builder writing the encryptions of a vector at arbitrary indices, possibly from several threads at once as long
+     * as they write at distinct indices
+     */
+    public static final class Builder {
+        private final GroupElementVector.Builder bold_a;
+        private final GroupElementVector.Builder bold_b;
+
+        private Builder(GroupElementVector.Builder bold_a, GroupElementVector.Builder bold_b) {
+            this.bold_a = bold_a;
+            this.bold_b = bold_b;
+        }
+
+        public Builder set(int index, Encryption encryption) {
+            bold_a.set(index, encryption.getA());
+            bold_b.set(index, encryption.getB());
+            return this;
+        }
+
+        public EncryptionVector build() {
+            return new EncryptionVector(bold_a.build(), bold_b.build());
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable vector of group elements (or of any non-negative numbers), stored as fixed-width big-endian records
+ * <p>A 2048-bit element takes 256 bytes, instead of a {@link BigInteger} object holding a separate <tt>int[]</tt>
+ * magnitude. The elements are converted back into {@link BigInteger}s lazily, each time they are accessed.</p>
+ * <p>The records are kept in a contiguous heap array, or in a memory-mapped file for vectors above the limit set by
+ * the <tt>protopoc.storage.heapVectorLimit</tt> property (see {@link VectorStorage}). Secret values must be stored
+ * with {@link #secretBuilder(int, int)}, {@link #secretFill(int, int, IntFunction)} or
+ * {@link #secretCopyOf(List)}, which always keep the records on the heap.</p>
+ */
+public final class GroupElementVector extends AbstractList<BigInteger> implements RandomAccess {
+    private final VectorStorage storage;
+
+    private GroupElementVector(VectorStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Create a compact copy of a list of numbers, using the byte length of the largest value as the width
+     *
+     * @param values the values to copy, all non-negative
+     * @return the compact vector, or <tt>values</tt> itself if it already is one
+     */
+    public static GroupElementVector copyOf(List<BigInteger> values) {
+        return copyOf(values, false);
+    }
+
+    /**
+     * Same as {@link #copyOf(List)}, for secret values: the copy is always kept on the heap
+     *
+     * @param values the secret values to copy, all non-negative
+     * @return the compact vector, or <tt>values</tt> itself if it already is one kept on the heap
+     */
+    public static GroupElementVector secretCopyOf(List<BigInteger> values) {
+        return copyOf(values, true);
+    }
+
+    private static GroupElementVector copyOf(List<BigInteger> values, boolean secret) {
+        if (values instanceof GroupElementVector && (!secret || ((GroupElementVector) values).storage.isOnHeap())) {
+            return (GroupElementVector) values;
+        }
+        if (!(values instanceof RandomAccess)) {
+            values = new ArrayList<>(values);
+        }
+        int width = 1;
+        for (BigInteger value : values) {
+            Preconditions.checkArgument(value.signum() >= 0, "the values must not be negative");
+            width = Math.max(width, (value.bitLength() + 7) / 8);
+        }
+        return secret ? secretFill(values.size(), width, values::get) : fill(values.size(), width, values::get);
+    }
+
+    /**
+     * Compute the vector <tt>(f(0), ..., f(n - 1))</tt> in parallel, writing each value directly into its record
+     *
+     * @param n     the size of the vector
+     * @param width the width of the records, in bytes, large enough for every value
+     * @param f     the function computing the value at a given index
+     * @return the vector
+     */
+    public static GroupElementVector fill(int n, int width, IntFunction<BigInteger> f) {
+        return fill(builder(n, width), n, f);
+    }
+
+    /**
+     * Same as {@link #fill(int, int, IntFunction)}, for secret values: the vector is always kept on the heap
+     *
+     * @param n     the size of the vector
+     * @param width the width of the records, in bytes, large enough for every value
+     * @param f     the function computing the secret value at a given index
+     * @return the vector
+     */
+    public static GroupElementVector secretFill(int n, int width, IntFunction<BigInteger> f) {
+        return fill(secretBuilder(n, width), n, f);
+    }
+
+    private static GroupElementVector fill(Builder builder, int n, IntFunction<BigInteger> f) {
+        IntStream.range(0, n).parallel().forEach(i -> builder.set(i, f.apply(i)));
+        return builder.build();
+    }
+
+    /**
+     * @param n     the size of the vector
+     * @param width the width of the records, in bytes
+     * @return a builder for a vector of <tt>n</tt> values, initially all zero
+     */
+    public static Builder builder(int n, int width) {
+        return new Builder(VectorStorage.allocate(n, width));
+    }
+
+    /**
+     * @param n     the size of the vector
+     * @param width the width of the records, in bytes
+     * @return a builder for a vector of <tt>n</tt> secret values, initially all zero, always kept on the heap
+     */
+    public static Builder secretBuilder(int n, int width) {
+        return new Builder(VectorStorage.allocateOnHeap(n, width));
+    }
+
+    /**
+     * @param modulus the modulus of the group
+     * @return the width, in bytes, of the records needed to store values modulo <tt>modulus</tt>
+     */
+    public static int widthFor(BigInteger modulus) {
+        return Math.max(1, (modulus.bitLength() + 7) / 8);
+    }
+
+    @Override
+    public BigInteger get(int index) {
+        Preconditions.checkElementIndex(index, storage.size);
+        byte[] bytes = new byte[storage.width];
+        storage.read(index, bytes);
+        return new BigInteger(1, bytes);
+    }
+
+    @Override
+    public int size() {
+        return storage.size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof GroupElementVector) {
+            VectorStorage other = ((GroupElementVector) o).storage;
+            if (storage.width == other.width) {
+                return storage.sameContent(other);
+            }
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Builder writing the values of a vector at arbitrary indices, possibly from several threads at once as long as
+     * they write at distinct indices
+     */
+    public static final class Builder {
+        private final VectorStorage storage;
+        private boolean built;
+
+        private Builder(VectorStorage storage) {
+            this.storage = storage;
+        }
+
+        /**
+         * @param index the index of the value
+         * @param value the value, non-negative and fitting in the width of the records
+         * @return this builder
+         */
+        public Builder set(int index, BigInteger value) {
+            Preconditions.checkState(!built, "the vector has already been built");
+            Preconditions.checkElementIndex(index, storage.size);
+            Preconditions.checkArgument(value.signum() >= 0, "the values must not be negative");
+            byte[] bytes = value.toByteArray();
+            // toByteArray may add a leading zero byte for the sign
+            int offset = bytes.length > 1 && bytes[0] == 0 ? 1 : 0;
+            int length = bytes.length - offset;
+            Preconditions.checkArgument(length <= storage.width, "the value does not fit in the width of the vector");
+            storage.write(index, bytes, offset, length);
+            return this;
+        }
+
+        public GroupElementVector build() {
+            built = true;
+            return new GroupElementVector(storage);
+        }
+    }
+}
@@ -21,6 +21,7 @@
 
 package ch.ge.ve.protopoc.service.model;
 
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
 import com.google.common.base.Preconditions;
 
 import java.math.BigInteger;
@@ -33,6 +34,11 @@ public final class IdentificationGroup {
     private final BigInteger q_hat;
     private final BigInteger g_hat;
 
+    /**
+     * Fixed-base exponentiation table for g_hat, built on first use
+     */
+    private volatile FixedBaseExponentiator g_hatExponentiator;
+
     public IdentificationGroup(BigInteger p_hat, BigInteger q_hat, BigInteger g_hat) {
         Preconditions.checkArgument(q_hat.bitLength() <= p_hat.bitLength());
         Preconditions.checkArgument(g_hat.compareTo(BigInteger.ONE) != 0);
@@ -54,4 +60,22 @@ public final class IdentificationGroup {
     public BigInteger getG_hat() {
         return g_hat;
     }
+
+    /**
+     * @return the fixed-base exponentiator for g_hat, covering all exponents in Z_q_hat; its table only speeds up the
+     * public exponents
+     */
+    public FixedBaseExponentiator getG_hatExponentiator() {
+        FixedBaseExponentiator exponentiator = g_hatExponentiator;
+        if (exponentiator == null) {
+            synchronized (this) {
+                exponentiator = g_hatExponentiator;
+                if (exponentiator == null) {
+                    exponentiator = new FixedBaseExponentiator(g_hat, p_hat, q_hat.bitLength());
+                    g_hatExponentiator = exponentiator;
+                }
+            }
+        }
+        return exponentiator;
+    }
 }
@@ -0,0 +1,268 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Model class representing the offline phase of a shuffle and of its proof (algorithms 7.41 and 7.44): everything
+ * that depends on the number of encryptions <tt>N</tt> and on the public key, but not on the encryptions themselves
+ * <p>A precomputation must only ever be used for a single shuffle.</p>
+ */
+public final class MixingPrecomputation {
+    private final EncryptionPublicKey publicKey;
+    private final Permutation psy;
+    private final List<BigInteger> bold_h;
+    private final PermutationCommitment permutationCommitment;
+    private final List<BigInteger> bold_r_hat;
+    private final List<BigInteger> bold_g_r_hat;
+    private final Omega omega;
+    private final PartialT partialT;
+
+    /**
+     * @param publicKey             the public key the precomputation is made for
+     * @param psy                   the permutation
+     * @param bold_h                the independent generators
+     * @param permutationCommitment the commitment to the permutation
+     * @param bold_r_hat            the randomness of the commitment chain
+     * @param bold_g_r_hat          the values <tt>g ^ r_hat_i</tt>
+     * @param omega                 the randomness of the proof commitments
+     * @param partialT              the ciphertext-independent parts of the proof commitments
+     */
+    public MixingPrecomputation(EncryptionPublicKey publicKey, Permutation psy, List<BigInteger> bold_h,
+                                PermutationCommitment permutationCommitment, List<BigInteger> bold_r_hat,
+                                List<BigInteger> bold_g_r_hat, Omega omega, PartialT partialT) {
+        int upper_n = psy.size();
+        Preconditions.checkNotNull(publicKey, "the public key is required");
+        Preconditions.checkArgument(bold_h.size() == upper_n, "there should be one generator per encryption");
+        Preconditions.checkArgument(bold_r_hat.size() == upper_n && bold_g_r_hat.size() == upper_n,
+                "there should be one commitment chain randomization per encryption");
+        this.publicKey = publicKey;
+        this.psy = psy;
+        this.bold_h = GroupElementVector.copyOf(bold_h);
+        this.permutationCommitment = permutationCommitment;
+        this.bold_r_hat = GroupElementVector.secretCopyOf(bold_r_hat);
+        this.bold_g_r_hat = GroupElementVector.copyOf(bold_g_r_hat);
+        this.omega = omega;
+        this.partialT = partialT;
+    }
+
+    /**
+     * @return the number of encryptions this precomputation is meant for
+     */
+    public int getUpper_n() {
+        return psy.size();
+    }
+
+    public EncryptionPublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    public Permutation getPsy() {
+        return psy;
+    }
+
+    public List<BigInteger> getBold_h() {
+        return bold_h;
+    }
+
+    public PermutationCommitment getPermutationCommitment() {
+        return permutationCommitment;
+    }
+
+    public List<BigInteger> getBold_r_hat() {
+        return bold_r_hat;
+    }
+
+    public List<BigInteger> getBold_g_r_hat() {
+        return bold_g_r_hat;
+    }
+
+    public Omega getOmega() {
+        return omega;
+    }
+
+    public PartialT getPartialT() {
+        return partialT;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MixingPrecomputation that = (MixingPrecomputation) o;
+        return Objects.equals(publicKey.getPublicKey(), that.publicKey.getPublicKey()) &&
+                Objects.equals(psy, that.psy) &&
+                Objects.equals(bold_h, that.bold_h) &&
+                Objects.equals(permutationCommitment, that.permutationCommitment) &&
+                Objects.equals(bold_r_hat, that.bold_r_hat) &&
+                Objects.equals(bold_g_r_hat, that.bold_g_r_hat) &&
+                Objects.equals(omega, that.omega) &&
+                Objects.equals(partialT, that.partialT);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(publicKey.getPublicKey(), psy, bold_h, permutationCommitment, bold_r_hat, bold_g_r_hat, omega, partialT);
+    }
+
+    /**
+     * The randomness <tt>omega_1, ..., omega_4</tt>, <tt>bold_omega_hat</tt> and <tt>bold_omega_prime</tt> of the
+     * proof commitments
+     */
+    public static final class Omega {
+        private final BigInteger omega_1;
+        private final BigInteger omega_2;
+        private final BigInteger omega_3;
+        private final BigInteger omega_4;
+        private final List<BigInteger> bold_omega_hat;
+        private final List<BigInteger> bold_omega_prime;
+
+        public Omega(BigInteger omega_1, BigInteger omega_2, BigInteger omega_3, BigInteger omega_4,
+                     List<BigInteger> bold_omega_hat, List<BigInteger> bold_omega_prime) {
+            this.omega_1 = omega_1;
+            this.omega_2 = omega_2;
+            this.omega_3 = omega_3;
+            this.omega_4 = omega_4;
+            this.bold_omega_hat = GroupElementVector.secretCopyOf(bold_omega_hat);
+            this.bold_omega_prime = GroupElementVector.secretCopyOf(bold_omega_prime);
+        }
+
+        public BigInteger getOmega_1() {
+            return omega_1;
+        }
+
+        public BigInteger getOmega_2() {
+            return omega_2;
+        }
+
+        public BigInteger getOmega_3() {
+            return omega_3;
+        }
+
+        public BigInteger getOmega_4() {
+            return omega_4;
+        }
+
+        public List<BigInteger> getBold_omega_hat() {
+            return bold_omega_hat;
+        }
+
+        public List<BigInteger> getBold_omega_prime() {
+            return bold_omega_prime;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Omega omega = (Omega) o;
+            return Objects.equals(omega_1, omega.omega_1) &&
+                    Objects.equals(omega_2, omega.omega_2) &&
+                    Objects.equals(omega_3, omega.omega_3) &&
+                    Objects.equals(omega_4, omega.omega_4) &&
+                    Objects.equals(bold_omega_hat, omega.bold_omega_hat) &&
+                    Objects.equals(bold_omega_prime, omega.bold_omega_prime);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(omega_1, omega_2, omega_3, omega_4, bold_omega_hat, bold_omega_prime);
+        }
+    }
+
+    /**
+     * The parts of the proof commitments that do not depend on the encryptions: <tt>t_1</tt>, <tt>t_2</tt> and
+     * <tt>t_3</tt> in full, the factors <tt>pk ^ -omega_4</tt> and <tt>g ^ -omega_4</tt> of <tt>t_4</tt>, and the
+     * factors <tt>g ^ omega_hat_i</tt> of <tt>t_hat_i</tt>
+     */
+    public static final class PartialT {
+        private final BigInteger t_1;
+        private final BigInteger t_2;
+        private final BigInteger t_3;
+        private final BigInteger pk_omega_4;
+        private final BigInteger g_omega_4;
+        private final List<BigInteger> bold_g_omega_hat;
+
+        public PartialT(BigInteger t_1, BigInteger t_2, BigInteger t_3, BigInteger pk_omega_4, BigInteger g_omega_4,
+                        List<BigInteger> bold_g_omega_hat) {
+            this.t_1 = t_1;
+            this.t_2 = t_2;
+            this.t_3 = t_3;
+            this.pk_omega_4 = pk_omega_4;
+            this.g_omega_4 = g_omega_4;
+            this.bold_g_omega_hat = GroupElementVector.copyOf(bold_g_omega_hat);
+        }
+
+        public BigInteger getT_1() {
+            return t_1;
+        }
+
+        public BigInteger getT_2() {
+            return t_2;
+        }
+
+        public BigInteger getT_3() {
+            return t_3;
+        }
+
+        /**
+         * @return <tt>pk ^ -omega_4</tt>
+         */
+        public BigInteger getPk_omega_4() {
+            return pk_omega_4;
+        }
+
+        /**
+         * @return <tt>g ^ -omega_4</tt>
+         */
+        public BigInteger getG_omega_4() {
+            return g_omega_4;
+        }
+
+        public List<BigInteger> getBold_g_omega_hat() {
+            return bold_g_omega_hat;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            PartialT partialT = (PartialT) o;
+            return Objects.equals(t_1, partialT.t_1) &&
+                    Objects.equals(t_2, partialT.t_2) &&
+                    Objects.equals(t_3, partialT.t_3) &&
+                    Objects.equals(pk_omega_4, partialT.pk_omega_4) &&
+                    Objects.equals(g_omega_4, partialT.g_omega_4) &&
+                    Objects.equals(bold_g_omega_hat, partialT.bold_g_omega_hat);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(t_1, t_2, t_3, pk_omega_4, g_omega_4, bold_g_omega_hat);
+        }
+    }
+}
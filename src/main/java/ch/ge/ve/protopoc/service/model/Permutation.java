@@ -0,0 +1,149 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Ints;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Model class representing a permutation psy of the indices <tt>0</tt> to <tt>N - 1</tt> (0 based, to mirror java
+ * indices), backed by an array of ints
+ * <p>Validation, inversion and application of the permutation are all linear in its size.</p>
+ */
+public final class Permutation {
+    private final int[] psy;
+
+    private Permutation(int[] psy) {
+        this.psy = psy;
+    }
+
+    /**
+     * Create a permutation from its values
+     *
+     * @param psy the values <tt>psy(0), ..., psy(N - 1)</tt>
+     * @return the permutation
+     * @throws IllegalArgumentException if the values are not a permutation of <tt>0, ..., N - 1</tt>
+     */
+    public static Permutation of(int... psy) {
+        int[] values = psy.clone();
+        boolean[] seen = new boolean[values.length];
+        for (int value : values) {
+            Preconditions.checkArgument(value >= 0 && value < values.length && !seen[value],
+                    "The permutation should contain all number from 0 (inclusive) to length (exclusive)");
+            seen[value] = true;
+        }
+        return new Permutation(values);
+    }
+
+    /**
+     * Create a permutation from its values
+     *
+     * @param psy the values <tt>psy(0), ..., psy(N - 1)</tt>
+     * @return the permutation
+     * @throws IllegalArgumentException if the values are not a permutation of <tt>0, ..., N - 1</tt>
+     */
+    public static Permutation of(List<Integer> psy) {
+        return of(Ints.toArray(psy));
+    }
+
+    public int size() {
+        return psy.length;
+    }
+
+    /**
+     * @param i an index
+     * @return <tt>psy(i)</tt>
+     */
+    public int get(int i) {
+        return psy[i];
+    }
+
+    /**
+     * @return the inverse permutation, mapping <tt>psy(i)</tt> to <tt>i</tt>
+     */
+    public Permutation inverse() {
+        int[] inverse = new int[psy.length];
+        for (int i = 0; i < psy.length; i++) {
+            inverse[psy[i]] = i;
+        }
+        return new Permutation(inverse);
+    }
+
+    /**
+     * Apply the permutation to a list
+     *
+     * @param elements the list to permute, of the same size as the permutation
+     * @param <T>      the type of the elements
+     * @return the list <tt>elements(psy(0)), ..., elements(psy(N - 1))</tt>
+     */
+    public <T> List<T> apply(List<T> elements) {
+        Preconditions.checkArgument(elements.size() == psy.length,
+                "The list should have the same size as the permutation");
+        Object[] permuted = new Object[psy.length];
+        for (int i = 0; i < psy.length; i++) {
+            permuted[i] = elements.get(psy[i]);
+        }
+        @SuppressWarnings("unchecked")
+        List<T> result = (List<T>) Arrays.asList(permuted);
+        return result;
+    }
+
+    /**
+     * @return a read-only view of the values of the permutation
+     */
+    public List<Integer> asList() {
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return psy[index];
+            }
+
+            @Override
+            public int size() {
+                return psy.length;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Permutation that = (Permutation) o;
+        return Arrays.equals(psy, that.psy);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(psy);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(psy);
+    }
+}
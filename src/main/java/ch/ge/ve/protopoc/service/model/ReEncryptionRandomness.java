@@ -0,0 +1,95 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.base.Preconditions;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * Model class representing the ballot-independent part of a re-encryption: the randomness <tt>r'</tt>, along with
+ * <tt>pk ^ r'</tt> and <tt>g ^ r'</tt>
+ * <p>Such a tuple may be computed ahead of time, but must only ever be used for a single re-encryption, under the
+ * public key it was computed for.</p>
+ */
+public final class ReEncryptionRandomness {
+    private final EncryptionPublicKey publicKey;
+    private final BigInteger r_prime;
+    private final BigInteger pk_r_prime;
+    private final BigInteger g_r_prime;
+
+    /**
+     * @param publicKey  the public key <tt>pk</tt> the tuple is computed for
+     * @param r_prime    the randomness
+     * @param pk_r_prime the value <tt>pk ^ r'</tt>
+     * @param g_r_prime  the value <tt>g ^ r'</tt>
+     */
+    public ReEncryptionRandomness(EncryptionPublicKey publicKey, BigInteger r_prime, BigInteger pk_r_prime,
+                                  BigInteger g_r_prime) {
+        this.publicKey = Preconditions.checkNotNull(publicKey, "the public key is required");
+        this.r_prime = r_prime;
+        this.pk_r_prime = pk_r_prime;
+        this.g_r_prime = g_r_prime;
+    }
+
+    public EncryptionPublicKey getPublicKey() {
+        return publicKey;
+    }
+
+    public BigInteger getR_prime() {
+        return r_prime;
+    }
+
+    public BigInteger getPk_r_prime() {
+        return pk_r_prime;
+    }
+
+    public BigInteger getG_r_prime() {
+        return g_r_prime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ReEncryptionRandomness that = (ReEncryptionRandomness) o;
+        return Objects.equals(publicKey.getPublicKey(), that.publicKey.getPublicKey()) &&
+                Objects.equals(r_prime, that.r_prime) &&
+                Objects.equals(pk_r_prime, that.pk_r_prime) &&
+                Objects.equals(g_r_prime, that.g_r_prime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(publicKey.getPublicKey(), r_prime, pk_r_prime, g_r_prime);
+    }
+
+    @Override
+    public String toString() {
+        return "ReEncryptionRandomness{" +
+                "r_prime=" + r_prime +
+                ", pk_r_prime=" + pk_r_prime +
+                ", g_r_prime=" + g_r_prime +
+                '}';
+    }
+}
@@ -0,0 +1,82 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.collect.ImmutableList;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Model class representing the part of an oblivious transfer response for election j that does not depend on the
+ * query: the randomness <tt>r_j</tt>, the keys <tt>p_v ^ r_j</tt> for the candidates of the election, and
+ * <tt>d_j = pk ^ r_j</tt>
+ * <p>Such a tuple may be computed ahead of time, but must only ever be used for a single response.</p>
+ */
+public final class ResponseRandomness {
+    private final BigInteger r_j;
+    private final List<BigInteger> bold_k;
+    private final BigInteger d_j;
+
+    public ResponseRandomness(BigInteger r_j, List<BigInteger> bold_k, BigInteger d_j) {
+        this.r_j = r_j;
+        this.bold_k = ImmutableList.copyOf(bold_k);
+        this.d_j = d_j;
+    }
+
+    public BigInteger getR_j() {
+        return r_j;
+    }
+
+    public List<BigInteger> getBold_k() {
+        return bold_k;
+    }
+
+    public BigInteger getD_j() {
+        return d_j;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ResponseRandomness that = (ResponseRandomness) o;
+        return Objects.equals(r_j, that.r_j) &&
+                Objects.equals(bold_k, that.bold_k) &&
+                Objects.equals(d_j, that.d_j);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(r_j, bold_k, d_j);
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseRandomness{" +
+                "r_j=" + r_j +
+                ", bold_k=" + bold_k +
+                ", d_j=" + d_j +
+                '}';
+    }
+}
@@ -21,8 +21,6 @@
 
 package ch.ge.ve.protopoc.service.model;
 
-import com.google.common.collect.ImmutableList;
-
 import java.math.BigInteger;
 import java.util.List;
 import java.util.Objects;
@@ -33,24 +31,24 @@ import java.util.Objects;
 public final class Shuffle {
     private final List<Encryption> bold_e_prime;
     private final List<BigInteger> bold_r_prime;
-    private final List<Integer> psy;
+    private final Permutation psy;
 
-    public Shuffle(List<Encryption> bold_e_prime, List<BigInteger> bold_r_prime, List<Integer> psy) {
-        this.bold_e_prime = ImmutableList.copyOf(bold_e_prime);
-        this.bold_r_prime = ImmutableList.copyOf(bold_r_prime);
-        this.psy = ImmutableList.copyOf(psy);
+    public Shuffle(List<Encryption> bold_e_prime, List<BigInteger> bold_r_prime, Permutation psy) {
+        this.bold_e_prime = EncryptionVector.copyOf(bold_e_prime);
+        this.bold_r_prime = GroupElementVector.secretCopyOf(bold_r_prime);
+        this.psy = psy;
     }
 
     public List<Encryption> getBold_e_prime() {
-        return ImmutableList.copyOf(bold_e_prime);
+        return bold_e_prime;
     }
 
     public List<BigInteger> getBold_r_prime() {
-        return ImmutableList.copyOf(bold_r_prime);
+        return bold_r_prime;
     }
 
-    public List<Integer> getPsy() {
-        return ImmutableList.copyOf(psy);
+    public Permutation getPsy() {
+        return psy;
     }
 
     @Override
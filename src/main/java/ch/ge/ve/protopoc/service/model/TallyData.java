@@ -39,8 +39,8 @@ public final class TallyData {
 
     public TallyData(List<BigInteger> publicKeyShares, List<Encryption> finalShuffle, List<List<BigInteger>> partialDecryptions, List<DecryptionProof> decryptionProofs) {
         this.publicKeyShares = ImmutableList.copyOf(publicKeyShares);
-        this.finalShuffle = ImmutableList.copyOf(finalShuffle);
-        this.partialDecryptions = partialDecryptions.parallelStream().map(ImmutableList::copyOf)
+        this.finalShuffle = EncryptionVector.copyOf(finalShuffle);
+        this.partialDecryptions = partialDecryptions.stream().map(GroupElementVector::copyOf)
                 .collect(Collectors.toList());
         this.decryptionProofs = ImmutableList.copyOf(decryptionProofs);
     }
@@ -50,12 +50,11 @@ public final class TallyData {
     }
 
     public List<Encryption> getFinalShuffle() {
-        return ImmutableList.copyOf(finalShuffle);
+        return finalShuffle;
     }
 
     public List<List<BigInteger>> getPartialDecryptions() {
-        return partialDecryptions.parallelStream().map(ImmutableList::copyOf)
-                .collect(Collectors.toList());
+        return ImmutableList.copyOf(partialDecryptions);
     }
 
     public List<DecryptionProof> getDecryptionProofs() {
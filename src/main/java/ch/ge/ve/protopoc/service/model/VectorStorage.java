@@ -0,0 +1,210 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.model;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Storage of the fixed-width slots of a {@link GroupElementVector}
+ * <p>Small vectors are kept in a heap byte array. Public vectors (encryptions, commitments, proofs) larger than the
+ * limit set by the <tt>protopoc.storage.heapVectorLimit</tt> property (in bytes, unlimited by default) are stored in
+ * memory-mapped temporary files, created in the directory set by <tt>protopoc.storage.directory</tt>: their content
+ * is then paged in and out by the operating system instead of taking heap space. Without that directory, every vector
+ * stays on the heap.</p>
+ * <p>Secret vectors (randomizations, randomness of the proofs) are {@link #allocateOnHeap(int, int) always kept on
+ * the heap}, so that they are never written to a file.</p>
+ */
+abstract class VectorStorage {
+    static final String HEAP_VECTOR_LIMIT_PROPERTY = "protopoc.storage.heapVectorLimit";
+    static final String DIRECTORY_PROPERTY = "protopoc.storage.directory";
+    /**
+     * Mapped files are split in segments of at most 1 GiB, below the 2 GiB limit of a single mapping
+     */
+    private static final int MAX_SEGMENT_LENGTH = 1 << 30;
+
+    final int width;
+    final int size;
+
+    private VectorStorage(int width, int size) {
+        this.width = width;
+        this.size = size;
+    }
+
+    /**
+     * Allocate the storage for <tt>size</tt> slots of <tt>width</tt> bytes, all set to zero
+     */
+    static VectorStorage allocate(int size, int width) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        long length = (long) size * width;
+        if (directory == null || length <= Long.getLong(HEAP_VECTOR_LIMIT_PROPERTY, Long.MAX_VALUE)) {
+            return allocateOnHeap(size, width);
+        }
+        Preconditions.checkArgument(size >= 0, "the size must not be negative");
+        Preconditions.checkArgument(width > 0, "the width must be positive");
+        return new Mapped(size, width, Paths.get(directory));
+    }
+
+    /**
+     * Allocate the storage for <tt>size</tt> slots of <tt>width</tt> bytes, all set to zero, on the heap whatever
+     * their length: for secret values
+     */
+    static VectorStorage allocateOnHeap(int size, int width) {
+        Preconditions.checkArgument(size >= 0, "the size must not be negative");
+        Preconditions.checkArgument(width > 0, "the width must be positive");
+        Preconditions.checkArgument((long) size * width <= Integer.MAX_VALUE - 8,
+                "too many values to store in a single heap vector; set " + HEAP_VECTOR_LIMIT_PROPERTY + " and " +
+                        DIRECTORY_PROPERTY + " for public vectors");
+        return new Heap(size, width);
+    }
+
+    /**
+     * @return true if the slots are in a heap array
+     */
+    abstract boolean isOnHeap();
+
+    /**
+     * Write a big-endian value, right-aligned in its slot and padded with leading zeros
+     */
+    abstract void write(int index, byte[] bytes, int offset, int length);
+
+    abstract void read(int index, byte[] destination);
+
+    /**
+     * @return true if both storages have identical slots
+     */
+    boolean sameContent(VectorStorage other) {
+        if (width != other.width || size != other.size) {
+            return false;
+        }
+        byte[] mine = new byte[width];
+        byte[] theirs = new byte[width];
+        for (int i = 0; i < size; i++) {
+            read(i, mine);
+            other.read(i, theirs);
+            if (!Arrays.equals(mine, theirs)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Heap extends VectorStorage {
+        private final byte[] data;
+
+        private Heap(int size, int width) {
+            super(width, size);
+            this.data = new byte[size * width];
+        }
+
+        @Override
+        void write(int index, byte[] bytes, int offset, int length) {
+            Arrays.fill(data, index * width, (index + 1) * width - length, (byte) 0);
+            System.arraycopy(bytes, offset, data, (index + 1) * width - length, length);
+        }
+
+        @Override
+        void read(int index, byte[] destination) {
+            System.arraycopy(data, index * width, destination, 0, width);
+        }
+
+        @Override
+        boolean isOnHeap() {
+            return true;
+        }
+
+        @Override
+        boolean sameContent(VectorStorage other) {
+            if (other instanceof Heap) {
+                return width == other.width && Arrays.equals(data, ((Heap) other).data);
+            }
+            return super.sameContent(other);
+        }
+    }
+
+    private static final class Mapped extends VectorStorage {
+        private final int slotsPerSegment;
+        private final ByteBuffer[] segments;
+
+        private Mapped(int size, int width, Path directory) {
+            super(width, size);
+            this.slotsPerSegment = MAX_SEGMENT_LENGTH / width;
+            int segmentCount = Math.max(1, (size + slotsPerSegment - 1) / slotsPerSegment);
+            this.segments = new ByteBuffer[segmentCount];
+            try {
+                Path file = Files.createTempFile(directory, "vector", ".bin");
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE)) {
+                    for (int k = 0; k < segmentCount; k++) {
+                        long position = (long) k * slotsPerSegment * width;
+                        int slots = Math.min(slotsPerSegment, size - k * slotsPerSegment);
+                        segments[k] = channel.map(FileChannel.MapMode.READ_WRITE, position, (long) slots * width);
+                    }
+                } finally {
+                    // the mappings remain valid once the file is unlinked; fall back to deleting it on exit
+                    try {
+                        Files.delete(file);
+                    } catch (IOException e) {
+                        file.toFile().deleteOnExit();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not map a vector of " + size + " elements", e);
+            }
+        }
+
+        @Override
+        boolean isOnHeap() {
+            return false;
+        }
+
+        private ByteBuffer slot(int index) {
+            ByteBuffer segment = segments[index / slotsPerSegment].duplicate();
+            segment.position((index % slotsPerSegment) * width);
+            return segment;
+        }
+
+        @Override
+        void write(int index, byte[] bytes, int offset, int length) {
+            ByteBuffer slot = slot(index);
+            for (int k = length; k < width; k++) {
+                slot.put((byte) 0);
+            }
+            slot.put(bytes, offset, length);
+        }
+
+        @Override
+        void read(int index, byte[] destination) {
+            slot(index).get(destination, 0, width);
+        }
+    }
+}
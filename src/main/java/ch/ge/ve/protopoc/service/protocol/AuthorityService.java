@@ -43,6 +43,8 @@ public interface AuthorityService {
 
     FinalizationCodePart handleConfirmation(Integer voterIndex, Confirmation confirmation);
 
+    void prepareMixing();
+
     void startMixing();
 
     void mixAgain();
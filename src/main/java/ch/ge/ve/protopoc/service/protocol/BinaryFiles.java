@@ -0,0 +1,82 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Helpers for the files in which the authorities persist their precomputations and their intermediate results.
+ * <p>These files hold secret values: they are readable by their owner only, and rewritten atomically through a
+ * temporary file, synced to the disk before being moved into place.</p>
+ */
+final class BinaryFiles {
+    private BinaryFiles() {
+        // static methods only
+    }
+
+    /**
+     * The content of a file
+     */
+    @FunctionalInterface
+    interface Content {
+        void writeTo(DataOutputStream output) throws IOException;
+    }
+
+    /**
+     * Replace the file with the given content, atomically
+     */
+    static void writeAtomically(Path file, Content content) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.deleteIfExists(temporary);
+        try {
+            Files.createFile(temporary, PosixFilePermissions.asFileAttribute(
+                    PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(temporary);
+        }
+        try (FileOutputStream fileOutput = new FileOutputStream(temporary.toFile());
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+            content.writeTo(output);
+            output.flush();
+            fileOutput.getFD().sync();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static void writeBigInteger(DataOutputStream output, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static BigInteger readBigInteger(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+}
@@ -36,7 +36,10 @@ import java.math.BigInteger;
 import java.security.KeyPair;
 import java.util.List;
 import java.util.LongSummaryStatistics;
+import java.util.OptionalInt;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
@@ -68,6 +71,9 @@ public class DefaultAuthority implements AuthorityService {
     private List<Point> publicCredentials;
     private Queue<BallotEntry> ballotEntries = new ConcurrentLinkedQueue<>();
     private Queue<ConfirmationEntry> confirmationEntries = new ConcurrentLinkedQueue<>();
+    private ResponseRandomnessPool responseRandomnessPool;
+    private ReEncryptionRandomnessStore reEncryptionRandomnessStore;
+    private CompletableFuture<MixingPrecomputation> mixingPrecomputation;
 
     public DefaultAuthority(int j, BulletinBoardService bulletinBoardService,
                             KeyEstablishmentAlgorithms keyEstablishmentAlgorithms,
@@ -131,6 +137,45 @@ public class DefaultAuthority implements AuthorityService {
     public void buildPublicCredentials() {
         List<List<Point>> publicCredentialsParts = bulletinBoardService.getPublicCredentialsParts();
         publicCredentials = electionPreparationAlgorithms.getPublicCredentials(publicCredentialsParts);
+        startResponseRandomnessPool();
+        startReEncryptionPrecomputation();
+    }
+
+    /**
+     * The response randomness does not depend on the ballots: precompute it in the background while voting is open
+     */
+    private void startResponseRandomnessPool() {
+        Preconditions.checkState(systemPublicKey != null, "The public key needs to have been built first");
+        Preconditions.checkState(electionSet != null, "The election set needs to have been retrieved first");
+        List<Integer> bold_n = electionSet.getBold_n();
+        responseRandomnessPool = ResponseRandomnessPool.fromSystemProperties(bold_n.size(),
+                election -> voteCastingAuthorityAlgorithms.genResponseRandomness(election, systemPublicKey, bold_n));
+        responseRandomnessPool.start();
+    }
+
+    /**
+     * The re-encryption randomness does not depend on the ballots either: fill the store in the background while
+     * voting is open, for the expected number of ballots
+     */
+    private void startReEncryptionPrecomputation() {
+        reEncryptionRandomnessStore = ReEncryptionRandomnessStore.fromSystemProperties(j, systemPublicKey,
+                () -> mixingAuthorityAlgorithms.genReEncryptionRandomness(systemPublicKey));
+        int targetSize = ReEncryptionRandomnessStore.targetSizeFromSystemProperties(electionSet.getVoters().size());
+        Thread precomputation = new Thread(() -> {
+            try {
+                reEncryptionRandomnessStore.fill(targetSize);
+            } catch (RuntimeException e) {
+                log.error("Authority " + j + " failed to precompute the re-encryption randomness", e);
+            }
+        }, "reencryption-precomputation-" + j);
+        precomputation.setDaemon(true);
+        precomputation.start();
+    }
+
+    private void stopResponseRandomnessPool() {
+        if (responseRandomnessPool != null) {
+            responseRandomnessPool.stop();
+        }
     }
 
     @Override
@@ -153,7 +198,8 @@ public class DefaultAuthority implements AuthorityService {
         stopwatch.reset().start();
         ObliviousTransferResponseAndRand responseAndRand =
                 voteCastingAuthorityAlgorithms.genResponse(voterIndex, ballotAndQuery.getBold_a(), systemPublicKey,
-                        electionSet.getBold_n(), electorateData.getK(), electorateData.getP());
+                        electionSet.getBold_n(), electorateData.getK(), electorateData.getP(),
+                        responseRandomnessPool::take);
         ballotEntries.add(new BallotEntry(voterIndex, ballotAndQuery, responseAndRand.getBold_r()));
         ObliviousTransferResponse beta = responseAndRand.getBeta();
         stopwatch.stop();
@@ -188,9 +234,31 @@ public class DefaultAuthority implements AuthorityService {
         return finalization;
     }
 
+    /**
+     * Once voting is closed, the number of encryptions to shuffle is known: the permutation, its commitment and the
+     * parts of the shuffle proof which do not depend on the encryptions are computed in the background, while the
+     * previous authorities are mixing
+     */
+    @Override
+    public void prepareMixing() {
+        stopResponseRandomnessPool();
+        int upper_n = mixingAuthorityAlgorithms.getEncryptions(ballotEntries, confirmationEntries).size();
+        if (upper_n == 0) {
+            return;
+        }
+        mixingPrecomputation = CompletableFuture.supplyAsync(
+                () -> mixingAuthorityAlgorithms.precomputeOffline(upper_n, systemPublicKey),
+                runnable -> {
+                    Thread precomputation = new Thread(runnable, "mixing-precomputation-" + j);
+                    precomputation.setDaemon(true);
+                    precomputation.start();
+                });
+    }
+
     @Override
     public void startMixing() {
         log.info("Authority " + j + " started mixing");
+        stopResponseRandomnessPool();
         List<Encryption> encryptions = mixingAuthorityAlgorithms.getEncryptions(ballotEntries, confirmationEntries);
         mixAndPublish(encryptions);
     }
@@ -198,23 +266,70 @@ public class DefaultAuthority implements AuthorityService {
     @Override
     public void mixAgain() {
         log.info("Authority " + j + " performing additional shuffle");
+        stopResponseRandomnessPool();
         List<Encryption> previousShuffle = bulletinBoardService.getPreviousShuffle(j - 1);
         mixAndPublish(previousShuffle);
     }
 
+    /**
+     * Each step of the mixing is saved to a checkpoint as soon as it is completed, so that a restart resumes from the
+     * last one; the checkpoint is deleted once the shuffle is published
+     */
     private void mixAndPublish(List<Encryption> encryptions) {
+        MixingCheckpoint checkpoint = MixingCheckpoint.fromSystemProperties(j, systemPublicKey, encryptions);
         Stopwatch shuffleWatch = Stopwatch.createStarted();
-        Shuffle shuffle = mixingAuthorityAlgorithms.genShuffle(encryptions, systemPublicKey);
+        MixingPrecomputation precomputation = checkpoint.getPrecomputation();
+        if (precomputation == null) {
+            // the later steps, if any, were computed with another precomputation
+            checkpoint.clear();
+            precomputation = takeMixingPrecomputation(encryptions.size());
+            checkpoint.savePrecomputation(precomputation);
+        } else {
+            mixingPrecomputation = null;
+        }
+        Shuffle shuffle = checkpoint.getShuffle();
+        if (shuffle == null) {
+            shuffle = mixingAuthorityAlgorithms.genShuffle(encryptions, systemPublicKey,
+                    reEncryptionRandomnessStore.take(encryptions.size()), precomputation);
+            checkpoint.saveShuffle(shuffle);
+        }
         shuffleWatch.stop();
         perfLog.info(String.format("Authority %d : shuffled in %dms", j, shuffleWatch.elapsed(TimeUnit.MILLISECONDS)));
         Stopwatch shuffleProofWatch = Stopwatch.createStarted();
-        ShuffleProof shuffleProof = mixingAuthorityAlgorithms.genShuffleProof(encryptions,
-                shuffle.getBold_e_prime(), shuffle.getBold_r_prime(), shuffle.getPsy(), systemPublicKey);
+        ShuffleProof shuffleProof = checkpoint.getShuffleProof();
+        if (shuffleProof == null) {
+            shuffleProof = mixingAuthorityAlgorithms.genShuffleProof(encryptions, shuffle.getBold_e_prime(),
+                    shuffle.getBold_r_prime(), systemPublicKey, precomputation, checkpoint);
+            checkpoint.saveShuffleProof(shuffleProof);
+        }
         shuffleProofWatch.stop();
         perfLog.info(String.format("Authority %d : generated shuffle proof in %dms", j,
                 shuffleProofWatch.elapsed(TimeUnit.MILLISECONDS)));
 
         bulletinBoardService.publishShuffleAndProof(j, shuffle.getBold_e_prime(), shuffleProof);
+        checkpoint.clear();
+    }
+
+    /**
+     * A precomputation may only be used for a single shuffle: it is consumed here, and computed online if it is
+     * missing, failed or does not match the number of encryptions
+     */
+    private MixingPrecomputation takeMixingPrecomputation(int upper_n) {
+        CompletableFuture<MixingPrecomputation> future = mixingPrecomputation;
+        mixingPrecomputation = null;
+        if (future != null) {
+            try {
+                MixingPrecomputation precomputation = future.join();
+                if (precomputation.getUpper_n() == upper_n) {
+                    return precomputation;
+                }
+                log.warn(String.format("Authority %d : precomputation made for %d encryptions, %d to shuffle", j,
+                        precomputation.getUpper_n(), upper_n));
+            } catch (CompletionException e) {
+                log.error("Authority " + j + " failed to precompute the mixing", e.getCause());
+            }
+        }
+        return mixingAuthorityAlgorithms.precomputeOffline(upper_n, systemPublicKey);
     }
 
     @Override
@@ -226,31 +341,28 @@ public class DefaultAuthority implements AuthorityService {
         List<ShuffleProof> shuffleProofs = shufflesAndProofs.getShuffleProofs();
         List<List<Encryption>> shuffles = shufflesAndProofs.getShuffles();
         Stopwatch checkShuffleWatch = Stopwatch.createStarted();
-        if (!decryptionAuthorityAlgorithms.checkShuffleProofs(shuffleProofs, encryptions, shuffles, systemPublicKey, j)) {
-            throw new InvalidShuffleProofRuntimeException("At least one shuffle proof was invalid");
+        OptionalInt invalidShuffleProof = decryptionAuthorityAlgorithms
+                .findInvalidShuffleProof(shuffleProofs, encryptions, shuffles, systemPublicKey, j);
+        if (invalidShuffleProof.isPresent()) {
+            throw new InvalidShuffleProofRuntimeException(String.format(
+                    "The shuffle proof of authority %d was invalid", invalidShuffleProof.getAsInt()));
         }
         checkShuffleWatch.stop();
         perfLog.info(String.format("Authority %d : checked shuffle proof in %dms", j,
                 checkShuffleWatch.elapsed(TimeUnit.MILLISECONDS)));
 
         BigInteger secretKey = myPrivateKey.getPrivateKey();
+        BigInteger publicKey = myPublicKey.getPublicKey();
         List<Encryption> finalShuffle = shuffles.get(publicParameters.getS() - 1);
         Stopwatch decryptionWatch = Stopwatch.createStarted();
-        List<BigInteger> partialDecryptions = decryptionAuthorityAlgorithms
-                .getPartialDecryptions(finalShuffle, secretKey);
+        PartialDecryptionsAndProof partialDecryptionsAndProof = decryptionAuthorityAlgorithms
+                .genPartialDecryptionsAndProof(secretKey, publicKey, finalShuffle);
         decryptionWatch.stop();
-        perfLog.info(String.format("Authority %d : decrypted in %dms", j,
+        perfLog.info(String.format("Authority %d : decrypted and generated decryption proof in %dms", j,
                 decryptionWatch.elapsed(TimeUnit.MILLISECONDS)));
 
-        BigInteger publicKey = myPublicKey.getPublicKey();
-        Stopwatch decryptionProofWatch = Stopwatch.createStarted();
-        DecryptionProof decryptionProof = decryptionAuthorityAlgorithms
-                .genDecryptionProof(secretKey, publicKey, finalShuffle, partialDecryptions);
-        decryptionProofWatch.stop();
-        perfLog.info(String.format("Authority %d : decryption proof in %dms", j,
-                decryptionProofWatch.elapsed(TimeUnit.MILLISECONDS)));
-
-        bulletinBoardService.publishPartialDecryptionAndProof(j, partialDecryptions, decryptionProof);
+        bulletinBoardService.publishPartialDecryptionAndProof(j, partialDecryptionsAndProof.getBold_b_prime(),
+                partialDecryptionsAndProof.getProof());
     }
 
     public LongSummaryStatistics getBallotVerificationStats() {
@@ -161,7 +161,7 @@ public class DefaultBulletinBoard implements BulletinBoardService {
                 "Shuffle j can only be inserted after the previous shuffles");
         Preconditions.checkArgument(shuffleProofs.size() == j,
                 "Shuffle proof j can only be inserted after the previous shuffle proof");
-        shuffles.put(j, shuffle);
+        shuffles.put(j, EncryptionVector.copyOf(shuffle));
         shuffleProofs.put(j, proof);
     }
 
@@ -203,7 +203,7 @@ public class DefaultBulletinBoard implements BulletinBoardService {
                 "Partial decryptions may not be updated");
         Preconditions.checkArgument(!decryptionProofs.containsKey(j),
                 "Partial decryptions proofs may not be updated");
-        partialDecryptions.put(j, partialDecryption);
+        partialDecryptions.put(j, GroupElementVector.copyOf(partialDecryption));
         decryptionProofs.put(j, proof);
     }
 
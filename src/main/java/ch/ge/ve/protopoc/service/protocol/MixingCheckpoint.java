@@ -0,0 +1,363 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import ch.ge.ve.protopoc.service.algorithm.ShuffleProofCheckpoint;
+import ch.ge.ve.protopoc.service.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import static ch.ge.ve.protopoc.service.protocol.BinaryFiles.readBigInteger;
+import static ch.ge.ve.protopoc.service.protocol.BinaryFiles.writeBigInteger;
+
+/**
+ * Checkpoints of the mixing of an authority, so that a restart during the mixing resumes from the last completed
+ * step instead of starting the shuffle and its proof over.
+ * <p>The steps are saved in order, each in its own file of the checkpoint directory: the precomputation, the
+ * shuffle, the commitment chain, the proof commitments <tt>T</tt> and the complete proof. Every file records a
+ * fingerprint of the public key and of the encryptions to shuffle: the files saved for other encryptions are ignored,
+ * and replaced as the mixing proceeds. The checkpoint holds the permutation and the randomness of the shuffle, it is
+ * deleted as soon as the shuffle is published.</p>
+ * <p>Checkpoints are an optimization only: a file that cannot be read is ignored, and a failure to save one is
+ * logged without interrupting the mixing.</p>
+ */
+public class MixingCheckpoint implements ShuffleProofCheckpoint {
+    public static final String DIRECTORY_PROPERTY = "protopoc.checkpoint.directory";
+    private static final int FORMAT_VERSION = 1;
+    private static final String PRECOMPUTATION = "precomputation.bin";
+    private static final String SHUFFLE = "shuffle.bin";
+    private static final String COMMITMENT_CHAIN = "commitment-chain.bin";
+    private static final String T = "t.bin";
+    private static final String SHUFFLE_PROOF = "shuffle-proof.bin";
+    private static final List<String> FILES =
+            Arrays.asList(PRECOMPUTATION, SHUFFLE, COMMITMENT_CHAIN, T, SHUFFLE_PROOF);
+    private static final Logger log = LoggerFactory.getLogger(MixingCheckpoint.class);
+
+    private final Path directory;
+    private final EncryptionPublicKey publicKey;
+    private final byte[] fingerprint;
+    private final int width;
+
+    /**
+     * @param directory the directory holding the checkpoint files, or null to save nothing
+     * @param publicKey the public key of the shuffle
+     * @param bold_e    the encryptions to shuffle
+     */
+    public MixingCheckpoint(Path directory, EncryptionPublicKey publicKey, List<Encryption> bold_e) {
+        this.directory = directory;
+        this.publicKey = publicKey;
+        this.fingerprint = directory == null ? new byte[0] : fingerprint(publicKey, bold_e);
+        this.width = GroupElementVector.widthFor(publicKey.getEncryptionGroup().getP());
+    }
+
+    /**
+     * Create a checkpoint saved in the directory given by the system property {@value #DIRECTORY_PROPERTY}, if any
+     *
+     * @param j         the index of the authority, used to name the checkpoint directory
+     * @param publicKey the public key of the shuffle
+     * @param bold_e    the encryptions to shuffle
+     * @return the checkpoint
+     */
+    public static MixingCheckpoint fromSystemProperties(int j, EncryptionPublicKey publicKey,
+                                                        List<Encryption> bold_e) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        return new MixingCheckpoint(directory == null ? null : Paths.get(directory, "mixing-checkpoint-" + j),
+                publicKey, bold_e);
+    }
+
+    /**
+     * @return the precomputation saved, or null if none was
+     */
+    public MixingPrecomputation getPrecomputation() {
+        return read(PRECOMPUTATION, input -> {
+            Permutation psy = readPermutation(input);
+            List<BigInteger> bold_h = readVector(input);
+            PermutationCommitment permutationCommitment =
+                    new PermutationCommitment(readVector(input), readSecretVector(input));
+            List<BigInteger> bold_r_hat = readSecretVector(input);
+            List<BigInteger> bold_g_r_hat = readVector(input);
+            MixingPrecomputation.Omega omega = new MixingPrecomputation.Omega(readBigInteger(input),
+                    readBigInteger(input), readBigInteger(input), readBigInteger(input), readSecretVector(input),
+                    readSecretVector(input));
+            MixingPrecomputation.PartialT partialT = new MixingPrecomputation.PartialT(readBigInteger(input),
+                    readBigInteger(input), readBigInteger(input), readBigInteger(input), readBigInteger(input),
+                    readVector(input));
+            return new MixingPrecomputation(publicKey, psy, bold_h, permutationCommitment, bold_r_hat, bold_g_r_hat, omega,
+                    partialT);
+        });
+    }
+
+    public void savePrecomputation(MixingPrecomputation precomputation) {
+        write(PRECOMPUTATION, output -> {
+            writePermutation(output, precomputation.getPsy());
+            writeVector(output, precomputation.getBold_h());
+            writeVector(output, precomputation.getPermutationCommitment().getBold_c());
+            writeVector(output, precomputation.getPermutationCommitment().getBold_r());
+            writeVector(output, precomputation.getBold_r_hat());
+            writeVector(output, precomputation.getBold_g_r_hat());
+            MixingPrecomputation.Omega omega = precomputation.getOmega();
+            writeBigInteger(output, omega.getOmega_1());
+            writeBigInteger(output, omega.getOmega_2());
+            writeBigInteger(output, omega.getOmega_3());
+            writeBigInteger(output, omega.getOmega_4());
+            writeVector(output, omega.getBold_omega_hat());
+            writeVector(output, omega.getBold_omega_prime());
+            MixingPrecomputation.PartialT partialT = precomputation.getPartialT();
+            writeBigInteger(output, partialT.getT_1());
+            writeBigInteger(output, partialT.getT_2());
+            writeBigInteger(output, partialT.getT_3());
+            writeBigInteger(output, partialT.getPk_omega_4());
+            writeBigInteger(output, partialT.getG_omega_4());
+            writeVector(output, partialT.getBold_g_omega_hat());
+        });
+    }
+
+    /**
+     * @return the shuffle saved, or null if none was
+     */
+    public Shuffle getShuffle() {
+        return read(SHUFFLE, input -> {
+            int n = input.readInt();
+            EncryptionVector.Builder bold_e_prime = EncryptionVector.builder(n, width);
+            for (int i = 0; i < n; i++) {
+                bold_e_prime.set(i, new Encryption(readBigInteger(input), readBigInteger(input)));
+            }
+            return new Shuffle(bold_e_prime.build(), readSecretVector(input), readPermutation(input));
+        });
+    }
+
+    public void saveShuffle(Shuffle shuffle) {
+        write(SHUFFLE, output -> {
+            List<Encryption> bold_e_prime = shuffle.getBold_e_prime();
+            output.writeInt(bold_e_prime.size());
+            for (Encryption e : bold_e_prime) {
+                writeBigInteger(output, e.getA());
+                writeBigInteger(output, e.getB());
+            }
+            writeVector(output, shuffle.getBold_r_prime());
+            writePermutation(output, shuffle.getPsy());
+        });
+    }
+
+    @Override
+    public CommitmentChain getCommitmentChain() {
+        return read(COMMITMENT_CHAIN, input -> new CommitmentChain(readVector(input), readSecretVector(input)));
+    }
+
+    @Override
+    public void saveCommitmentChain(CommitmentChain commitmentChain) {
+        write(COMMITMENT_CHAIN, output -> {
+            writeVector(output, commitmentChain.getBold_c());
+            writeVector(output, commitmentChain.getBold_r());
+        });
+    }
+
+    @Override
+    public ShuffleProof.T getT() {
+        return read(T, this::readT);
+    }
+
+    @Override
+    public void saveT(ShuffleProof.T t) {
+        write(T, output -> writeT(output, t));
+    }
+
+    /**
+     * @return the complete shuffle proof saved, or null if none was
+     */
+    public ShuffleProof getShuffleProof() {
+        return read(SHUFFLE_PROOF, input -> {
+            ShuffleProof.T t = readT(input);
+            ShuffleProof.S s = new ShuffleProof.S(readBigInteger(input), readBigInteger(input),
+                    readBigInteger(input), readBigInteger(input), readVector(input), readVector(input));
+            return new ShuffleProof(t, s, readVector(input), readVector(input));
+        });
+    }
+
+    public void saveShuffleProof(ShuffleProof shuffleProof) {
+        write(SHUFFLE_PROOF, output -> {
+            writeT(output, shuffleProof.getT());
+            ShuffleProof.S s = shuffleProof.getS();
+            writeBigInteger(output, s.getS_1());
+            writeBigInteger(output, s.getS_2());
+            writeBigInteger(output, s.getS_3());
+            writeBigInteger(output, s.getS_4());
+            writeVector(output, s.getS_hat());
+            writeVector(output, s.getS_prime());
+            writeVector(output, shuffleProof.getBold_c());
+            writeVector(output, shuffleProof.getBold_c_hat());
+        });
+    }
+
+    /**
+     * Delete all the checkpoint files
+     */
+    public void clear() {
+        if (directory == null) {
+            return;
+        }
+        try {
+            for (String name : FILES) {
+                Files.deleteIfExists(directory.resolve(name));
+            }
+        } catch (IOException e) {
+            log.error("Could not delete the mixing checkpoint in " + directory, e);
+        }
+    }
+
+    private ShuffleProof.T readT(DataInputStream input) throws IOException {
+        return new ShuffleProof.T(readBigInteger(input), readBigInteger(input), readBigInteger(input),
+                Arrays.asList(readBigInteger(input), readBigInteger(input)), readVector(input));
+    }
+
+    private void writeT(DataOutputStream output, ShuffleProof.T t) throws IOException {
+        writeBigInteger(output, t.getT_1());
+        writeBigInteger(output, t.getT_2());
+        writeBigInteger(output, t.getT_3());
+        writeBigInteger(output, t.getT_4().get(0));
+        writeBigInteger(output, t.getT_4().get(1));
+        writeVector(output, t.getT_hat());
+    }
+
+    @FunctionalInterface
+    private interface Reader<V> {
+        V readFrom(DataInputStream input) throws IOException;
+    }
+
+    private <V> V read(String name, Reader<V> reader) {
+        if (directory == null || !Files.exists(directory.resolve(name))) {
+            return null;
+        }
+        Path file = directory.resolve(name);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            byte[] savedFingerprint = new byte[fingerprint.length];
+            if (input.readInt() != FORMAT_VERSION || input.readInt() != fingerprint.length) {
+                log.warn("Ignoring mixing checkpoint in an unknown format: " + file);
+                return null;
+            }
+            input.readFully(savedFingerprint);
+            if (!MessageDigest.isEqual(savedFingerprint, fingerprint)) {
+                log.info("Ignoring mixing checkpoint saved for other encryptions: " + file);
+                return null;
+            }
+            V value = reader.readFrom(input);
+            log.info("Resuming the mixing from the checkpoint " + file);
+            return value;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable mixing checkpoint: " + file, e);
+            return null;
+        }
+    }
+
+    private void write(String name, BinaryFiles.Content content) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            BinaryFiles.writeAtomically(directory.resolve(name), output -> {
+                output.writeInt(FORMAT_VERSION);
+                output.writeInt(fingerprint.length);
+                output.write(fingerprint);
+                content.writeTo(output);
+            });
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Could not save the mixing checkpoint " + name + " in " + directory, e);
+        }
+    }
+
+    private GroupElementVector readVector(DataInputStream input) throws IOException {
+        return readVector(input, false);
+    }
+
+    /**
+     * Read a vector of secret values, kept on the heap
+     */
+    private GroupElementVector readSecretVector(DataInputStream input) throws IOException {
+        return readVector(input, true);
+    }
+
+    private GroupElementVector readVector(DataInputStream input, boolean secret) throws IOException {
+        int n = input.readInt();
+        GroupElementVector.Builder builder = secret ?
+                GroupElementVector.secretBuilder(n, width) : GroupElementVector.builder(n, width);
+        for (int i = 0; i < n; i++) {
+            builder.set(i, readBigInteger(input));
+        }
+        return builder.build();
+    }
+
+    private static void writeVector(DataOutputStream output, List<BigInteger> vector) throws IOException {
+        output.writeInt(vector.size());
+        for (BigInteger value : vector) {
+            writeBigInteger(output, value);
+        }
+    }
+
+    private static Permutation readPermutation(DataInputStream input) throws IOException {
+        int[] psy = new int[input.readInt()];
+        for (int i = 0; i < psy.length; i++) {
+            psy[i] = input.readInt();
+        }
+        return Permutation.of(psy);
+    }
+
+    private static void writePermutation(DataOutputStream output, Permutation psy) throws IOException {
+        output.writeInt(psy.size());
+        for (int i = 0; i < psy.size(); i++) {
+            output.writeInt(psy.get(i));
+        }
+    }
+
+    private static byte[] fingerprint(EncryptionPublicKey publicKey, List<Encryption> bold_e) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, publicKey.getEncryptionGroup().getP());
+            update(digest, publicKey.getPublicKey());
+            for (Encryption e : bold_e) {
+                update(digest, e.getA());
+                update(digest, e.getB());
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 should be available in every JVM", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+}
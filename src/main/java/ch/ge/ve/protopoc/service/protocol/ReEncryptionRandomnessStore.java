@@ -0,0 +1,230 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import ch.ge.ve.protopoc.service.model.EncryptionPublicKey;
+import ch.ge.ve.protopoc.service.model.ReEncryptionRandomness;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static ch.ge.ve.protopoc.service.protocol.BinaryFiles.readBigInteger;
+import static ch.ge.ve.protopoc.service.protocol.BinaryFiles.writeBigInteger;
+
+/**
+ * Store of re-encryption randomness, computed offline while voting is still open so that the shuffle does not need
+ * any exponentiation once the polls close.
+ * <p>When a file is provided, every batch of computed tuples is appended to it, and the file is rewritten without
+ * the tuples handed out before they are returned, so that a restart may never reuse them. Rewrites go through a
+ * temporary file atomically moved into place, readable by its owner only; a batch interrupted while being appended
+ * is simply dropped on load. The file records the group and public key the tuples were computed for: a store
+ * computed for another key is discarded on load.</p>
+ */
+public class ReEncryptionRandomnessStore {
+    public static final String TURNOUT_PROPERTY = "protopoc.precomputation.turnout";
+    public static final String DIRECTORY_PROPERTY = "protopoc.precomputation.directory";
+    private static final double DEFAULT_TURNOUT = 1.0;
+    private static final int FORMAT_VERSION = 1;
+    private static final int BATCH_SIZE = 256;
+    private static final Logger log = LoggerFactory.getLogger(ReEncryptionRandomnessStore.class);
+
+    private final EncryptionPublicKey publicKey;
+    private final Supplier<ReEncryptionRandomness> generator;
+    private final Path file;
+    private final Deque<ReEncryptionRandomness> tuples = new ArrayDeque<>();
+    private volatile boolean stopped;
+
+    /**
+     * @param publicKey the public key the randomness is computed for
+     * @param generator the computation of fresh re-encryption randomness
+     * @param file      the file the store is persisted to, or null to keep it in memory only
+     */
+    public ReEncryptionRandomnessStore(EncryptionPublicKey publicKey, Supplier<ReEncryptionRandomness> generator,
+                                       Path file) {
+        this.publicKey = publicKey;
+        this.generator = generator;
+        this.file = file;
+        if (file != null && Files.exists(file)) {
+            load();
+            // drops any batch interrupted while being appended, before appending new ones
+            persist();
+        }
+    }
+
+    /**
+     * Create a store persisted in the directory given by the system property {@value #DIRECTORY_PROPERTY}, if any
+     *
+     * @param j         the index of the authority, used to name the file
+     * @param publicKey the public key the randomness is computed for
+     * @param generator the computation of fresh re-encryption randomness
+     * @return the store, holding the tuples previously persisted for the same key
+     */
+    public static ReEncryptionRandomnessStore fromSystemProperties(int j, EncryptionPublicKey publicKey,
+                                                                   Supplier<ReEncryptionRandomness> generator) {
+        String directory = System.getProperty(DIRECTORY_PROPERTY);
+        Path file = directory == null ? null : Paths.get(directory, "reencryption-randomness-" + j + ".bin");
+        return new ReEncryptionRandomnessStore(publicKey, generator, file);
+    }
+
+    /**
+     * Size the store from the expected turnout, given by the system property {@value #TURNOUT_PROPERTY}
+     *
+     * @param voters the number of voters
+     * @return the number of tuples expected to be needed for a shuffle
+     */
+    public static int targetSizeFromSystemProperties(int voters) {
+        double turnout = Double.parseDouble(System.getProperty(TURNOUT_PROPERTY, String.valueOf(DEFAULT_TURNOUT)));
+        Preconditions.checkArgument(turnout >= 0.0 && turnout <= 1.0, "the expected turnout must be in [0, 1]");
+        return (int) Math.ceil(turnout * voters);
+    }
+
+    /**
+     * Compute tuples until the store holds the target size, or until {@link #take(int)} is called
+     *
+     * @param targetSize the number of tuples to hold
+     */
+    public void fill(int targetSize) {
+        while (!stopped && size() < targetSize) {
+            int count = Math.min(BATCH_SIZE, targetSize - size());
+            List<ReEncryptionRandomness> batch = IntStream.range(0, count)
+                    .mapToObj(i -> generator.get()).collect(Collectors.toList());
+            synchronized (this) {
+                if (stopped) {
+                    break;
+                }
+                tuples.addAll(batch);
+                append(batch);
+            }
+        }
+    }
+
+    /**
+     * Hand out tuples, removing them from the store; missing tuples are computed on the spot. The store is no longer
+     * filled afterwards: any ongoing {@link #fill(int)} stops.
+     *
+     * @param n the number of tuples needed
+     * @return n tuples never handed out before
+     */
+    public List<ReEncryptionRandomness> take(int n) {
+        stopped = true;
+        List<ReEncryptionRandomness> taken = new ArrayList<>(n);
+        synchronized (this) {
+            while (taken.size() < n && !tuples.isEmpty()) {
+                taken.add(tuples.poll());
+            }
+            persist();
+        }
+        int missing = n - taken.size();
+        if (missing > 0) {
+            log.info(String.format("Re-encryption randomness store short of %d tuples, computing them online",
+                    missing));
+            taken.addAll(IntStream.range(0, missing).parallel().mapToObj(i -> generator.get())
+                    .collect(Collectors.toList()));
+        }
+        return taken;
+    }
+
+    /**
+     * @return the number of tuples currently held
+     */
+    public synchronized int size() {
+        return tuples.size();
+    }
+
+    private void persist() {
+        if (file == null) {
+            return;
+        }
+        try {
+            BinaryFiles.writeAtomically(file, output -> {
+                output.writeInt(FORMAT_VERSION);
+                writeBigInteger(output, publicKey.getEncryptionGroup().getP());
+                writeBigInteger(output, publicKey.getPublicKey());
+                writeTuples(output, tuples);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not persist the re-encryption randomness store", e);
+        }
+    }
+
+    private void append(List<ReEncryptionRandomness> batch) {
+        if (file == null) {
+            return;
+        }
+        if (!Files.exists(file)) {
+            persist();
+            return;
+        }
+        try (FileOutputStream fileOutput = new FileOutputStream(file.toFile(), true);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+            writeTuples(output, batch);
+            output.flush();
+            fileOutput.getFD().sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not persist the re-encryption randomness store", e);
+        }
+    }
+
+    private void load() {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != FORMAT_VERSION ||
+                    !readBigInteger(input).equals(publicKey.getEncryptionGroup().getP()) ||
+                    !readBigInteger(input).equals(publicKey.getPublicKey())) {
+                log.warn("Discarding re-encryption randomness computed for another key: " + file);
+                return;
+            }
+            try {
+                while (true) {
+                    tuples.add(new ReEncryptionRandomness(publicKey, readBigInteger(input), readBigInteger(input),
+                            readBigInteger(input)));
+                }
+            } catch (EOFException e) {
+                // end of the file, or of the last complete tuple if a batch was interrupted
+            }
+            log.info(String.format("Loaded %d re-encryption randomness tuples from %s", tuples.size(), file));
+        } catch (IOException e) {
+            log.warn("Discarding unreadable re-encryption randomness store: " + file, e);
+            tuples.clear();
+        }
+    }
+
+    private static void writeTuples(DataOutputStream output, Iterable<ReEncryptionRandomness> tuples)
+            throws IOException {
+        for (ReEncryptionRandomness tuple : tuples) {
+            writeBigInteger(output, tuple.getR_prime());
+            writeBigInteger(output, tuple.getPk_r_prime());
+            writeBigInteger(output, tuple.getG_r_prime());
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.protocol;
+
+import ch.ge.ve.protopoc.service.model.ResponseRandomness;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Pool of oblivious transfer response randomness, precomputed in the background during the vote casting phase.
+ * <p>The pool keeps up to a target number of {@link ResponseRandomness} tuples per election, filled by dedicated
+ * refill threads. {@link #take(int)} hands out each tuple exactly once, and computes a fresh one on the caller's
+ * thread when the pool for the election is empty, so that the pool only affects the latency of the responses, never
+ * their availability.</p>
+ */
+public class ResponseRandomnessPool {
+    public static final String SIZE_PROPERTY = "protopoc.precomputation.pool.size";
+    public static final String THREADS_PROPERTY = "protopoc.precomputation.pool.threads";
+    private static final int DEFAULT_SIZE = 16;
+    private static final int DEFAULT_THREADS = 1;
+    private static final Logger log = LoggerFactory.getLogger(ResponseRandomnessPool.class);
+
+    private final IntFunction<ResponseRandomness> generator;
+    private final int targetSize;
+    private final int refillThreads;
+    private final List<Queue<ResponseRandomness>> pools = new ArrayList<>();
+    // number of tuples per election, either available or being computed
+    private final List<AtomicInteger> reserved = new ArrayList<>();
+    private final AtomicLong misses = new AtomicLong();
+    private final Object refillSignal = new Object();
+    private ExecutorService executor;
+    private volatile boolean running;
+
+    /**
+     * @param elections     the number of elections
+     * @param generator     the computation of fresh response randomness for a given election
+     * @param targetSize    the number of tuples to keep ready per election, 0 disabling the precomputation
+     * @param refillThreads the number of background threads refilling the pool
+     */
+    public ResponseRandomnessPool(int elections, IntFunction<ResponseRandomness> generator, int targetSize,
+                                  int refillThreads) {
+        Preconditions.checkArgument(targetSize >= 0, "the target size may not be negative");
+        Preconditions.checkArgument(refillThreads > 0, "there must be at least one refill thread");
+        this.generator = generator;
+        this.targetSize = targetSize;
+        this.refillThreads = refillThreads;
+        for (int j = 0; j < elections; j++) {
+            pools.add(new ConcurrentLinkedQueue<>());
+            reserved.add(new AtomicInteger());
+        }
+    }
+
+    /**
+     * Create a pool sized according to the system properties {@value #SIZE_PROPERTY} and {@value #THREADS_PROPERTY}
+     *
+     * @param elections the number of elections
+     * @param generator the computation of fresh response randomness for a given election
+     * @return the pool, not yet started
+     */
+    public static ResponseRandomnessPool fromSystemProperties(int elections, IntFunction<ResponseRandomness> generator) {
+        return new ResponseRandomnessPool(elections, generator, Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE),
+                Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS));
+    }
+
+    /**
+     * Start the background refill threads
+     */
+    public synchronized void start() {
+        Preconditions.checkState(executor == null, "The pool has already been started");
+        if (targetSize == 0) {
+            return;
+        }
+        running = true;
+        executor = Executors.newFixedThreadPool(refillThreads, runnable -> {
+            Thread thread = new Thread(runnable, "response-randomness-refill");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < refillThreads; i++) {
+            executor.execute(this::refill);
+        }
+    }
+
+    /**
+     * Stop the background refill threads; the tuples already computed remain available
+     */
+    public synchronized void stop() {
+        running = false;
+        synchronized (refillSignal) {
+            refillSignal.notifyAll();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        log.info(String.format("Response randomness pool stopped, %d responses computed their randomness online",
+                misses.get()));
+    }
+
+    /**
+     * Hand out response randomness for election j, removing it from the pool
+     *
+     * @param j the election index
+     * @return a tuple never handed out before
+     */
+    public ResponseRandomness take(int j) {
+        ResponseRandomness rho_j = pools.get(j).poll();
+        if (rho_j == null) {
+            misses.incrementAndGet();
+            return generator.apply(j);
+        }
+        reserved.get(j).decrementAndGet();
+        synchronized (refillSignal) {
+            refillSignal.notifyAll();
+        }
+        return rho_j;
+    }
+
+    /**
+     * @param j the election index
+     * @return the number of tuples currently ready for election j
+     */
+    public int available(int j) {
+        return pools.get(j).size();
+    }
+
+    private void refill() {
+        try {
+            while (running) {
+                int j = reserveElection();
+                if (j < 0) {
+                    synchronized (refillSignal) {
+                        if (running && isFull()) {
+                            refillSignal.wait();
+                        }
+                    }
+                } else {
+                    try {
+                        pools.get(j).add(generator.apply(j));
+                    } catch (RuntimeException e) {
+                        reserved.get(j).decrementAndGet();
+                        log.error("Failed to precompute response randomness for election " + j, e);
+                        running = false;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reserve a slot in the least filled election below the target size
+     *
+     * @return the index of the election, or -1 if all the elections are full
+     */
+    private int reserveElection() {
+        while (true) {
+            int candidate = -1;
+            int lowest = targetSize;
+            for (int j = 0; j < reserved.size(); j++) {
+                int count = reserved.get(j).get();
+                if (count < lowest) {
+                    lowest = count;
+                    candidate = j;
+                }
+            }
+            if (candidate < 0) {
+                return -1;
+            }
+            if (reserved.get(candidate).compareAndSet(lowest, lowest + 1)) {
+                return candidate;
+            }
+        }
+    }
+
+    private boolean isFull() {
+        return reserved.stream().allMatch(count -> count.get() >= targetSize);
+    }
+}
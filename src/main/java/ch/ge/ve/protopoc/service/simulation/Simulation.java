@@ -31,6 +31,7 @@ import ch.ge.ve.protopoc.service.protocol.DefaultAuthority;
 import ch.ge.ve.protopoc.service.protocol.DefaultBulletinBoard;
 import ch.ge.ve.protopoc.service.protocol.DefaultVotingClient;
 import ch.ge.ve.protopoc.service.support.Conversion;
+import ch.ge.ve.protopoc.service.support.ExponentiationWorkers;
 import ch.ge.ve.protopoc.service.support.Hash;
 import ch.ge.ve.protopoc.service.support.RandomGenerator;
 import com.google.common.base.Joiner;
@@ -86,6 +87,7 @@ public class Simulation {
     private List<Character> defaultAlphabet = getDefaultAlphabet();
     private MixingAuthorityAlgorithms mixingAuthorityAlgorithms;
     private DecryptionAuthorityAlgorithms decryptionAuthorityAlgorithms;
+    private ExponentiationWorkers exponentiationWorkers;
     private TallyingAuthoritiesAlgorithm tallyingAuthoritiesAlgorithm;
     private ElectionAdministrationSimulator electionAdministrationSimulator;
 
@@ -115,7 +117,11 @@ public class Simulation {
         simulation.initializeSettings(level);
         simulation.createComponents();
 
-        simulation.run();
+        try {
+            simulation.run();
+        } finally {
+            simulation.exponentiationWorkers.close();
+        }
     }
 
     private void run() throws InvalidDecryptionProofException {
@@ -165,6 +171,7 @@ public class Simulation {
 
     private void runMixing() {
         log.info("starting the mixing");
+        authorities.forEach(AuthorityService::prepareMixing);
         performanceStats.start(performanceStats.mixing);
         authorities.get(0).startMixing();
         for (int i = 1; i < publicParameters.getS(); i++) {
@@ -309,9 +316,10 @@ public class Simulation {
         voteCastingClientAlgorithms = new VoteCastingClientAlgorithms(publicParameters, generalAlgorithms, randomGenerator, hash);
         voteConfirmationClientAlgorithms = new VoteConfirmationClientAlgorithms(publicParameters, generalAlgorithms, randomGenerator, hash);
         voteConfirmationVoterAlgorithms = new VoteConfirmationVoterAlgorithms();
-        mixingAuthorityAlgorithms = new MixingAuthorityAlgorithms(publicParameters, generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator);
-        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator);
-        tallyingAuthoritiesAlgorithm = new TallyingAuthoritiesAlgorithm(publicParameters, generalAlgorithms);
+        exponentiationWorkers = ExponentiationWorkers.fromSystemProperties();
+        mixingAuthorityAlgorithms = new MixingAuthorityAlgorithms(publicParameters, generalAlgorithms, voteConfirmationAuthorityAlgorithms, randomGenerator, exponentiationWorkers);
+        decryptionAuthorityAlgorithms = new DecryptionAuthorityAlgorithms(publicParameters, generalAlgorithms, randomGenerator, exponentiationWorkers);
+        tallyingAuthoritiesAlgorithm = new TallyingAuthoritiesAlgorithm(publicParameters, generalAlgorithms, randomGenerator);
         log.info("instantiated all algorithm classes");
     }
 
@@ -326,6 +334,11 @@ public class Simulation {
         performanceStats.start(performanceStats.creatingPublicParameters);
         createPublicParameters(level);
         performanceStats.stop(performanceStats.creatingPublicParameters);
+        // the calibration of every modulus size used is done here, rather than on the first operations
+        log.info("Arithmetic providers: " + BigIntegerArithmetic.calibrate(
+                publicParameters.getEncryptionGroup().getP(), publicParameters.getEncryptionGroup().getQ(),
+                publicParameters.getIdentificationGroup().getP_hat(),
+                publicParameters.getIdentificationGroup().getQ_hat()));
         performanceStats.start(performanceStats.creatingElectionSet);
         electionSet = electionSetConfig.createElectionSet(votersCount);
         performanceStats.stop(performanceStats.creatingElectionSet);
@@ -21,6 +21,8 @@
 
 package ch.ge.ve.protopoc.service.support;
 
+import ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic;
+
 import java.math.BigInteger;
 import java.util.function.BinaryOperator;
 
@@ -45,6 +47,6 @@ public interface BigIntegers {
      * @return an operator on two BigIntegers, multiplying them modulo <tt>m</tt>
      */
     static BinaryOperator<BigInteger> multiplyMod(BigInteger m) {
-        return (a, b) -> a.multiply(b).mod(m);
+        return (a, b) -> BigIntegerArithmetic.multiplyMod(a, b, m);
     }
 }
@@ -0,0 +1,166 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.support;
+
+import ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic;
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.math.BigInteger.ONE;
+
+/**
+ * A vector of products of powers <tt>x_i = &prod;_k bases_k,i ^ exponents_k,i mod modulus</tt>, for
+ * <tt>0 &le; i &lt; size</tt>, computed by {@link ExponentiationWorkers}
+ * <p>Each term <tt>k</tt> is given by a column of bases and a column of exponents. A column either holds one value
+ * per row, or a single value shared by all the rows: a shared base is raised with a fixed-base table, and a shared
+ * exponent of 1 multiplies the rows by the bases without any exponentiation.</p>
+ * <p>The bases must belong to the subgroup of order <tt>order</tt>, so that the exponents, possibly negative, can be
+ * reduced modulo the order.</p>
+ */
+public final class ExponentiationTask {
+    private final BigInteger modulus;
+    private final BigInteger order;
+    private final boolean secretExponents;
+    private final List<List<BigInteger>> bases;
+    private final List<List<BigInteger>> exponents;
+    private final int size;
+
+    /**
+     * @param modulus         the modulus
+     * @param order           the order of the subgroup holding the bases
+     * @param secretExponents whether the exponents are secret, in which case the exponentiations are performed with
+     *                        the side-channel protections of
+     *                        {@link BigIntegerArithmetic#modExpSecret(List, List, BigInteger)}
+     * @param bases           the columns of bases, one per term
+     * @param exponents       the columns of exponents, one per term
+     */
+    public ExponentiationTask(BigInteger modulus, BigInteger order, boolean secretExponents,
+                              List<List<BigInteger>> bases, List<List<BigInteger>> exponents) {
+        Preconditions.checkArgument(!bases.isEmpty(), "there should be at least one term");
+        Preconditions.checkArgument(bases.size() == exponents.size(),
+                "there should be as many columns of exponents as columns of bases");
+        this.modulus = modulus;
+        this.order = order;
+        this.secretExponents = secretExponents;
+        this.bases = ImmutableList.copyOf(bases);
+        this.exponents = ImmutableList.copyOf(exponents);
+        this.size = Stream.concat(this.bases.stream(), this.exponents.stream()).mapToInt(List::size).max().orElse(0);
+        Preconditions.checkArgument(
+                this.bases.stream().allMatch(this::hasValidSize) && this.exponents.stream().allMatch(this::hasValidSize),
+                "all the columns should hold either one value per row, or a single value");
+    }
+
+    private boolean hasValidSize(List<BigInteger> column) {
+        return column.size() == size || column.size() == 1;
+    }
+
+    public BigInteger getModulus() {
+        return modulus;
+    }
+
+    public BigInteger getOrder() {
+        return order;
+    }
+
+    public boolean hasSecretExponents() {
+        return secretExponents;
+    }
+
+    public List<List<BigInteger>> getBases() {
+        return bases;
+    }
+
+    public List<List<BigInteger>> getExponents() {
+        return exponents;
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Compute the rows <tt>from</tt> (inclusive) to <tt>to</tt> (exclusive) in the calling thread
+     *
+     * @param from       the first row
+     * @param to         the end of the range of rows
+     * @param fixedBases the fixed-base tables already built for the shared bases, completed as needed; must support
+     *                   concurrent updates if shared across threads
+     * @return the values of the rows
+     */
+    public BigInteger[] compute(int from, int to, Map<BigInteger, FixedBaseExponentiator> fixedBases) {
+        Preconditions.checkElementIndex(from, size + 1);
+        Preconditions.checkArgument(from <= to && to <= size, "invalid range of rows");
+        int n = to - from;
+        BigInteger[] results = new BigInteger[n];
+        Arrays.fill(results, ONE);
+        for (int k = 0; k < bases.size(); k++) {
+            List<BigInteger> powers = computePowers(bases.get(k), exponents.get(k), from, to, fixedBases);
+            for (int i = 0; i < n; i++) {
+                results[i] = results[i].multiply(powers.get(i)).mod(modulus);
+            }
+        }
+        return results;
+    }
+
+    private List<BigInteger> computePowers(List<BigInteger> baseColumn, List<BigInteger> exponentColumn,
+                                           int from, int to, Map<BigInteger, FixedBaseExponentiator> fixedBases) {
+        int n = to - from;
+        if (exponentColumn.size() == 1 && ONE.equals(exponentColumn.get(0))) {
+            return rows(baseColumn, from, to);
+        }
+        if (baseColumn.size() == 1 && !secretExponents) {
+            // the fixed-base tables are indexed by the exponent digits: public exponents only
+            FixedBaseExponentiator exponentiator = fixedBases.computeIfAbsent(baseColumn.get(0),
+                    base -> new FixedBaseExponentiator(base, modulus, order.bitLength()));
+            return rows(exponentColumn, from, to).stream()
+                    .map(e -> exponentiator.modExpPublic(e.mod(order)))
+                    .collect(Collectors.toList());
+        }
+        List<BigInteger> rowBases = rows(baseColumn, from, to);
+        if (exponentColumn.size() == 1 && secretExponents) {
+            return BigIntegerArithmetic.modExpSecret(rowBases, exponentColumn.get(0).mod(order), modulus);
+        }
+        List<BigInteger> rowExponents = rows(exponentColumn, from, to).stream()
+                .map(e -> e.mod(order))
+                .collect(Collectors.toList());
+        return secretExponents ?
+                BigIntegerArithmetic.modExpSecret(rowBases, rowExponents, modulus) :
+                BigIntegerArithmetic.modExpPublic(rowBases, rowExponents, modulus);
+    }
+
+    private static List<BigInteger> rows(List<BigInteger> column, int from, int to) {
+        return column.size() == 1 ? Collections.nCopies(to - from, column.get(0)) : column.subList(from, to);
+    }
+}
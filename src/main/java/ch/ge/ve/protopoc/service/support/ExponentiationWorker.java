@@ -0,0 +1,158 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.support;
+
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSocket;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A worker process computing chunks of exponentiation tasks for {@link RemoteExponentiationWorkers}, with all the
+ * cores of its host.
+ * <p>Usage: <tt>ExponentiationWorker [port] [--single]</tt>. The worker listens on the given port (0, the default,
+ * picks a free port), and prints the port it listens on to the standard output. With <tt>--single</tt>, it serves
+ * one connection only, then exits: this is how local worker processes are tied to the coordinator that started
+ * them.</p>
+ * <p>A <tt>--single</tt> worker only listens on the loopback interface, in clear. Otherwise, the worker only accepts
+ * TLS connections from clients presenting a trusted certificate: its own key and the certificates it trusts are
+ * configured with the standard <tt>javax.net.ssl.keyStore</tt> and <tt>javax.net.ssl.trustStore</tt> system
+ * properties, and so are those of the coordinator.</p>
+ */
+public final class ExponentiationWorker {
+    private static final Logger log = LoggerFactory.getLogger(ExponentiationWorker.class);
+    static final String SINGLE_CONNECTION_OPTION = "--single";
+    /**
+     * Time allowed to a client to complete the TLS handshake, so that unauthenticated peers do not hold a thread
+     */
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+
+    private ExponentiationWorker() {
+        // main class only
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        boolean singleConnection = args.length > 1 && SINGLE_CONNECTION_OPTION.equals(args[1]);
+        try (ServerSocket serverSocket = singleConnection ?
+                new ServerSocket(port, 1, InetAddress.getLoopbackAddress()) : openTlsServerSocket(port)) {
+            System.out.println(WorkerProtocol.READY + serverSocket.getLocalPort());
+            System.out.flush();
+            if (singleConnection) {
+                serve(serverSocket.accept());
+                return;
+            }
+            while (!Thread.currentThread().isInterrupted()) {
+                Socket socket = serverSocket.accept();
+                new Thread(() -> serve(socket), "exponentiation-worker-" + socket.getRemoteSocketAddress()).start();
+            }
+        }
+    }
+
+    private static ServerSocket openTlsServerSocket(int port) throws IOException {
+        if (System.getProperty("javax.net.ssl.keyStore") == null) {
+            throw new IllegalStateException("a worker accepting remote connections needs a key store, set with " +
+                    "javax.net.ssl.keyStore, or must be started with " + SINGLE_CONNECTION_OPTION);
+        }
+        SSLServerSocket serverSocket = (SSLServerSocket) SSLServerSocketFactory.getDefault().createServerSocket(port);
+        serverSocket.setNeedClientAuth(true);
+        return serverSocket;
+    }
+
+    private static void serve(Socket socket) {
+        if (socket instanceof SSLSocket) {
+            try {
+                socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+                ((SSLSocket) socket).startHandshake();
+                socket.setSoTimeout(0);
+            } catch (IOException e) {
+                log.warn("rejected the connection from {}", socket.getRemoteSocketAddress(), e);
+                closeQuietly(socket);
+                return;
+            }
+        }
+        log.info("serving {}", socket.getRemoteSocketAddress());
+        // the coordinator typically sends the same shared bases (such as g) in many requests
+        Map<BigInteger, FixedBaseExponentiator> fixedBases = new ConcurrentHashMap<>();
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    if (type == WorkerProtocol.ROWS) {
+                        ExponentiationTask task = WorkerProtocol.readRows(in);
+                        WorkerProtocol.writeValues(out, computeRows(task, fixedBases));
+                    } else if (type == WorkerProtocol.PRODUCT) {
+                        BigInteger product = WorkerProtocol.readAndComputeProduct(in,
+                                ExponentiationWorkers.inProcess());
+                        WorkerProtocol.writeValues(out, new BigInteger[]{product});
+                    } else {
+                        throw new IOException("unknown request type " + type);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("failed to compute a request", e);
+                    WorkerProtocol.writeFailure(out, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("connection lost with {}", socket.getRemoteSocketAddress(), e);
+        }
+        log.info("done serving {}", socket.getRemoteSocketAddress());
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            log.warn("could not close the connection from {}", socket.getRemoteSocketAddress(), e);
+        }
+    }
+
+    private static BigInteger[] computeRows(ExponentiationTask task,
+                                            Map<BigInteger, FixedBaseExponentiator> fixedBases) {
+        BigInteger[] values = new BigInteger[task.size()];
+        LocalExponentiationWorkers.INSTANCE.modExps(task, fixedBases, (i, value) -> values[i] = value);
+        return values;
+    }
+}
@@ -0,0 +1,121 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.support;
+
+import com.google.common.base.Splitter;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Executors for the exponentiations over vectors of the size of the ballot box, which dominate the generation and
+ * the verification of the shuffle proofs.
+ * <p>The {@link #inProcess() in-process} implementation uses the cores of the current JVM. The
+ * {@link RemoteExponentiationWorkers remote} implementation partitions the vectors in chunks that are computed by
+ * {@link ExponentiationWorker} processes, on the same host or on other hosts.</p>
+ * <p>Only public exponents (challenges, responses of the proofs, and the values derived from them) ever leave the
+ * current JVM: the {@link ExponentiationTask#hasSecretExponents() tasks with secret exponents} are always computed
+ * in-process, and {@link #modMultiExp(List, List, BigInteger)} must only be called with public exponents. The
+ * secret keys, the permutations and the randomness of the proofs therefore never reach the workers.</p>
+ */
+public abstract class ExponentiationWorkers implements AutoCloseable {
+    /**
+     * Comma-separated list of <tt>host:port</tt> addresses of running {@link ExponentiationWorker} processes
+     */
+    public static final String ENDPOINTS_PROPERTY = "protopoc.workers.endpoints";
+    /**
+     * Number of {@link ExponentiationWorker} processes to start on the local host
+     */
+    public static final String PROCESSES_PROPERTY = "protopoc.workers.processes";
+    /**
+     * Time in milliseconds after which a worker that does not answer a request is abandoned, its chunks being
+     * computed in the current JVM instead
+     */
+    public static final String TIMEOUT_PROPERTY = "protopoc.workers.timeout";
+
+    /**
+     * Compute the rows of the task, each result being passed to the consumer as soon as it is available.
+     * <p>Tasks with secret exponents are computed in the current JVM.</p>
+     *
+     * @param task    the products of powers to compute
+     * @param results the consumer of the results, called concurrently for distinct indices
+     */
+    public abstract void modExps(ExponentiationTask task, ResultConsumer results);
+
+    /**
+     * Compute the product of the powers <tt>&prod; bases_i^exponents_i mod modulus</tt>, for public exponents.
+     * <p>Products of powers with secret exponents must be computed with
+     * {@link ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic#modMultiExp(List, List, BigInteger)} instead.</p>
+     *
+     * @param bases     the bases
+     * @param exponents the public exponents, one per base
+     * @param modulus   the modulus
+     * @return the product of the powers, modulo the modulus
+     */
+    public abstract BigInteger modMultiExp(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus);
+
+    /**
+     * Release the connections to the workers, and stop the worker processes started by this instance
+     */
+    @Override
+    public abstract void close();
+
+    /**
+     * @return the executor using the cores of the current JVM
+     */
+    public static ExponentiationWorkers inProcess() {
+        return LocalExponentiationWorkers.INSTANCE;
+    }
+
+    /**
+     * Create the executor configured by the system properties: workers at the addresses listed by
+     * {@value #ENDPOINTS_PROPERTY}, or {@value #PROCESSES_PROPERTY} local worker processes, or else the cores of the
+     * current JVM
+     *
+     * @return the configured executor
+     */
+    public static ExponentiationWorkers fromSystemProperties() {
+        String endpoints = System.getProperty(ENDPOINTS_PROPERTY, "");
+        if (!endpoints.trim().isEmpty()) {
+            return RemoteExponentiationWorkers.connect(Splitter.on(',').trimResults().omitEmptyStrings()
+                    .splitToList(endpoints));
+        }
+        int processes = Integer.getInteger(PROCESSES_PROPERTY, 0);
+        if (processes > 0) {
+            return RemoteExponentiationWorkers.startProcesses(processes);
+        }
+        return inProcess();
+    }
+
+    /**
+     * A consumer of the results of an {@link ExponentiationTask}
+     */
+    @FunctionalInterface
+    public interface ResultConsumer {
+        /**
+         * @param index the index of the row
+         * @param value the value of the row
+         */
+        void accept(int index, BigInteger value);
+    }
+}
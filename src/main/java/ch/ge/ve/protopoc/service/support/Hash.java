@@ -115,7 +115,7 @@ public class Hash {
         } else if (object instanceof Hashable) {
             return recHash_L(((Hashable) object).elementsToHash());
         } else if (object instanceof List) {
-            return recHash_L(((List) object).toArray());
+            return recHashList_L((List<?>) object);
         } else if (object instanceof Object[]) {
             return recHash_L((Object[]) object);
         } else {
@@ -123,6 +123,39 @@ public class Hash {
         }
     }
 
+    /**
+     * Same as {@link #recHash_L(Object...)} on the elements of the list, iterating over the list instead of copying it
+     * into an array, so that long vectors stored out of the heap are hashed one element at a time
+     */
+    private byte[] recHashList_L(List<?> objects) {
+        if (objects.size() == 1) {
+            return recHash_L(objects.get(0));
+        }
+        MessageDigest messageDigest = newMessageDigest();
+        for (Object object : objects) {
+            messageDigest.update(recHash_L(object));
+        }
+        return ByteArrayUtils.truncate(messageDigest.digest(), securityParameters.getUpper_l());
+    }
+
+    /**
+     * Same as {@link #recHash_L(Object)} on a list, given the hashes of its elements, so that the hashes of the
+     * elements of long vectors can be computed along with the vectors, in parallel
+     *
+     * @param elementHashes the recursive hashes of the elements of the list
+     * @return the recursive hash of the list
+     */
+    public byte[] recHashOfHashes_L(List<byte[]> elementHashes) {
+        if (elementHashes.size() == 1) {
+            return elementHashes.get(0);
+        }
+        MessageDigest messageDigest = newMessageDigest();
+        for (byte[] elementHash : elementHashes) {
+            messageDigest.update(elementHash);
+        }
+        return ByteArrayUtils.truncate(messageDigest.digest(), securityParameters.getUpper_l());
+    }
+
     /**
      * Use the underlying digest algorithm to obtain a hash of the byte array, truncated to length L
      *
@@ -28,52 +28,40 @@ import java.math.BigInteger;
  */
 public class JacobiSymbol {
     /**
-     * Compute the jacobi symbol <code>(a/n)</code>, as described in:
+     * Compute the jacobi symbol <code>(a/n)</code>, using the binary algorithm: factors of two are removed with
+     * shifts, and the (odd) arguments are reduced by subtraction, swapping them as needed according to the law of
+     * quadratic reciprocity. See
      * <a href="http://nvlpubs.nist.gov/nistpubs/FIPS/NIST.FIPS.186-4.pdf">Digital signature standard (DSS). FIPS PUB 186-4, National Institute of Standards and
-     Technology (NIST), 2013.</a>, pp. 76-77
+     Technology (NIST), 2013.</a>, pp. 76-77 for the properties used.
      * @param initial_a the starting value of a
-     * @param n the value of n
+     * @param n the value of n, odd and positive
      * @return the computed jacobi symbol
      */
     public int computeJacobiSymbol(BigInteger initial_a, BigInteger n) {
-        // Step 1: a = a mod n
         BigInteger a = initial_a.mod(n);
-        // Step 2: if a = 1 or n = 1 return 1
-        if (a.equals(BigInteger.ONE) || n.equals(BigInteger.ONE)) {
-            return 1;
-        }
-        // Step 3: if a = 0 return 0
-        if (a.equals(BigInteger.ZERO)) {
-            return 0;
-        }
-        // Step 4: define e and a_1 such that a = 2^e * a_1 where a_1 is odd
-        int e = 0;
-        BigInteger a_1 = a;
-        while (a_1.remainder(BigIntegers.TWO).equals(BigInteger.ZERO)) {
-            e++;
-            a_1 = a_1.divide(BigIntegers.TWO);
-        }
-        // Step 5: if e is even, then s = 1;
-        //          else if n mod 8 = 1 or n mod 8 = 7, then s = 1
-        //          else if n mod 8 = 3 or n mod 8 = 5, then s = -1
-        int s;
-        if (e % 2 == 0) {
-            s = 1;
-        } else {
-            BigInteger n_mod_eight = n.mod(BigIntegers.EIGHT);
-            if (n_mod_eight.equals(BigInteger.ONE) || n_mod_eight.equals(BigIntegers.SEVEN)) {
-                s = 1;
-            } else { // n_mod_eight.equals(THREE) || n_mod_eight.equals(FIVE)
-                s = -1;
+        int s = 1;
+        while (a.signum() != 0) {
+            // (2/n) = -1 iff n mod 8 = 3 or n mod 8 = 5
+            int e = a.getLowestSetBit();
+            if (e > 0) {
+                a = a.shiftRight(e);
+                int n_mod_eight = n.intValue() & 7;
+                if ((e & 1) == 1 && (n_mod_eight == 3 || n_mod_eight == 5)) {
+                    s = -s;
+                }
             }
+            // (a/n) = -(n/a) iff a mod 4 = 3 and n mod 4 = 3
+            if (a.compareTo(n) < 0) {
+                if ((a.intValue() & 3) == 3 && (n.intValue() & 3) == 3) {
+                    s = -s;
+                }
+                BigInteger tmp = a;
+                a = n;
+                n = tmp;
+            }
+            // (a/n) = ((a - n)/n)
+            a = a.subtract(n);
         }
-        // Step 6: if n mod 4 = 3 and a_1 mod 4 = 3, then s = -s
-        if (n.mod(BigIntegers.FOUR).equals(BigIntegers.THREE) && a_1.mod(BigIntegers.FOUR).equals(BigIntegers.THREE)) {
-            s = -s;
-        }
-        // Step 7: n_1 = n mod a_1
-        BigInteger n_1 = n.mod(a_1);
-        // Step 8: return s * JacobiSymbol(n_1, a_1)
-        return s * computeJacobiSymbol(n_1, a_1);
+        return n.equals(BigInteger.ONE) ? s : 0;
     }
 }
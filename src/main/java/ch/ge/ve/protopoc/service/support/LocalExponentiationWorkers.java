@@ -0,0 +1,78 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.support;
+
+import ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic;
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Computes the exponentiation tasks with the threads of the common fork-join pool, by chunks
+ */
+final class LocalExponentiationWorkers extends ExponentiationWorkers {
+    static final LocalExponentiationWorkers INSTANCE = new LocalExponentiationWorkers();
+    /**
+     * Number of chunks per thread, so that the threads finishing early can help the others
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private LocalExponentiationWorkers() {
+        // singleton
+    }
+
+    @Override
+    public void modExps(ExponentiationTask task, ResultConsumer results) {
+        modExps(task, new ConcurrentHashMap<>(), results);
+    }
+
+    /**
+     * Same as {@link #modExps(ExponentiationTask, ResultConsumer)}, reusing the fixed-base tables of earlier tasks
+     */
+    void modExps(ExponentiationTask task, Map<BigInteger, FixedBaseExponentiator> fixedBases,
+                 ResultConsumer results) {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+        int chunkSize = Math.min(ParallelVectors.DEFAULT_CHUNK_SIZE,
+                Math.max(1, (task.size() + parallelism - 1) / parallelism));
+        ParallelVectors.forEachChunk(task.size(), chunkSize, (from, to) -> {
+            BigInteger[] values = task.compute(from, to, fixedBases);
+            for (int i = from; i < to; i++) {
+                results.accept(i, values[i - from]);
+            }
+        });
+    }
+
+    @Override
+    public BigInteger modMultiExp(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        return BigIntegerArithmetic.modMultiExp(bases, exponents, modulus);
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,108 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.support;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * This utility class provides indexed, parallel operations on vectors.
+ * <p>The vectors themselves are computed directly into their records, with
+ * {@link ch.ge.ve.protopoc.service.model.GroupElementVector#fill(int, int, IntFunction)}; the operations here process
+ * them by chunks of consecutive indices, or view them without copying.</p>
+ */
+public class ParallelVectors {
+    /**
+     * Default number of elements processed at once by a worker thread, when computing by chunks
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private ParallelVectors() {
+        // static methods only
+    }
+
+    /**
+     * View of the vector <tt>(first, x_0, ..., x_(n-1))</tt>, without copying the elements
+     *
+     * @param first the element at index 0
+     * @param xs    the following elements, which should support fast random access
+     * @param <T>   the type of the elements
+     * @return an unmodifiable list of size <tt>n + 1</tt>
+     */
+    public static <T> List<T> prepend(T first, List<T> xs) {
+        return new PrependedList<>(first, xs);
+    }
+
+    /**
+     * Process the indices <tt>0</tt> to <tt>n - 1</tt> in consecutive chunks, in parallel, so that the intermediate
+     * values of a computation only need to be held for one chunk per worker thread
+     *
+     * @param n         the number of indices
+     * @param chunkSize the maximum number of indices per chunk
+     * @param consumer  the operation, called once per chunk
+     */
+    public static void forEachChunk(int n, int chunkSize, ChunkConsumer consumer) {
+        Preconditions.checkArgument(n >= 0, "the number of indices must not be negative");
+        Preconditions.checkArgument(chunkSize > 0, "the chunk size must be positive");
+        int chunks = (n + chunkSize - 1) / chunkSize;
+        IntStream.range(0, chunks).parallel()
+                .forEach(k -> consumer.accept(k * chunkSize, Math.min(n, (k + 1) * chunkSize)));
+    }
+
+    private static final class PrependedList<T> extends AbstractList<T> implements RandomAccess {
+        private final T first;
+        private final List<T> rest;
+
+        private PrependedList(T first, List<T> rest) {
+            this.first = first;
+            this.rest = rest;
+        }
+
+        @Override
+        public T get(int index) {
+            return index == 0 ? first : rest.get(index - 1);
+        }
+
+        @Override
+        public int size() {
+            return rest.size() + 1;
+        }
+    }
+
+    /**
+     * An operation on a chunk of indices
+     */
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        /**
+         * @param from the first index of the chunk, inclusive
+         * @param to   the last index of the chunk, exclusive
+         */
+        void accept(int from, int to);
+    }
+}
@@ -27,8 +27,6 @@ import com.google.common.base.Preconditions;
 import java.math.BigInteger;
 import java.security.SecureRandom;
 
-import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmetic.modExp;
-
 /**
  * This class
  */
@@ -87,6 +85,6 @@ public class RandomGenerator {
      */
     public BigInteger randomInGq(EncryptionGroup encryptionGroup) {
         BigInteger x = randomInZq(encryptionGroup.getQ());
-        return modExp(encryptionGroup.getG(), x, encryptionGroup.getP());
+        return encryptionGroup.getGExponentiator().modExp(x);
     }
 }
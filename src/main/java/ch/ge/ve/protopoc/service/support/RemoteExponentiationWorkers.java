@@ -0,0 +1,400 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.support;
+
+import ch.ge.ve.protopoc.arithmetic.FixedBaseExponentiator;
+import com.google.common.base.Preconditions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the exponentiation tasks with {@link ExponentiationWorker} processes, reached through sockets.
+ * <p>The vectors are split in chunks, and each worker is sent a new chunk as soon as it returns the previous one, so
+ * that faster hosts compute more chunks. A worker that fails or becomes unreachable is not used anymore: its chunks
+ * are computed in the current JVM instead, so the results never depend on the availability of the workers.</p>
+ * <p>The tasks with secret exponents are not sent to the workers, and are computed in the current JVM: the generation
+ * of the shuffle proofs is therefore not distributed, only their verification is.</p>
+ * <p>The worker processes started by {@link #startProcesses(int)} run on the same host, from the same class path, and
+ * are trusted like the current JVM. The results of the workers at other addresses are not used on their own, since a
+ * compromised worker could otherwise make an invalid proof pass the verification: each of their chunks is computed by
+ * a second worker as well, and is only accepted when both results agree. When they disagree, the chunk is computed in
+ * the current JVM, and the worker whose result differs is not used anymore. The verification thus remains sound as
+ * long as no two workers collude, at the cost of computing everything twice.</p>
+ * <p>The worker processes started by {@link #startProcesses(int)} are reached through the loopback interface. The
+ * workers at other addresses are reached through TLS, with mutual authentication: the coordinator presents the key
+ * of <tt>javax.net.ssl.keyStore</tt>, and checks that the certificate of the worker matches its host name and is
+ * trusted by <tt>javax.net.ssl.trustStore</tt>. A worker that does not connect within
+ * {@value #CONNECT_TIMEOUT_MILLIS} ms fails the connection, and a worker that does not answer a request within
+ * {@value ExponentiationWorkers#TIMEOUT_PROPERTY} ms (default {@value #DEFAULT_TIMEOUT_MILLIS}) is abandoned.</p>
+ */
+public final class RemoteExponentiationWorkers extends ExponentiationWorkers {
+    private static final Logger log = LoggerFactory.getLogger(RemoteExponentiationWorkers.class);
+    /**
+     * Number of chunks per worker, so that the workers finishing early can help the others
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+    /**
+     * Minimal number of rows sent in a request, below which the round trip costs more than the exponentiations
+     */
+    private static final int MIN_CHUNK_SIZE = 64;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int DEFAULT_TIMEOUT_MILLIS = 60_000;
+
+    private final List<Connection> connections;
+    private final List<Process> processes;
+    private final ExecutorService dispatchers;
+
+    private RemoteExponentiationWorkers(List<Connection> connections, List<Process> processes) {
+        Preconditions.checkArgument(!connections.isEmpty(), "there should be at least one worker");
+        this.connections = connections;
+        this.processes = processes;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.dispatchers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "exponentiation-dispatcher-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Connect to running workers, through TLS with mutual authentication
+     *
+     * @param endpoints the <tt>host:port</tt> addresses of the workers
+     * @return the connected workers
+     */
+    public static RemoteExponentiationWorkers connect(List<String> endpoints) {
+        Preconditions.checkState(System.getProperty("javax.net.ssl.keyStore") != null,
+                "the connections to remote workers are authenticated: javax.net.ssl.keyStore must be set");
+        Preconditions.checkArgument(endpoints.size() >= 2,
+                "the results of remote workers are cross-checked: there should be at least two workers");
+        List<Connection> connections = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            int separator = endpoint.lastIndexOf(':');
+            Preconditions.checkArgument(separator > 0, "invalid worker address %s, expected host:port", endpoint);
+            connections.add(Connection.open(endpoint.substring(0, separator),
+                    Integer.parseInt(endpoint.substring(separator + 1)), true));
+        }
+        log.info("connected to {} exponentiation workers", connections.size());
+        return new RemoteExponentiationWorkers(connections, new ArrayList<>());
+    }
+
+    /**
+     * Start worker processes on the local host, running with the same JVM and class path as the current process, and
+     * connect to them. The processes are stopped by {@link #close()}, or when their connection is closed.
+     *
+     * @param count the number of processes
+     * @return the connected workers
+     */
+    public static RemoteExponentiationWorkers startProcesses(int count) {
+        Preconditions.checkArgument(count > 0, "there should be at least one worker process");
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<Process> processes = new ArrayList<>();
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        ExponentiationWorker.class.getName(), "0", ExponentiationWorker.SINGLE_CONNECTION_OPTION)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                processes.add(process);
+                connections.add(Connection.open(InetAddress.getLoopbackAddress().getHostAddress(),
+                        awaitPort(process, i), false));
+            }
+        } catch (IOException | RuntimeException e) {
+            processes.forEach(Process::destroy);
+            throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+        }
+        log.info("started {} exponentiation worker processes", count);
+        return new RemoteExponentiationWorkers(connections, processes);
+    }
+
+    /**
+     * Read the standard output of a worker process until it reports the port it listens on, then keep draining it
+     * so that the process never blocks on a full pipe
+     */
+    private static int awaitPort(Process process, int index) throws IOException {
+        BufferedReader output = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null && !line.startsWith(WorkerProtocol.READY)) {
+            log.debug("worker {}: {}", index, line);
+        }
+        if (line == null) {
+            throw new IOException("worker process " + index + " exited before listening");
+        }
+        Thread drain = new Thread(() -> output.lines().forEach(l -> log.debug("worker {}: {}", index, l)),
+                "exponentiation-worker-output-" + index);
+        drain.setDaemon(true);
+        drain.start();
+        return Integer.parseInt(line.substring(WorkerProtocol.READY.length()).trim());
+    }
+
+    @Override
+    public void modExps(ExponentiationTask task, ResultConsumer results) {
+        if (task.hasSecretExponents() || task.getBases().size() > WorkerProtocol.MAX_TERMS) {
+            LocalExponentiationWorkers.INSTANCE.modExps(task, results);
+            return;
+        }
+        Map<BigInteger, FixedBaseExponentiator> fixedBases = new ConcurrentHashMap<>();
+        dispatch(task.size(),
+                (connection, from, to) -> connection.computeRows(task, from, to),
+                (from, to) -> task.compute(from, to, fixedBases),
+                (from, values) -> deliver(values, from, results));
+    }
+
+    private static void deliver(BigInteger[] values, int from, ResultConsumer results) {
+        for (int i = 0; i < values.length; i++) {
+            results.accept(from + i, values[i]);
+        }
+    }
+
+    @Override
+    public BigInteger modMultiExp(List<BigInteger> bases, List<BigInteger> exponents, BigInteger modulus) {
+        Preconditions.checkArgument(bases.size() == exponents.size(),
+                "there should be as many exponents as there are bases");
+        List<BigInteger> partialProducts = new ArrayList<>();
+        dispatch(bases.size(),
+                (connection, from, to) -> new BigInteger[]{
+                        connection.computeProduct(bases, exponents, modulus, from, to)},
+                (from, to) -> new BigInteger[]{ExponentiationWorkers.inProcess().modMultiExp(
+                        bases.subList(from, to), exponents.subList(from, to), modulus)},
+                (from, values) -> {
+                    synchronized (partialProducts) {
+                        partialProducts.add(values[0]);
+                    }
+                });
+        return partialProducts.stream().reduce(BigInteger.ONE, (a, b) -> a.multiply(b).mod(modulus));
+    }
+
+    /**
+     * Split the indices <tt>0</tt> to <tt>n - 1</tt> in chunks, and compute each chunk either on a worker, or in the
+     * current JVM if the worker fails or if its result could not be confirmed
+     */
+    private void dispatch(int n, RemoteChunk remote, LocalChunk local, ChunkResults results) {
+        int chunkSize = Math.min(ParallelVectors.DEFAULT_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE,
+                (n + connections.size() * CHUNKS_PER_WORKER - 1) / (connections.size() * CHUNKS_PER_WORKER)));
+        int chunks = (n + chunkSize - 1) / chunkSize;
+        AtomicInteger nextChunk = new AtomicInteger();
+        List<Future<?>> futures = IntStream.range(0, connections.size()).mapToObj(c -> dispatchers.submit(() -> {
+            int k;
+            while ((k = nextChunk.getAndIncrement()) < chunks) {
+                int from = k * chunkSize;
+                int to = Math.min(n, from + chunkSize);
+                BigInteger[] values = computeRemotely(c, remote, local, from, to);
+                results.accept(from, values == null ? local.compute(from, to) : values);
+            }
+        })).collect(Collectors.toList());
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for the workers", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Compute a chunk on the worker of index <tt>c</tt>, and on a second worker if the first one is not trusted
+     *
+     * @return the values of the chunk, or null if they should be computed in the current JVM
+     */
+    private BigInteger[] computeRemotely(int c, RemoteChunk remote, LocalChunk local, int from, int to) {
+        Connection connection = connections.get(c);
+        BigInteger[] values = tryCompute(remote, connection, from, to);
+        if (values == null || connection.isTrusted()) {
+            return values;
+        }
+        Connection checker = null;
+        for (int offset = 1; offset < connections.size() && checker == null; offset++) {
+            Connection candidate = connections.get((c + offset) % connections.size());
+            if (!candidate.isBroken()) {
+                checker = candidate;
+            }
+        }
+        BigInteger[] checkValues = checker == null ? null : tryCompute(remote, checker, from, to);
+        if (checkValues == null || Arrays.equals(values, checkValues)) {
+            return checkValues == null ? null : values;
+        }
+        log.error("exponentiation workers {} and {} disagree on the rows {} to {}, computing them locally",
+                connection.address, checker.address, from, to);
+        BigInteger[] localValues = local.compute(from, to);
+        for (Connection worker : Arrays.asList(connection, checker)) {
+            if (!Arrays.equals(localValues, worker == connection ? values : checkValues)) {
+                worker.markBroken(new IOException("wrong results for the rows " + from + " to " + to));
+            }
+        }
+        return localValues;
+    }
+
+    private static BigInteger[] tryCompute(RemoteChunk remote, Connection connection, int from, int to) {
+        if (connection.isBroken()) {
+            return null;
+        }
+        try {
+            return remote.compute(connection, from, to);
+        } catch (IOException e) {
+            connection.markBroken(e);
+            return null;
+        }
+    }
+
+    @Override
+    public void close() {
+        dispatchers.shutdownNow();
+        connections.forEach(Connection::close);
+        processes.forEach(Process::destroy);
+    }
+
+    @FunctionalInterface
+    private interface RemoteChunk {
+        BigInteger[] compute(Connection connection, int from, int to) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface LocalChunk {
+        BigInteger[] compute(int from, int to);
+    }
+
+    @FunctionalInterface
+    private interface ChunkResults {
+        void accept(int from, BigInteger[] values);
+    }
+
+    /**
+     * A connection to a worker, carrying one request at a time
+     */
+    private static final class Connection {
+        private final String address;
+        private final Socket socket;
+        private final boolean trusted;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private volatile boolean broken;
+
+        private Connection(String address, Socket socket, boolean trusted) throws IOException {
+            this.address = address;
+            this.socket = socket;
+            this.trusted = trusted;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        static Connection open(String host, int port, boolean tls) {
+            Socket socket = null;
+            try {
+                socket = tls ? SSLSocketFactory.getDefault().createSocket() : new Socket();
+                socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+                socket.setSoTimeout(Integer.getInteger(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT_MILLIS));
+                socket.setTcpNoDelay(true);
+                if (tls) {
+                    SSLSocket sslSocket = (SSLSocket) socket;
+                    SSLParameters parameters = sslSocket.getSSLParameters();
+                    parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                    sslSocket.setSSLParameters(parameters);
+                    sslSocket.startHandshake();
+                }
+                // the clear connections only reach the worker processes started by the coordinator
+                return new Connection(host + ":" + port, socket, !tls);
+            } catch (IOException e) {
+                if (socket != null) {
+                    try {
+                        socket.close();
+                    } catch (IOException closeFailure) {
+                        e.addSuppressed(closeFailure);
+                    }
+                }
+                throw new UncheckedIOException("Could not connect to the exponentiation worker at " + host + ":" +
+                        port, e);
+            }
+        }
+
+        synchronized BigInteger[] computeRows(ExponentiationTask task, int from, int to) throws IOException {
+            WorkerProtocol.writeRows(out, task, from, to);
+            return WorkerProtocol.readValues(in, to - from, task.getModulus());
+        }
+
+        synchronized BigInteger computeProduct(List<BigInteger> bases, List<BigInteger> exponents,
+                                               BigInteger modulus, int from, int to) throws IOException {
+            WorkerProtocol.writeProduct(out, bases, exponents, modulus, from, to);
+            return WorkerProtocol.readValues(in, 1, modulus)[0];
+        }
+
+        boolean isTrusted() {
+            return trusted;
+        }
+
+        boolean isBroken() {
+            return broken;
+        }
+
+        void markBroken(IOException cause) {
+            log.error("exponentiation worker {} failed, computing its chunks locally from now on", address, cause);
+            broken = true;
+            close();
+        }
+
+        void close() {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.warn("could not close the connection to the exponentiation worker {}", address, e);
+            }
+        }
+    }
+}
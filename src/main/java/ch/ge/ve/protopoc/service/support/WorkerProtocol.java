@@ -0,0 +1,233 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+
+package ch.ge.ve.protopoc.service.support;
+
+import com.google.common.base.Preconditions;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Messages exchanged between a {@link RemoteExponentiationWorkers} coordinator and an {@link ExponentiationWorker}.
+ * <p>Each request is answered before the next one is sent on the same connection. Integers are written as their
+ * two's-complement byte array, prefixed with its length.</p>
+ * <ul>
+ * <li>rows request: {@link #ROWS}, modulus, order, number of terms, number of rows, then the columns of bases and
+ * exponents of each term, each prefixed with its size (1 for a value shared by all the rows); answered by the values
+ * of the rows. Only tasks with public exponents are sent.</li>
+ * <li>product request: {@link #PRODUCT}, modulus, number of terms, bases, exponents; answered by the product</li>
+ * </ul>
+ * <p>Every answer starts with {@link #OK}, or with {@link #FAILED} followed by an error message.</p>
+ * <p>The lengths and counts read from the peer are bounded before anything is allocated: a modulus is at most
+ * {@link #MAX_MODULUS_LENGTH} bytes long, every other integer is at most as long as the modulus, a request has at
+ * most {@link #MAX_TERMS} terms and {@link #MAX_ROWS} rows, and the values of an answer must be in
+ * <tt>[0, modulus)</tt>. A message breaking these bounds is rejected with an {@link IOException}, which closes the
+ * connection.</p>
+ */
+final class WorkerProtocol {
+    static final byte ROWS = 1;
+    static final byte PRODUCT = 2;
+    static final byte OK = 0;
+    static final byte FAILED = 1;
+    /**
+     * Line written on the standard output by a worker once it accepts connections, followed by its port
+     */
+    static final String READY = "exponentiation worker listening on port ";
+    /**
+     * Maximal length in bytes of the two's-complement representation of a modulus (8192 bits)
+     */
+    static final int MAX_MODULUS_LENGTH = 1025;
+    /**
+     * Maximal number of terms of a rows request
+     */
+    static final int MAX_TERMS = 16;
+    /**
+     * Maximal number of rows of a request, the coordinator never sending more than a chunk
+     */
+    static final int MAX_ROWS = ParallelVectors.DEFAULT_CHUNK_SIZE;
+
+    private WorkerProtocol() {
+        // static methods only
+    }
+
+    static void writeRows(DataOutputStream out, ExponentiationTask task, int from, int to) throws IOException {
+        Preconditions.checkArgument(!task.hasSecretExponents(), "secret exponents must not be sent to the workers");
+        Preconditions.checkArgument(task.getBases().size() <= MAX_TERMS, "too many terms for a worker");
+        Preconditions.checkArgument(to - from <= MAX_ROWS, "too many rows for a worker");
+        out.writeByte(ROWS);
+        writeInteger(out, task.getModulus());
+        writeInteger(out, task.getOrder());
+        out.writeInt(task.getBases().size());
+        out.writeInt(to - from);
+        for (int k = 0; k < task.getBases().size(); k++) {
+            writeColumn(out, task.getBases().get(k), from, to);
+            writeColumn(out, task.getExponents().get(k), from, to);
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the body of a rows request, after its type
+     */
+    static ExponentiationTask readRows(DataInputStream in) throws IOException {
+        BigInteger modulus = readModulus(in);
+        int maxLength = modulus.toByteArray().length;
+        BigInteger order = readInteger(in, maxLength);
+        int terms = readCount(in, MAX_TERMS, "terms");
+        int rows = readCount(in, MAX_ROWS, "rows");
+        List<List<BigInteger>> bases = new ArrayList<>();
+        List<List<BigInteger>> exponents = new ArrayList<>();
+        for (int k = 0; k < terms; k++) {
+            bases.add(readColumn(in, rows, maxLength));
+            exponents.add(readColumn(in, rows, maxLength));
+        }
+        return new ExponentiationTask(modulus, order, false, bases, exponents);
+    }
+
+    static void writeProduct(DataOutputStream out, List<BigInteger> bases, List<BigInteger> exponents,
+                             BigInteger modulus, int from, int to) throws IOException {
+        Preconditions.checkArgument(to - from <= MAX_ROWS, "too many rows for a worker");
+        out.writeByte(PRODUCT);
+        writeInteger(out, modulus);
+        out.writeInt(to - from);
+        for (int i = from; i < to; i++) {
+            writeInteger(out, bases.get(i));
+        }
+        for (int i = from; i < to; i++) {
+            writeInteger(out, exponents.get(i));
+        }
+        out.flush();
+    }
+
+    /**
+     * Read the body of a product request, after its type, and compute it
+     */
+    static BigInteger readAndComputeProduct(DataInputStream in, ExponentiationWorkers workers) throws IOException {
+        BigInteger modulus = readModulus(in);
+        int maxLength = modulus.toByteArray().length;
+        int n = readCount(in, MAX_ROWS, "rows");
+        BigInteger[] bases = readIntegers(in, n, maxLength);
+        BigInteger[] exponents = readIntegers(in, n, maxLength);
+        return workers.modMultiExp(Arrays.asList(bases), Arrays.asList(exponents), modulus);
+    }
+
+    static void writeValues(DataOutputStream out, BigInteger[] values) throws IOException {
+        out.writeByte(OK);
+        for (BigInteger value : values) {
+            writeInteger(out, value);
+        }
+        out.flush();
+    }
+
+    static void writeFailure(DataOutputStream out, String message) throws IOException {
+        out.writeByte(FAILED);
+        out.writeUTF(String.valueOf(message));
+        out.flush();
+    }
+
+    /**
+     * Read the answer to a request
+     *
+     * @param modulus the modulus of the request, bounding the values
+     * @throws IOException if the worker failed to compute the request, or answered values out of range
+     */
+    static BigInteger[] readValues(DataInputStream in, int n, BigInteger modulus) throws IOException {
+        byte status = in.readByte();
+        if (status != OK) {
+            throw new IOException("the worker failed: " + in.readUTF());
+        }
+        BigInteger[] values = readIntegers(in, n, modulus.toByteArray().length);
+        for (BigInteger value : values) {
+            if (value.signum() < 0 || value.compareTo(modulus) >= 0) {
+                throw new IOException("the worker answered a value out of range");
+            }
+        }
+        return values;
+    }
+
+    private static void writeColumn(DataOutputStream out, List<BigInteger> column, int from, int to)
+            throws IOException {
+        if (column.size() == 1) {
+            out.writeInt(1);
+            writeInteger(out, column.get(0));
+        } else {
+            out.writeInt(to - from);
+            for (int i = from; i < to; i++) {
+                writeInteger(out, column.get(i));
+            }
+        }
+    }
+
+    private static List<BigInteger> readColumn(DataInputStream in, int rows, int maxLength) throws IOException {
+        int size = in.readInt();
+        if (size != 1 && size != rows) {
+            throw new IOException("invalid column size " + size + " for " + rows + " rows");
+        }
+        return Arrays.asList(readIntegers(in, size, maxLength));
+    }
+
+    private static int readCount(DataInputStream in, int max, String name) throws IOException {
+        int count = in.readInt();
+        if (count < 1 || count > max) {
+            throw new IOException("invalid number of " + name + ": " + count);
+        }
+        return count;
+    }
+
+    private static BigInteger readModulus(DataInputStream in) throws IOException {
+        BigInteger modulus = readInteger(in, MAX_MODULUS_LENGTH);
+        if (modulus.signum() <= 0) {
+            throw new IOException("the modulus must be positive");
+        }
+        return modulus;
+    }
+
+    private static BigInteger[] readIntegers(DataInputStream in, int n, int maxLength) throws IOException {
+        BigInteger[] values = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = readInteger(in, maxLength);
+        }
+        return values;
+    }
+
+    private static void writeInteger(DataOutputStream out, BigInteger value) throws IOException {
+        byte[] bytes = value.toByteArray();
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static BigInteger readInteger(DataInputStream in, int maxLength) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > maxLength) {
+            throw new IOException("invalid integer length " + length + ", at most " + maxLength + " expected");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new BigInteger(bytes);
+    }
+}
@@ -0,0 +1,102 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic
+
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.arithmetic.BigIntegerArithmeticTest.P_1024
+import static ch.ge.ve.protopoc.service.support.BigIntegers.TWO
+
+/**
+ * Tests for the {@link ArithmeticProvider} implementations and their selection
+ */
+class ArithmeticProvidersTest extends Specification {
+
+    def "provider #provider.name should agree with BigInteger"() {
+        given:
+        def random = new Random(7L)
+        def x = new BigInteger(1023, random)
+        def y = new BigInteger(1023, random)
+        def e = new BigInteger(1024, random)
+
+        expect:
+        provider.modExpSecret(x, e, P_1024) == x.modPow(e, P_1024)
+        provider.modExpPublic(x, e, P_1024) == x.modPow(e, P_1024)
+        provider.modExpPublic(x, BigInteger.ZERO, P_1024) == BigInteger.ONE
+        provider.modInverse(x, P_1024) == x.modInverse(P_1024)
+        provider.jacobiSymbol(x, P_1024) == new JdkArithmeticProvider().jacobiSymbol(x, P_1024)
+        provider.multiplyMod(x, y, P_1024) == x.multiply(y).mod(P_1024)
+        provider.multiplyMod(x.multiply(y), P_1024.negate(), P_1024) == x.multiply(y).multiply(P_1024.negate()).mod(P_1024)
+        provider.modExpPublic([x, y], [e, e], P_1024) == [x.modPow(e, P_1024), y.modPow(e, P_1024)]
+        provider.modExpSecret([x, TWO], e, P_1024) == [x.modPow(e, P_1024), TWO.modPow(e, P_1024)]
+        provider.modInverse([x, y], P_1024) == [x.modInverse(P_1024), y.modInverse(P_1024)]
+        provider.modExpSimultaneous([x, y], [e, y], P_1024, P_1024) ==
+                x.modPow(e, P_1024).multiply(y.modPow(y, P_1024)).mod(P_1024)
+
+        where:
+        provider << [new GmpArithmeticProvider(), new JdkArithmeticProvider(), new PureJavaArithmeticProvider()]
+                .findAll { it.available }
+    }
+
+    def "a configured provider should be used for every operation"() {
+        given:
+        def providers = new ArithmeticProviders(
+                [new PureJavaArithmeticProvider(), new JdkArithmeticProvider()], JdkArithmeticProvider.NAME)
+
+        expect:
+        ArithmeticOperation.values().every {
+            providers.select(it, P_1024).name == JdkArithmeticProvider.NAME
+        }
+    }
+
+    def "an unknown provider name should be rejected"() {
+        when:
+        new ArithmeticProviders([new JdkArithmeticProvider()], "unknown")
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "calibration should only select constant-time providers for secret exponents"() {
+        given:
+        def jdk = new JdkArithmeticProvider()
+        def constantTime = [
+                getName       : { "constant-time" },
+                isAvailable   : { true },
+                isConstantTime: { true },
+                modExpSecret  : { BigInteger b, BigInteger e, BigInteger m -> jdk.modExpSecret(b, e, m) },
+                modExpPublic  : { BigInteger b, BigInteger e, BigInteger m -> jdk.modExpPublic(b, e, m) },
+                modInverse    : { BigInteger v, BigInteger m -> jdk.modInverse(v, m) },
+                jacobiSymbol  : { BigInteger v, BigInteger n -> jdk.jacobiSymbol(v, n) },
+                multiplyMod   : { BigInteger x, BigInteger y, BigInteger m -> jdk.multiplyMod(x, y, m) }
+        ] as ArithmeticProvider
+        def providers = new ArithmeticProviders([new PureJavaArithmeticProvider(), constantTime], ArithmeticProviders.AUTO)
+
+        when:
+        def selection = providers.calibrate(P_1024)
+
+        then:
+        selection.keySet() == ArithmeticOperation.values() as Set
+        selection[ArithmeticOperation.MOD_EXP_SECRET].name == "constant-time"
+        providers.report().contains("1024")
+    }
+}
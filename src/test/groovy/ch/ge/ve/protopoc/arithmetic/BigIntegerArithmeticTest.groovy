@@ -0,0 +1,145 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic
+
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * Tests for the arithmetic entry points of {@link BigIntegerArithmetic}
+ */
+class BigIntegerArithmeticTest extends Specification {
+    static final BigInteger P_1024 = new BigInteger("89884656743115795386465259539451236680898848947115328636715040578" +
+            "86633790275048156635423866120376801056005693993569667882939488440" +
+            "72083112464237153197370621888839467124327426381511098006230470597" +
+            "26541476042502884419075341171231440736956555270413618581675255342" +
+            "293149119973622969239858152417678164812113740223")
+
+    def "modExpSecret and modExpPublic should agree with BigInteger#modPow"() {
+        expect:
+        BigIntegerArithmetic.modExpSecret(base, exponent, ELEVEN) == result
+        BigIntegerArithmetic.modExpPublic(base, exponent, ELEVEN) == result
+
+        where:
+        base  | exponent || result
+        THREE | ZERO     || ONE
+        THREE | FOUR     || FOUR
+        FOUR  | -ONE     || THREE
+        FIVE  | -TWO     || FOUR
+    }
+
+    def "batch modExpSecret and modExpPublic should match the individual exponentiations"() {
+        given:
+        def random = new Random(11L)
+        def bases = (0..<n).collect { new BigInteger(P_1024.bitLength() - 1, random) }
+        def exponents = (0..<n).collect { new BigInteger(160, random).multiply(it % 3 == 0 ? -ONE : ONE) }
+        def expected = (0..<n).collect { bases[it].modPow(exponents[it], P_1024) }
+
+        expect:
+        BigIntegerArithmetic.modExpSecret(bases, exponents, P_1024) == expected
+        BigIntegerArithmetic.modExpPublic(bases, exponents, P_1024) == expected
+
+        where:
+        n << [0, 1, 7, 50]
+    }
+
+    def "batch modExpSecret with a common exponent should match the individual exponentiations"() {
+        expect:
+        BigIntegerArithmetic.modExpSecret([TWO, THREE, FIVE, SEVEN], exponent, ELEVEN) == result
+
+        where:
+        exponent || result
+        THREE    || [EIGHT, FIVE, FOUR, TWO]
+        -ONE     || [SIX, FOUR, NINE, EIGHT]
+    }
+
+    def "batch modInverse should invert every value"() {
+        expect:
+        BigIntegerArithmetic.modInverse(values, ELEVEN) == result
+
+        where:
+        values                      || result
+        []                          || []
+        [THREE]                     || [FOUR]
+        [TWO, THREE, FOUR, -ONE]    || [SIX, FOUR, THREE, BigInteger.TEN]
+        [ELEVEN.add(TWO), FIVE]     || [SIX, NINE]
+    }
+
+    def "batch modInverse should match the individual inversions for large inputs"() {
+        given:
+        def random = new Random(5L)
+        def values = (0..<500).collect { new BigInteger(P_1024.bitLength() - 1, random) }
+
+        expect:
+        BigIntegerArithmetic.modInverse(values, P_1024) == values.collect { it.modInverse(P_1024) }
+    }
+
+    def "batch modInverse should fail on a non-invertible value"() {
+        when:
+        BigIntegerArithmetic.modInverse([THREE, ELEVEN, FOUR], ELEVEN)
+
+        then:
+        thrown(ArithmeticException)
+    }
+
+    def "modExp2 and modExp3 should support negative exponents for subgroup elements"() {
+        expect:
+        BigIntegerArithmetic.modExp2(THREE, -ONE, FOUR, TWO, ELEVEN, FIVE) == NINE
+        BigIntegerArithmetic.modExp2(FIVE, -TWO, NINE, THREE, ELEVEN, FIVE) == ONE
+        BigIntegerArithmetic.modExp3(THREE, -ONE, FOUR, -TWO, NINE, FOUR, ELEVEN, FIVE) == FOUR
+        BigIntegerArithmetic.modExp3(FOUR, THREE, FIVE, ONE, NINE, -THREE, ELEVEN, FIVE) == FOUR
+    }
+
+    def "modMultiExp should compute the product of the powers"() {
+        expect:
+        BigIntegerArithmetic.modMultiExp(bases, exponents, ELEVEN) == result
+
+        where:
+        bases                | exponents           || result
+        []                   | []                  || ONE
+        [THREE]              | [ZERO]              || ONE
+        [THREE, FOUR]        | [TWO, THREE]        || FOUR
+        [THREE, FOUR, FIVE]  | [ONE, -ONE, TWO]    || FIVE
+    }
+
+    def "modMultiExp should match the individual exponentiations for large inputs"() {
+        given:
+        def random = new Random(42L)
+        def bases = (1..n).collect { new BigInteger(P_1024.bitLength() - 1, random) }
+        def exponents = (1..n).collect { new BigInteger(exponentLength, random) }
+        def expected = (0..<n).collect { BigIntegerArithmetic.modExp(bases[it], exponents[it], P_1024) }
+                .inject(ONE) { acc, x -> acc.multiply(x).mod(P_1024) }
+
+        expect:
+        BigIntegerArithmetic.modMultiExp(bases, exponents, P_1024) == expected
+
+        where:
+        n   | exponentLength
+        2   | 1023
+        20  | 80
+        300 | 80
+        300 | 1023
+    }
+}
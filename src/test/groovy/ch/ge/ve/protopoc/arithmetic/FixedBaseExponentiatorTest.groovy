@@ -0,0 +1,68 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.arithmetic
+
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * Tests for the fixed-base exponentiation tables
+ */
+class FixedBaseExponentiatorTest extends Specification {
+    def "modExpPublic and modExp should match the plain modular exponentiation"() {
+        given:
+        def exponentiator = new FixedBaseExponentiator(base, modulus, 3, windowWidth)
+
+        expect:
+        exponentiator.modExpPublic(exponent) == base.modPow(exponent, modulus)
+        exponentiator.modExp(exponent) == base.modPow(exponent, modulus)
+
+        where:
+        base  | modulus | windowWidth | exponent
+        THREE | ELEVEN  | 1           | ZERO
+        THREE | ELEVEN  | 1           | ONE
+        THREE | ELEVEN  | 2           | FOUR
+        FOUR  | ELEVEN  | 2           | SEVEN
+        FOUR  | ELEVEN  | 3           | SIX
+        FIVE  | ELEVEN  | 2           | NINE // longer than the table
+        FIVE  | ELEVEN  | 2           | -THREE // negative exponent
+    }
+
+    def "modExpPublic should match the plain modular exponentiation for large exponents"() {
+        given:
+        def p = new BigInteger("89884656743115795386465259539451236680898848947115328636715040578" +
+                "86633790275048156635423866120376801056005693993569667882939488440" +
+                "72083112464237153197370621888839467124327426381511098006230470597" +
+                "26541476042502884419075341171231440736956555270413618581675255342" +
+                "293149119973622969239858152417678164812113740223")
+        def exponentiator = new FixedBaseExponentiator(FOUR, p, p.bitLength() - 1)
+        def random = new Random(42L)
+
+        expect:
+        (1..20).collect { new BigInteger(p.bitLength() - 1, random) }.every {
+            exponentiator.modExpPublic(it) == FOUR.modPow(it, p)
+        }
+    }
+}
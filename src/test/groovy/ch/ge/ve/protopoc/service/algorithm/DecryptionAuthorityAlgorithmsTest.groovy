@@ -89,9 +89,11 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
 
         and: "some mocked collaborators"
         generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        generalAlgorithms.getGeneratorsProduct(3) >> FIVE
         generalAlgorithms.getNIZKPChallenges(3, [e_0, e_1, [NINE, THREE, THREE]] as List[], 1) >>
                 [TWO, ZERO, THREE]
         generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
+        randomGenerator.randomBigInteger(TWO) >> ONE
 
         and: "the expected preconditions"
         generalAlgorithms.isMember(ONE) >> true
@@ -99,6 +101,7 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger it -> 0 <= it && it < encryptionGroup.q }
 
         and: "an authority index"
@@ -142,6 +145,7 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
 
         and: "some mocked collaborators"
         generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        generalAlgorithms.getGeneratorsProduct(3) >> FIVE
         generalAlgorithms.getNIZKPChallenges(3, [e_0, e_1, [NINE, THREE, THREE]] as List[], 1) >>
                 [TWO, ZERO, THREE]
         generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
@@ -152,6 +156,7 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger it -> 0 <= it && it < encryptionGroup.q }
 
         and: "an authority index"
@@ -161,6 +166,65 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         !decryptionAuthorityAlgorithms.checkShuffleProofs(bold_pi, e_0, bold_E, pk, j)
     }
 
+    def "findInvalidShuffleProof should report the authority whose proof is invalid"() {
+        given: "three authorities"
+        def threeAuthorities = new PublicParameters(
+                securityParameters, encryptionGroup, identificationGroup, primeField,
+                FIVE, defaultAlphabet, FIVE, defaultAlphabet,
+                defaultAlphabet, 2, defaultAlphabet, 2, 3, 3
+        )
+        def algorithms = new DecryptionAuthorityAlgorithms(threeAuthorities, generalAlgorithms, randomGenerator)
+
+        and: "a series of encryptions"
+        def e_0 = [
+                new Encryption(FIVE, ONE),
+                new Encryption(THREE, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def e_1 = [
+                new Encryption(ONE, FIVE),
+                new Encryption(FOUR, THREE),
+                new Encryption(ONE, FOUR)
+        ]
+        def e_2 = [
+                new Encryption(NINE, FIVE),
+                new Encryption(ONE, NINE),
+                new Encryption(FOUR, THREE)
+        ]
+        def bold_E = [e_1, e_2, e_2]
+
+        and: "a public key"
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+
+        and: "a valid proof for the first authority, and an invalid one for the second"
+        def s = new ShuffleProof.S(ONE, TWO, THREE, FOUR, [TWO, FOUR, ONE], [THREE, ZERO, ONE])
+        def bold_c = [NINE, THREE, THREE]
+        def bold_c_hat = [FOUR, FIVE, ONE]
+        def validProof = new ShuffleProof(
+                new ShuffleProof.T(THREE, NINE, FIVE, [THREE, FOUR], [FOUR, FOUR, FOUR]), s, bold_c, bold_c_hat)
+        def invalidProof = new ShuffleProof(
+                new ShuffleProof.T(FOUR /* invalid data */, NINE, FIVE, [THREE, FOUR], [FOUR, FOUR, FOUR]), s,
+                bold_c, bold_c_hat)
+
+        def bold_pi = [validProof, invalidProof, null]
+
+        and: "some mocked collaborators"
+        generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        generalAlgorithms.getGeneratorsProduct(3) >> FIVE
+        generalAlgorithms.getNIZKPChallenges(3, _ as List[], 1) >> [TWO, ZERO, THREE]
+        generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
+        randomGenerator.randomBigInteger(TWO) >> ONE
+
+        and: "the expected preconditions"
+        generalAlgorithms.isMember(_ as BigInteger) >> { BigInteger x -> x in [ONE, THREE, FOUR, FIVE, NINE] }
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger it -> 0 <= it && it < encryptionGroup.q }
+
+        expect:
+        algorithms.findInvalidShuffleProof(bold_pi, e_0, bold_E, pk, 2) == OptionalInt.of(1)
+        !algorithms.checkShuffleProofs(bold_pi, e_0, bold_E, pk, 2)
+    }
+
     def "checkShuffleProof should correctly validate a shuffle proof"() {
         given: "some input"
         def bold_e = [
@@ -182,9 +246,11 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
 
         and: "some mocked collaborators"
         generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        generalAlgorithms.getGeneratorsProduct(3) >> FIVE
         generalAlgorithms.getNIZKPChallenges(3, [bold_e, bold_e_prime, [NINE, THREE, THREE]] as List[], 1) >>
                 [TWO, ZERO, THREE]
         generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
+        randomGenerator.randomBigInteger(TWO) >> ONE
 
         and: "the expected preconditions"
         generalAlgorithms.isMember(ONE) >> true
@@ -192,6 +258,7 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger it -> 0 <= it && it < encryptionGroup.q }
 
         expect:
@@ -199,6 +266,46 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         decryptionAuthorityAlgorithms.checkShuffleProof(pi, bold_e, bold_e_prime, pk) == true
     }
 
+    def "checkShuffleProof should detect an invalid t_hat element"() {
+        given: "some input"
+        def bold_e = [
+                new Encryption(FIVE, ONE),
+                new Encryption(THREE, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def bold_e_prime = [
+                new Encryption(ONE, FIVE),
+                new Encryption(FOUR, THREE),
+                new Encryption(ONE, FOUR)
+        ]
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+        def t = new ShuffleProof.T(THREE, NINE, FIVE, [THREE, FOUR], [FOUR, NINE /* invalid data */, FOUR])
+        def s = new ShuffleProof.S(ONE, TWO, THREE, FOUR, [TWO, FOUR, ONE], [THREE, ZERO, ONE])
+        def bold_c = [NINE, THREE, THREE]
+        def bold_c_hat = [FOUR, FIVE, ONE]
+        def pi = new ShuffleProof(t, s, bold_c, bold_c_hat)
+
+        and: "some mocked collaborators"
+        generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        generalAlgorithms.getGeneratorsProduct(3) >> FIVE
+        generalAlgorithms.getNIZKPChallenges(3, [bold_e, bold_e_prime, [NINE, THREE, THREE]] as List[], 1) >>
+                [TWO, ZERO, THREE]
+        generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
+        randomGenerator.randomBigInteger(TWO) >> ZERO
+
+        and: "the expected preconditions"
+        generalAlgorithms.isMember(ONE) >> true
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+        generalAlgorithms.isMember(FIVE) >> true
+        generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger it -> 0 <= it && it < encryptionGroup.q }
+
+        expect:
+        !decryptionAuthorityAlgorithms.checkShuffleProof(pi, bold_e, bold_e_prime, pk)
+    }
+
     def "getPartialDecryptions should perform partial decryptions on provided encryptions"() {
         given:
         def bold_e = [
@@ -246,4 +353,33 @@ class DecryptionAuthorityAlgorithmsTest extends Specification {
         decryptionAuthorityAlgorithms.genDecryptionProof(sk_j, pk_j, bold_e, bold_b_prime) ==
                 new DecryptionProof([NINE, THREE, NINE, FIVE, FOUR], ZERO)
     }
+
+    def "genPartialDecryptionsAndProof should perform the partial decryptions and generate a valid proof"() {
+        given:
+        def sk_j = THREE
+        def pk_j = FIVE
+        def bold_e = [
+                new Encryption(ONE, FIVE),
+                new Encryption(NINE, THREE),
+                new Encryption(FOUR, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        randomGenerator.randomInZq(FIVE) >> TWO
+        generalAlgorithms.getHash(_) >> ([0x01] as byte[])
+        generalAlgorithms.getHashOfHashes(_) >> ([0x02] as byte[])
+        generalAlgorithms.getNIZKPChallenge(_ as byte[], _ as byte[], 1) >> ONE
+
+        and: "the expected preconditions"
+        generalAlgorithms.isMember(ONE) >> true
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+        generalAlgorithms.isMember(FIVE) >> true
+        generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
+
+        expect:
+        decryptionAuthorityAlgorithms.genPartialDecryptionsAndProof(sk_j, pk_j, bold_e) ==
+                new PartialDecryptionsAndProof([FOUR, FIVE, NINE, THREE],
+                        new DecryptionProof([NINE, THREE, NINE, FIVE, FOUR], ZERO))
+    }
 }
@@ -31,6 +31,7 @@ import spock.lang.Specification
 
 import static ch.ge.ve.protopoc.service.support.BigIntegers.*
 import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
 
 /**
  * This specification defines the expected behaviour of the general algorithms
@@ -63,6 +64,19 @@ class GeneralAlgorithmsTest extends Specification {
         ELEVEN | false
     }
 
+    def "areMembers"() {
+        expect:
+        generalAlgorithms.areMembers(xs) == result
+
+        where:
+        xs                         || result
+        []                         || true
+        [ONE, THREE, FOUR, FIVE]   || true
+        [ONE, THREE, TWO]          || false
+        [ONE, ZERO]                || false
+        [THREE, ELEVEN]            || false
+    }
+
     def "getPrimes"() {
         given:
         jacobiSymbol.computeJacobiSymbol(THREE, ELEVEN) >> 1
@@ -94,15 +108,27 @@ class GeneralAlgorithmsTest extends Specification {
         def generators = generalAlgorithms.getGenerators(2)
 
         then:
-        4 * hash.recHash_L(_ as Object[]) >>> [
-                [0x09] as byte[], // 9 * 9 = 81 =_11 4 --> OK
-                [0x05] as byte[], // 5 * 5 = 25 =_11 3 --> KO, is g
-                [0x01] as byte[], // 1 * 1 = 1 =_11 1 --> KO, is 1
-                [0x03] as byte[] // 3 * 3 = 9 =_11 9 --> OK
-        ]
+        1 * hash.recHash_L("chVote", ZERO, ONE) >> ([0x09] as byte[]) // 9 * 9 = 81 =_11 4 --> OK
+        1 * hash.recHash_L("chVote", ONE, ONE) >> ([0x05] as byte[]) // 5 * 5 = 25 =_11 3 --> KO, is g
+        1 * hash.recHash_L("chVote", ONE, TWO) >> ([0x01] as byte[]) // 1 * 1 = 1 =_11 1 --> KO, is 1
+        1 * hash.recHash_L("chVote", ONE, THREE) >> ([0x03] as byte[]) // 3 * 3 = 9 =_11 9 --> OK
         generators.containsAll(FOUR, NINE)
     }
 
+    def "getGenerators should extend the generators already computed"() {
+        when:
+        def first = generalAlgorithms.getGenerators(1)
+        def generators = generalAlgorithms.getGenerators(2)
+        def product = generalAlgorithms.getGeneratorsProduct(2)
+
+        then:
+        1 * hash.recHash_L("chVote", ZERO, ONE) >> ([0x09] as byte[]) // 9 * 9 = 81 =_11 4 --> OK
+        1 * hash.recHash_L("chVote", ONE, ONE) >> ([0x08] as byte[]) // 8 * 8 = 64 =_11 9 --> OK
+        first == [FOUR]
+        generators == [FOUR, NINE]
+        product == THREE
+    }
+
     def "getNIZKPChallenge"() {
         Object[] v, t
         v = new Object[0]
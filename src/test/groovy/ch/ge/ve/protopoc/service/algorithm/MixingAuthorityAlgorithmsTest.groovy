@@ -112,7 +112,7 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         shuffle.bold_r_prime.size() == 3
         shuffle.bold_r_prime.containsAll([ONE, TWO, FOUR]) // making the shuffle parallel made the
         // test run order unpredictable
-        shuffle.psy == [1, 0, 2]
+        shuffle.psy == Permutation.of(1, 0, 2)
 
         def p = ELEVEN
         def pk = THREE
@@ -132,12 +132,67 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         e_prime_2.b == (NINE * pk.modPow(r_2, p)) % p
     }
 
+    def "genShuffle should use the provided re-encryption randomness"() {
+        given:
+        randomGenerator.randomIntInRange(_, _) >>> [1, 1, 2] // psy = [1, 0, 2]
+        def bold_e = [
+                new Encryption(FIVE, ONE),
+                new Encryption(THREE, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def publicKey = new EncryptionPublicKey(THREE, encryptionGroup)
+        def bold_rho = [
+                new ReEncryptionRandomness(publicKey, ONE, THREE, THREE),
+                new ReEncryptionRandomness(publicKey, TWO, NINE, NINE),
+                new ReEncryptionRandomness(publicKey, FOUR, FOUR, FOUR)
+        ]
+
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(ONE) >> true
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+        generalAlgorithms.isMember(FIVE) >> true
+        generalAlgorithms.isMember(NINE) >> true
+
+        when:
+        def shuffle = mixingAuthorityAlgorithms.genShuffle(bold_e, publicKey, bold_rho)
+
+        then:
+        shuffle == new Shuffle([new Encryption(FIVE, THREE), new Encryption(FOUR, THREE), new Encryption(NINE, THREE)],
+                [ONE, TWO, FOUR], Permutation.of(1, 0, 2))
+        0 * randomGenerator.randomInZq(_)
+    }
+
+    def "genShuffle should reject re-encryption randomness computed for another key"() {
+        given:
+        def bold_e = [new Encryption(FIVE, ONE)]
+        def otherKey = new EncryptionPublicKey(FOUR, encryptionGroup)
+        generalAlgorithms.isMember(_ as BigInteger) >> true
+
+        when:
+        mixingAuthorityAlgorithms.genShuffle(bold_e, new EncryptionPublicKey(THREE, encryptionGroup),
+                [new ReEncryptionRandomness(otherKey, ONE, FOUR, THREE)])
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "genReEncryptionRandomness should compute the powers of pk and g"() {
+        given:
+        randomGenerator.randomInZq(FIVE) >> TWO
+        generalAlgorithms.isMember(FOUR) >> true
+
+        expect:
+        mixingAuthorityAlgorithms.genReEncryptionRandomness(new EncryptionPublicKey(FOUR, encryptionGroup)) ==
+                new ReEncryptionRandomness(new EncryptionPublicKey(FOUR, encryptionGroup), TWO, FIVE, NINE)
+    }
+
     def "genPermutation should generate a valid permutation"() {
         given:
         randomGenerator.randomIntInRange(_, _) >>> randomInts
 
         expect:
-        mixingAuthorityAlgorithms.genPermutation(n) == psy
+        mixingAuthorityAlgorithms.genPermutation(n) == Permutation.of(psy)
 
         where:
         n | randomInts   || psy
@@ -147,6 +202,31 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         4 | [0, 3, 2, 3] || [0, 3, 2, 1]
     }
 
+    def "a generated permutation should be undone by its inverse"() {
+        given:
+        randomGenerator.randomIntInRange(_, _) >>> [0, 3, 2, 3] // psy = [0, 3, 2, 1]
+        def elements = ["a", "b", "c", "d"]
+
+        when:
+        def psy = mixingAuthorityAlgorithms.genPermutation(4)
+
+        then:
+        psy.apply(elements) == ["a", "d", "c", "b"]
+        psy.inverse().apply(psy.apply(elements)) == elements
+        psy.inverse() == Permutation.of(0, 3, 2, 1)
+    }
+
+    def "a permutation should not contain duplicate or out of range values"() {
+        when:
+        Permutation.of(values as int[])
+
+        then:
+        thrown(IllegalArgumentException)
+
+        where:
+        values << [[0, 0], [1, 2], [-1, 0]]
+    }
+
     def "genReEncryption should correctly re-encrypt the ballot"() {
         given:
         def pk = new EncryptionPublicKey(THREE, encryptionGroup)
@@ -180,9 +260,10 @@ class MixingAuthorityAlgorithmsTest extends Specification {
                 new Encryption(ONE, FOUR)
         ]
         def bold_r_prime = [ONE, FOUR, TWO]
-        def psy = [1, 0, 2]
+        def psy = Permutation.of(1, 0, 2)
         def pk = new EncryptionPublicKey(THREE, encryptionGroup)
         generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        generalAlgorithms.getGeneratorsProduct(3) >> FIVE
         randomGenerator.randomInZq(FIVE) >>> [
                 ONE, // genPermutationCommitment, r_?
                 TWO, // genPermutationCommitment, r_?
@@ -204,6 +285,7 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.getNIZKPChallenges(3, _ as Object[], 1) >>
                 [TWO, ZERO, THREE]
         generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
+        randomGenerator.randomBigInteger(TWO) >> ONE // weights of the batch verification
 
         and: "the expected preconditions checks"
         generalAlgorithms.isMember(ONE) >> true
@@ -211,6 +293,7 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
 
         when:
@@ -221,6 +304,69 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         decryptionAuthorityAlgorithms.checkShuffleProof(proof, bold_e, bold_e_prime, pk) == true
     }
 
+    def "a shuffle and its proof generated from an offline precomputation should be valid"() {
+        given:
+        def bold_e = [
+                new Encryption(FIVE, ONE),
+                new Encryption(THREE, FOUR),
+                new Encryption(FIVE, NINE)
+        ]
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+        def bold_rho = [
+                new ReEncryptionRandomness(pk, ONE, THREE, THREE),
+                new ReEncryptionRandomness(pk, FOUR, FOUR, FOUR),
+                new ReEncryptionRandomness(pk, TWO, NINE, NINE)
+        ]
+        randomGenerator.randomIntInRange(_, _) >>> [1, 1, 2] // psy = [1, 0, 2]
+        generalAlgorithms.getGenerators(3) >> [FOUR, THREE, FIVE]
+        generalAlgorithms.getGeneratorsProduct(3) >> FIVE
+        randomGenerator.randomInZq(FIVE) >>> [
+                ONE, TWO, THREE, // genPermutationCommitment
+                FOUR, ZERO, ONE, // r_hat
+                ONE, TWO, THREE, FOUR, // omega_1 to omega_4
+                TWO, THREE, FOUR, ZERO, ONE, ONE // omega_hat and omega_prime
+        ]
+        generalAlgorithms.getNIZKPChallenges(3, _ as Object[], 1) >> [TWO, ZERO, THREE]
+        generalAlgorithms.getNIZKPChallenge(_, _, 1) >> ZERO
+        randomGenerator.randomBigInteger(TWO) >> ONE // weights of the batch verification
+
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(_ as BigInteger) >> { BigInteger x -> x in [ONE, THREE, FOUR, FIVE, NINE] }
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
+
+        when:
+        def precomputation = mixingAuthorityAlgorithms.precomputeOffline(3, pk)
+        def shuffle = mixingAuthorityAlgorithms.genShuffle(bold_e, pk, bold_rho, precomputation)
+        def proof = mixingAuthorityAlgorithms.genShuffleProof(bold_e, shuffle.bold_e_prime, shuffle.bold_r_prime, pk,
+                precomputation)
+
+        then:
+        shuffle.psy == Permutation.of(1, 0, 2)
+        proof.bold_c == precomputation.permutationCommitment.bold_c
+        //noinspection GroovyPointlessBoolean
+        decryptionAuthorityAlgorithms.checkShuffleProof(proof, bold_e, shuffle.bold_e_prime, pk) == true
+    }
+
+    def "genShuffle should reject a precomputation made for another key"() {
+        given:
+        def bold_e = [new Encryption(FIVE, ONE)]
+        def pk = new EncryptionPublicKey(THREE, encryptionGroup)
+        def otherKey = new EncryptionPublicKey(FOUR, encryptionGroup)
+        def precomputation = new MixingPrecomputation(otherKey, Permutation.of(0), [FOUR],
+                new PermutationCommitment([THREE], [ONE]), [ONE], [THREE],
+                new MixingPrecomputation.Omega(ONE, ONE, ONE, ONE, [ONE], [ONE]),
+                new MixingPrecomputation.PartialT(THREE, THREE, THREE, THREE, THREE, [THREE]))
+        generalAlgorithms.isMember(_ as BigInteger) >> true
+
+        when:
+        mixingAuthorityAlgorithms.genShuffle(bold_e, pk, [new ReEncryptionRandomness(pk, ONE, THREE, THREE)],
+                precomputation)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
     def "genPermutationCommitment should generate a valid permutation commitment"() {
         given:
         randomGenerator.randomInZq(FIVE) >>> random
@@ -231,7 +377,7 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         generalAlgorithms.isMember(FIVE) >> true
 
         when:
-        def commitment = mixingAuthorityAlgorithms.genPermutationCommitment(psy, bold_h)
+        def commitment = mixingAuthorityAlgorithms.genPermutationCommitment(Permutation.of(psy), bold_h)
 
         then:
         commitment.bold_r.containsAll(random)
@@ -263,4 +409,30 @@ class MixingAuthorityAlgorithmsTest extends Specification {
         bold_u             | bold_r            || bold_c
         [ZERO, TWO, THREE] | [FOUR, ZERO, ONE] || [FOUR, FIVE, ONE]
     }
+
+    def "genCommitmentChain should give the same commitments as the sequential chain on long chains"() {
+        given:
+        def random = new Random(42L)
+        def bold_u = (1..200).collect { BigInteger.valueOf(random.nextInt(5)) }
+        def bold_r = (1..200).collect { BigInteger.valueOf(random.nextInt(5)) }
+        randomGenerator.randomInZq(FIVE) >>> bold_r
+
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(c_0) >> true
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
+
+        and: "the commitments computed one after the other"
+        def bold_c = []
+        def c_i_minus_one = c_0
+        for (int i = 0; i < 200; i++) {
+            c_i_minus_one = THREE.modPow(bold_r[i], ELEVEN).multiply(c_i_minus_one.modPow(bold_u[i], ELEVEN)).mod(ELEVEN)
+            bold_c << c_i_minus_one
+        }
+
+        expect:
+        mixingAuthorityAlgorithms.genCommitmentChain(c_0, bold_u) == new CommitmentChain(bold_c, bold_r)
+
+        where:
+        c_0 << [FOUR, NINE]
+    }
 }
@@ -25,6 +25,7 @@ import ch.ge.ve.protopoc.service.exception.NotEnoughPrimesInGroupException
 import ch.ge.ve.protopoc.service.exception.TallyingRuntimeException
 import ch.ge.ve.protopoc.service.model.*
 import ch.ge.ve.protopoc.service.simulation.SimulationConstants
+import ch.ge.ve.protopoc.service.support.RandomGenerator
 import spock.lang.Specification
 
 import static ch.ge.ve.protopoc.service.support.BigIntegers.*
@@ -73,19 +74,54 @@ class TallyingAuthoritiesAlgorithmTest extends Specification {
                 [FOUR, FIVE, NINE, THREE],
                 [FIVE, THREE, FOUR, NINE]
         ]
-        generalAlgorithms.getNIZKPChallenge(*_) >>> [ONE, TWO]
+        generalAlgorithms.getNIZKPChallenge({ it[0] == FIVE }, _, 1) >> ONE
+        generalAlgorithms.getNIZKPChallenge({ it[0] == THREE }, _, 1) >> TWO
         and: "the expected preconditions checks"
         generalAlgorithms.isMember(ONE) >> true
         generalAlgorithms.isMember(THREE) >> true
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
 
         expect: "the decryption proofs check to succeed"
         tallyingAuthoritiesAlgorithm.checkDecryptionProofs(bold_pi_prime, bold_pk, bold_e, bold_B_prime)
     }
 
+    def "checkDecryptionProofs should detect an invalid proof"() {
+        given: "fixed weights for the batch verification"
+        RandomGenerator randomGenerator = Mock()
+        randomGenerator.randomBigInteger(TWO) >> ZERO
+        def algorithm = new TallyingAuthoritiesAlgorithm(publicParameters, generalAlgorithms, randomGenerator)
+
+        and: "Some input data"
+        def bold_pi_prime = [
+                new DecryptionProof([NINE, THREE, NINE, FIVE, FOUR], ZERO),
+                new DecryptionProof([FOUR, NINE, FOUR, THREE, NINE /* invalid data */], ONE)
+        ]
+        def bold_pk = [FIVE, THREE]
+        def bold_e = [
+                new Encryption(ONE, FIVE),
+                new Encryption(NINE, THREE),
+                new Encryption(FOUR, FOUR),
+                new Encryption(FOUR, NINE)
+        ]
+        def bold_B_prime = [
+                [FOUR, FIVE, NINE, THREE],
+                [FIVE, THREE, FOUR, NINE]
+        ]
+        generalAlgorithms.getNIZKPChallenge({ it[0] == FIVE }, _, 1) >> ONE
+        generalAlgorithms.getNIZKPChallenge({ it[0] == THREE }, _, 1) >> TWO
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(_ as BigInteger) >> { BigInteger x -> x in [ONE, THREE, FOUR, FIVE, NINE] }
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
+        generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
+
+        expect: "the decryption proofs check to fail"
+        !algorithm.checkDecryptionProofs(bold_pi_prime, bold_pk, bold_e, bold_B_prime)
+    }
+
     def "checkDecryptionProof should correctly validate an authority's partial decryption proof"() {
         given: "Some input data"
         def pi_prime = new DecryptionProof([NINE, THREE, NINE, FIVE, FOUR], ZERO)
@@ -104,6 +140,7 @@ class TallyingAuthoritiesAlgorithmTest extends Specification {
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
 
         expect: "The check of a single decryption proof to succeed"
@@ -128,6 +165,7 @@ class TallyingAuthoritiesAlgorithmTest extends Specification {
         generalAlgorithms.isMember(FOUR) >> true
         generalAlgorithms.isMember(FIVE) >> true
         generalAlgorithms.isMember(NINE) >> true
+        generalAlgorithms.areMembers(_) >> { args -> args[0].every { it in [ONE, THREE, FOUR, FIVE, NINE] } }
         generalAlgorithms.isInZ_q(_ as BigInteger) >> { BigInteger x -> 0 <= x && x < encryptionGroup.q }
 
         expect: "The decryption to be successful and have the expected result"
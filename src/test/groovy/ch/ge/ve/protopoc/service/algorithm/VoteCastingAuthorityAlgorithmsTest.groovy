@@ -205,6 +205,46 @@ class VoteCastingAuthorityAlgorithmsTest extends Specification {
         1 | [FIVE] | TWO   | [THREE] | [[0x02, 0x13], [0x25, 0x33], [0x41, 0x53]] | [NINE] | [TWO]
     }
 
+    def "genResponse should use the provided response randomness"() {
+        given: "a fixed encryption key"
+        def encryptionKey = new EncryptionPublicKey(THREE, encryptionGroup)
+        List<List<Point>> pointMatrix = [[new Point(ONE, SIX), new Point(FOUR, SIX), new Point(THREE, SIX)]]
+        and: "some hash values"
+        hash.recHash_L(_) >>> [
+                [0x00, 0x10], // l = 1
+                [0x20, 0x30], // l = 2
+                [0x40, 0x50] // l = 3
+        ]
+        and: "the expected preconditions checks"
+        generalAlgorithms.isMember(THREE) >> true
+        generalAlgorithms.isMember(FOUR) >> true
+
+        when: "the response is generated from precomputed randomness"
+        def response = voteCastingAuthority.genResponse(0, [FOUR], encryptionKey, [3], [[1]], pointMatrix,
+                { j -> new ResponseRandomness(THREE, [EIGHT, FIVE, FOUR], FIVE) })
+
+        then: "it should match the response computed with the same randomness, without drawing any"
+        response == new ObliviousTransferResponseAndRand(new ObliviousTransferResponse(
+                [NINE], [[0x01, 0x16], [0x24, 0x36], [0x43, 0x56]] as byte[][], [FIVE]), [THREE])
+        0 * randomGenerator.randomInZq(_)
+        0 * generalAlgorithms.getPrimes(_)
+    }
+
+    def "genResponseRandomness should compute the query-independent part of the response"() {
+        given:
+        def encryptionKey = new EncryptionPublicKey(THREE, encryptionGroup)
+        randomGenerator.randomInZq(FIVE) >> THREE
+        generalAlgorithms.getPrimes(5) >> [TWO, THREE, FIVE, SEVEN, ELEVEN]
+
+        expect:
+        voteCastingAuthority.genResponseRandomness(j, encryptionKey, [3, 2]) == new ResponseRandomness(THREE, bold_k, FIVE)
+
+        where:
+        j || bold_k
+        0 || [EIGHT, FIVE, FOUR]
+        1 || [TWO, ZERO]
+    }
+
     def "genResponse should fail if the group is too small"() {
         given: "a fixed encryption key and challenge"
         def pk = new EncryptionPublicKey(THREE, encryptionGroup)
@@ -0,0 +1,145 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.model
+
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+import static java.math.BigInteger.ZERO
+
+/**
+ * Tests on the compact encryption and group element vectors
+ */
+class EncryptionVectorTest extends Specification {
+
+    def "a group element vector should hold the same values as the copied list"() {
+        expect:
+        GroupElementVector.copyOf(values) == values
+        GroupElementVector.copyOf(values).hashCode() == values.hashCode()
+
+        where:
+        values << [
+                [],
+                [ZERO, ONE, ELEVEN],
+                [BigInteger.valueOf(255), BigInteger.valueOf(256), ONE],
+                [ONE.shiftLeft(2047).add(ONE), ZERO, ONE.shiftLeft(2048).subtract(ONE)]
+        ]
+    }
+
+    def "a group element vector should reject negative values"() {
+        when:
+        GroupElementVector.copyOf([ONE, BigInteger.valueOf(-1)])
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "a group element vector should be immutable"() {
+        when:
+        GroupElementVector.copyOf([ONE, TWO]).set(0, THREE)
+
+        then:
+        thrown(UnsupportedOperationException)
+    }
+
+    def "an encryption vector should hold the same encryptions as the copied list"() {
+        given:
+        def encryptions = [new Encryption(FIVE, ONE), new Encryption(THREE, FOUR), new Encryption(ELEVEN, NINE)]
+
+        when:
+        def vector = EncryptionVector.copyOf(encryptions)
+
+        then:
+        vector == encryptions
+        vector.bold_a == [FIVE, THREE, ELEVEN]
+        vector.bold_b == [ONE, FOUR, NINE]
+        EncryptionVector.copyOf(vector).is(vector)
+        EncryptionVector.aComponents(encryptions) == [FIVE, THREE, ELEVEN]
+        EncryptionVector.bComponents(vector).is(vector.bold_b)
+    }
+
+    def "vectors above the heap limit should be stored in mapped files with the same content"() {
+        given:
+        def directory = Files.createTempDirectory("vectors")
+        System.setProperty(VectorStorage.HEAP_VECTOR_LIMIT_PROPERTY, "0")
+        System.setProperty(VectorStorage.DIRECTORY_PROPERTY, directory.toString())
+        def values = [ELEVEN, ZERO, ONE.shiftLeft(2047).add(ONE), FIVE]
+        def builder = EncryptionVector.builder(2, 2)
+
+        when:
+        def vector = GroupElementVector.copyOf(values)
+        builder.set(1, new Encryption(THREE, FOUR))
+        builder.set(0, new Encryption(FIVE, NINE))
+
+        then:
+        !vector.storage.onHeap
+        vector == values
+        vector.hashCode() == values.hashCode()
+        GroupElementVector.fill(4, 257, { i -> values[i] }) == vector
+        builder.build() == [new Encryption(FIVE, NINE), new Encryption(THREE, FOUR)]
+
+        cleanup:
+        System.clearProperty(VectorStorage.HEAP_VECTOR_LIMIT_PROPERTY)
+        System.clearProperty(VectorStorage.DIRECTORY_PROPERTY)
+        directory?.toFile()?.deleteDir()
+    }
+
+    def "secret vectors, and vectors without a storage directory, should stay on the heap"() {
+        given:
+        System.setProperty(VectorStorage.HEAP_VECTOR_LIMIT_PROPERTY, "0")
+        def values = [ELEVEN, ZERO, FIVE]
+
+        expect:
+        GroupElementVector.copyOf(values).storage.onHeap
+        GroupElementVector.secretCopyOf(values).storage.onHeap
+        GroupElementVector.secretFill(3, 1, { i -> values[i] }).storage.onHeap
+        GroupElementVector.secretBuilder(3, 1).build().storage.onHeap
+        GroupElementVector.secretCopyOf(values) == values
+
+        cleanup:
+        System.clearProperty(VectorStorage.HEAP_VECTOR_LIMIT_PROPERTY)
+    }
+
+    def "a secret copy of a mapped vector should be moved to the heap"() {
+        given:
+        def directory = Files.createTempDirectory("vectors")
+        System.setProperty(VectorStorage.HEAP_VECTOR_LIMIT_PROPERTY, "0")
+        System.setProperty(VectorStorage.DIRECTORY_PROPERTY, directory.toString())
+        def mapped = GroupElementVector.copyOf([ELEVEN, ZERO, FIVE])
+
+        when:
+        def copy = GroupElementVector.secretCopyOf(mapped)
+
+        then:
+        !mapped.storage.onHeap
+        copy.storage.onHeap
+        copy == mapped
+
+        cleanup:
+        System.clearProperty(VectorStorage.HEAP_VECTOR_LIMIT_PROPERTY)
+        System.clearProperty(VectorStorage.DIRECTORY_PROPERTY)
+        directory?.toFile()?.deleteDir()
+    }
+}
@@ -0,0 +1,132 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.support
+
+import spock.lang.Shared
+import spock.lang.Specification
+
+import static ch.ge.ve.protopoc.service.support.BigIntegers.*
+import static java.math.BigInteger.ONE
+
+/**
+ * This test class holds the tests for the exponentiation workers, in the current JVM and in worker processes
+ */
+class ExponentiationWorkersTest extends Specification {
+    @Shared
+    def bases = (0..<1000).collect { [ONE, THREE, FOUR, FIVE, NINE][it % 5] }
+    @Shared
+    def exponents = (0..<1000).collect { BigInteger.valueOf((it * 7 % 13) - 6) }
+
+    def "modExps should compute the products of powers for each row"() {
+        given:
+        def task = new ExponentiationTask(ELEVEN, FIVE, secret,
+                [bases, [THREE], bases.reverse()], [exponents, exponents.reverse(), [ONE]])
+        def results = new BigInteger[1000]
+
+        when:
+        ExponentiationWorkers.inProcess().modExps(task, { int i, BigInteger value -> results[i] = value })
+
+        then:
+        results as List == (0..<1000).collect { i ->
+            bases[i].modPow(exponents[i].mod(FIVE), ELEVEN)
+                    .multiply(THREE.modPow(exponents[999 - i].mod(FIVE), ELEVEN))
+                    .multiply(bases[999 - i]).mod(ELEVEN)
+        }
+
+        where:
+        secret << [true, false]
+    }
+
+    def "a task should reject columns of different sizes"() {
+        when:
+        new ExponentiationTask(ELEVEN, FIVE, true, [[THREE, FOUR]], [[ONE, TWO, THREE]])
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    def "tasks with secret exponents should never be written to a worker"() {
+        given:
+        def task = new ExponentiationTask(ELEVEN, FIVE, true, [[THREE]], [exponents])
+        def buffer = new ByteArrayOutputStream()
+
+        when:
+        WorkerProtocol.writeRows(new DataOutputStream(buffer), task, 0, 10)
+
+        then:
+        thrown(IllegalArgumentException)
+        buffer.size() == 0
+    }
+
+    def "a worker should reject a request whose lengths exceed the bounds"() {
+        given:
+        def buffer = new ByteArrayOutputStream()
+        def out = new DataOutputStream(buffer)
+        out.writeInt(1)
+        out.write(ELEVEN.toByteArray())
+        out.writeInt(lengthOrCount)
+        out.write(new byte[16])
+        out.flush()
+
+        when:
+        WorkerProtocol.readRows(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())))
+
+        then:
+        thrown(IOException)
+
+        where:
+        lengthOrCount << [Integer.MAX_VALUE, 2, -1]
+    }
+
+    def "the coordinator should reject answers out of the range of the modulus"() {
+        given:
+        def buffer = new ByteArrayOutputStream()
+        WorkerProtocol.writeValues(new DataOutputStream(buffer), [THREE, ELEVEN] as BigInteger[])
+
+        when:
+        WorkerProtocol.readValues(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())), 2, ELEVEN)
+
+        then:
+        thrown(IOException)
+    }
+
+    def "worker processes should compute the same results as the current JVM"() {
+        given:
+        def workers = RemoteExponentiationWorkers.startProcesses(2)
+        def task = new ExponentiationTask(ELEVEN, FIVE, false, [bases, [THREE]], [exponents, exponents.reverse()])
+        def remoteResults = new BigInteger[1000]
+        def localResults = new BigInteger[1000]
+        def positiveExponents = exponents.collect { it.mod(FIVE) }
+
+        when:
+        workers.modExps(task, { int i, BigInteger value -> remoteResults[i] = value })
+        ExponentiationWorkers.inProcess().modExps(task, { int i, BigInteger value -> localResults[i] = value })
+
+        then:
+        remoteResults == localResults
+        workers.modMultiExp(bases, positiveExponents, ELEVEN) ==
+                ExponentiationWorkers.inProcess().modMultiExp(bases, positiveExponents, ELEVEN)
+
+        cleanup:
+        workers?.close()
+    }
+}
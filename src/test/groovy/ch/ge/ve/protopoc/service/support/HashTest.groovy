@@ -63,4 +63,19 @@ class HashTest extends Specification {
         ["test", BigInteger.valueOf(42L), [0xCC, 0xFF] as byte[]] as Object[]               | [63, -98, 73, -96, 58, 68, 104, -27, -28, -118, 71, -7, 76, -52, -121, 103, -33, -108, -4, 126, 106, 58, 15, -57, -39, 103, 111, 0, 38, 93, 29, 2, 115, -81, -84, -30, -121, -15, -95, -120, 84, 55, 100, 83, 80, 12, -113, -49, 69, 85, -92, 33, 85, -24, -5, -9, 93, -71, -30, -66, 116, -97, -84, 112] as byte[]
         ["test", [BigInteger.valueOf(42L)] as Object[], [0xCC, 0xFF] as byte[]] as Object[] | [63, -98, 73, -96, 58, 68, 104, -27, -28, -118, 71, -7, 76, -52, -121, 103, -33, -108, -4, 126, 106, 58, 15, -57, -39, 103, 111, 0, 38, 93, 29, 2, 115, -81, -84, -30, -121, -15, -95, -120, 84, 55, 100, 83, 80, 12, -113, -49, 69, 85, -92, 33, 85, -24, -5, -9, 93, -71, -30, -66, 116, -97, -84, 112] as byte[]
     }
+
+    def "recHashOfHashes_L should match recHash_L on the list"() {
+        given:
+        conversion.toByteArray(_ as BigInteger) >> { args -> (args[0] as BigInteger).toByteArray() }
+
+        expect:
+        hash.recHashOfHashes_L(values.collect { hash.recHash_L(it) }) == hash.recHash_L(values)
+
+        where:
+        values << [
+                [BigInteger.valueOf(42L)],
+                [BigInteger.valueOf(42L), BigInteger.valueOf(7L), BigInteger.valueOf(1024L)],
+                []
+        ]
+    }
 }
@@ -21,6 +21,7 @@
 
 package ch.ge.ve.protopoc.service.support
 
+import ch.ge.ve.protopoc.arithmetic.BigIntegerArithmeticTest
 import spock.lang.Specification
 
 /**
@@ -51,4 +52,17 @@ class JacobiSymbolTest extends Specification {
         BigInteger.valueOf(14L) | BigInteger.valueOf(59L)            | -1
         BigInteger.valueOf(15L) | BigInteger.valueOf(59L)            | 1
     }
+
+    def "getJacobiSymbol should match Euler's criterion for a large prime"() {
+        given:
+        def p = BigIntegerArithmeticTest.P_1024
+        def random = new Random(13L)
+        def values = (0..<50).collect { new BigInteger(p.bitLength() + 16, random) }
+
+        expect:
+        values.every {
+            def euler = it.modPow(p.subtract(BigInteger.ONE).shiftRight(1), p)
+            jacobiSymbol.computeJacobiSymbol(it, p) == (euler == BigInteger.ONE ? 1 : -1)
+        }
+    }
 }
@@ -0,0 +1,53 @@
+/*-------------------------------------------------------------------------------------------------
+ - #%L                                                                                            -
+ - chvote-protocol-poc                                                                            -
+ - %%                                                                                             -
+ - Copyright (C) 2016 - 2017 République et Canton de Genève                                       -
+ - %%                                                                                             -
+ - This program is free software: you can redistribute it and/or modify                           -
+ - it under the terms of the GNU Affero General Public License as published by                    -
+ - the Free Software Foundation, either version 3 of the License, or                              -
+ - (at your option) any later version.                                                            -
+ -                                                                                                -
+ - This program is distributed in the hope that it will be useful,                                -
+ - but WITHOUT ANY WARRANTY; without even the implied warranty of                                 -
+ - MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the                                   -
+ - GNU General Public License for more details.                                                   -
+ -                                                                                                -
+ - You should have received a copy of the GNU Affero General Public License                       -
+ - along with this program. If not, see <http://www.gnu.org/licenses/>.                           -
+ - #L%                                                                                            -
+ -------------------------------------------------------------------------------------------------*/
+
+package ch.ge.ve.protopoc.service.support
+
+import spock.lang.Specification
+
+/**
+ * This test class holds the tests for the indexed parallel operations defined in ParallelVectors
+ */
+class ParallelVectorsTest extends Specification {
+    def "forEachChunk should cover every index exactly once"() {
+        given:
+        def counts = new int[n]
+
+        when:
+        ParallelVectors.forEachChunk(n, 7, { int from, int to ->
+            for (int i = from; i < to; i++) {
+                counts[i]++
+            }
+        })
+
+        then:
+        counts as List == [1] * n
+
+        where:
+        n << [0, 1, 7, 1000]
+    }
+
+    def "prepend should view the element before the vector"() {
+        expect:
+        ParallelVectors.prepend(0, [1, 2, 3]) == [0, 1, 2, 3]
+        ParallelVectors.prepend(0, []) == [0]
+    }
+}